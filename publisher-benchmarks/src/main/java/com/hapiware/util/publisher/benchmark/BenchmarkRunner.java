@@ -0,0 +1,51 @@
+package com.hapiware.util.publisher.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks with the allocation profiler ({@code -prof gc}) always enabled. All the
+ * standard JMH command line options are accepted, for example:
+ * <pre>
+ * 	java -jar target/benchmarks.jar InvocationBenchmark -p policy=NO_CACHING,GENERATED</pre>
+ * 
+ * Use {@code -h} to list all the options.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+public final class BenchmarkRunner
+{
+	public static void main(String[] args)
+		throws
+			IOException,
+			RunnerException,
+			CommandLineOptionException
+	{
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if(commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		Options options =
+			new OptionsBuilder()
+				.parent(commandLineOptions)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+	
+	
+	private BenchmarkRunner()
+	{
+		// Prevents a construction of BenchmarkRunner.
+	}
+}
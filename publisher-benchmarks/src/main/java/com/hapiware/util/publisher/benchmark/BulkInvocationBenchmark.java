@@ -0,0 +1,107 @@
+package com.hapiware.util.publisher.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hapiware.util.publisher.Publisher;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SFixture;
+
+
+/**
+ * Measures the per row cost of calling a private method for every row of an argument table.
+ * {@link #loopInt()} and {@link #loopObject()} call a substitute created with every publishing
+ * policy in a loop and {@link #bulkInt()} and {@link #bulkObject()} use
+ * {@code Publisher.invokeAll()} which does not depend on the policy. The results are reported
+ * per row.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class BulkInvocationBenchmark
+{
+	private final static int ROWS = 1024;
+	
+	@Param
+	public Policy policy;
+	
+	private Fixture _fixture;
+	private SFixture _substitute;
+	private Method _addInt;
+	private Method _addString;
+	private int[][] _intRows = new int[ROWS][];
+	private int[] _intResults = new int[ROWS];
+	private Object[][] _objectRows = new Object[ROWS][];
+	private Object[] _objectResults = new Object[ROWS];
+	
+	
+	@Setup
+	public void setUp()
+		throws
+			NoSuchMethodException
+	{
+		_fixture = new Fixture();
+		_substitute = Publisher.publish(policy.substituteInterface(), _fixture);
+		_addInt = SFixture.class.getMethod("add", int.class, int.class);
+		_addString = SFixture.class.getMethod("add", String.class, String.class);
+		for(int i = 0; i < ROWS; i++) {
+			_intRows[i] = new int[] { i, i + 1 };
+			_objectRows[i] = new Object[] { "row", String.valueOf(i) };
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] loopInt()
+	{
+		for(int i = 0; i < ROWS; i++)
+			_intResults[i] = _substitute.add(_intRows[i][0], _intRows[i][1]);
+		return _intResults;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] bulkInt()
+	{
+		Publisher.invokeAll(_addInt, _fixture, _intRows, _intResults);
+		return _intResults;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public Object[] loopObject()
+	{
+		for(int i = 0; i < ROWS; i++)
+			_objectResults[i] =
+				_substitute.add((String)_objectRows[i][0], (String)_objectRows[i][1]);
+		return _objectResults;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public Object[] bulkObject()
+	{
+		Publisher.invokeAll(_addString, _fixture, _objectRows, _objectResults);
+		return _objectResults;
+	}
+}
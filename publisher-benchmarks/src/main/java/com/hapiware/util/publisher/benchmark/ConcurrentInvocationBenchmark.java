@@ -0,0 +1,19 @@
+package com.hapiware.util.publisher.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+
+/**
+ * {@link InvocationBenchmark} run with as many threads as there are available processors. All
+ * the threads call the same substitute which reveals contention in the caches of the publishing
+ * policies.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Threads(Threads.MAX)
+public class ConcurrentInvocationBenchmark
+	extends
+		InvocationBenchmark
+{
+}
@@ -0,0 +1,18 @@
+package com.hapiware.util.publisher.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+
+/**
+ * {@link PublishBenchmark} run with as many threads as there are available processors. All the
+ * threads share the same substituted object and {@code Publisher}.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Threads(Threads.MAX)
+public class ConcurrentPublishBenchmark
+	extends
+		PublishBenchmark
+{
+}
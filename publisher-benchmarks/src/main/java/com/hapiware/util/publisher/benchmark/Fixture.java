@@ -0,0 +1,59 @@
+package com.hapiware.util.publisher.benchmark;
+
+
+/**
+ * A substituted class for the benchmarks. Has the same kind of private methods (primitive,
+ * object and array signatures) as the {@code PrivateMethods} fixture of the unit tests and
+ * a private constructor for measuring factory methods.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+public class Fixture
+{
+	private final int _seed;
+	
+	
+	public Fixture()
+	{
+		this(0);
+	}
+	
+	private Fixture(int seed)
+	{
+		_seed = seed;
+	}
+	
+	@SuppressWarnings("unused")
+	private static void doSomething()
+	{
+		// Does nothing. Measures a void return value.
+	}
+	
+	@SuppressWarnings("unused")
+	private String add(String a, String b)
+	{
+		return a + b;
+	}
+	
+	@SuppressWarnings("unused")
+	private double add(double a, double b)
+	{
+		return a + b;
+	}
+	
+	@SuppressWarnings("unused")
+	private int add(int a, int b)
+	{
+		return a + b;
+	}
+	
+	@SuppressWarnings("unused")
+	private static byte[] concat(byte[] left, byte[] right)
+	{
+		byte[] retVal = new byte[left.length + right.length];
+		System.arraycopy(left, 0, retVal, 0, left.length);
+		System.arraycopy(right, 0, retVal, left.length, right.length);
+		return retVal;
+	}
+}
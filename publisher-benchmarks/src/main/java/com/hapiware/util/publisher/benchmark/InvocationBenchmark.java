@@ -0,0 +1,104 @@
+package com.hapiware.util.publisher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hapiware.util.publisher.Publisher;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SFixture;
+
+
+/**
+ * Measures the per call cost of invoking private methods through a substitute created with
+ * every publishing policy. The substitute is created once in the set up, so only the dispatch
+ * from the substitute interface method to the private method is measured. Covers void,
+ * primitive, object and array signatures and a factory method calling a private constructor
+ * ({@link #construct()}) compared to a plain {@code new} ({@link #constructDirectly()}).
+ * The benchmarks are run with a single thread. See {@link ConcurrentInvocationBenchmark} for
+ * the multi-threaded version.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class InvocationBenchmark
+{
+	@Param
+	public Policy policy;
+	
+	private SFixture _substitute;
+	private int _i1 = 3;
+	private int _i2 = 4;
+	private double _d1 = 3.0;
+	private double _d2 = 4.0;
+	private String _s1 = "Hello ";
+	private String _s2 = "world";
+	private byte[] _b1 = new byte[] { 1, 2, 3 };
+	private byte[] _b2 = new byte[] { 4, 5, 6, 7 };
+	
+	
+	@Setup
+	public void setUp()
+	{
+		_substitute = Publisher.publish(policy.substituteInterface(), new Fixture());
+	}
+	
+	@Benchmark
+	public void invokeVoid()
+	{
+		_substitute.doSomething();
+	}
+	
+	@Benchmark
+	public int invokeInt()
+	{
+		return _substitute.add(_i1, _i2);
+	}
+	
+	@Benchmark
+	public double invokeDouble()
+	{
+		return _substitute.add(_d1, _d2);
+	}
+	
+	@Benchmark
+	public String invokeObject()
+	{
+		return _substitute.add(_s1, _s2);
+	}
+	
+	@Benchmark
+	public byte[] invokeArray()
+	{
+		return _substitute.concat(_b1, _b2);
+	}
+	
+	@Benchmark
+	public Fixture construct()
+	{
+		return _substitute.create(_i1);
+	}
+	
+	@Benchmark
+	public Fixture constructDirectly()
+	{
+		return new Fixture();
+	}
+}
@@ -0,0 +1,85 @@
+package com.hapiware.util.publisher.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hapiware.util.publisher.Publisher;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SFixture;
+
+
+/**
+ * Measures the per object cost of publishing a corpus of substituted objects and calling
+ * a private method of each of them. {@link #sequential()} is the loop of "usage with loops" in
+ * {@code Publisher} and {@link #parallel()} uses {@code Publisher.publishAll()} with the common
+ * {@code ForkJoinPool}. The speed up depends on the number of available processors.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ParallelPublishBenchmark
+{
+	private final static int OBJECTS = 100000;
+	
+	@Param
+	public Policy policy;
+	
+	private Publisher<? extends SFixture> _publisher;
+	private List<Fixture> _corpus = new ArrayList<Fixture>(OBJECTS);
+	private Function<SFixture, String> _call =
+		new Function<SFixture, String>()
+		{
+			public String apply(SFixture substitute)
+			{
+				return substitute.add("corpus", "entry");
+			}
+		};
+	
+	
+	@Setup
+	public void setUp()
+	{
+		_publisher = Publisher.create(policy.substituteInterface());
+		for(int i = 0; i < OBJECTS; i++)
+			_corpus.add(new Fixture());
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(OBJECTS)
+	public List<String> sequential()
+	{
+		List<String> results = new ArrayList<String>(OBJECTS);
+		for(Fixture fixture : _corpus)
+			results.add(_call.apply(_publisher.publish(fixture)));
+		return results;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(OBJECTS)
+	public List<String> parallel()
+	{
+		return _publisher.publishAll(_corpus.spliterator(), _call);
+	}
+}
@@ -0,0 +1,59 @@
+package com.hapiware.util.publisher.benchmark;
+
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SAdaptive;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SBytecodeGeneration;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SFixture;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SGenerated;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SIdCaching;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SIdentityHashCaching;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SMethodHandleCaching;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SNoCaching;
+
+
+/**
+ * Publishing policies to be benchmarked. Each constant maps to a substitute interface which
+ * annotations select the policy.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+public enum Policy
+{
+	/** {@code AdaptivePublishingPolicy} */
+	ADAPTIVE(SAdaptive.class),
+	
+	/** {@code NonCachingPublishingPolicy} */
+	NO_CACHING(SNoCaching.class),
+	
+	/** {@code CachingPublishingPolicy} */
+	ID_CACHING(SIdCaching.class),
+	
+	/** {@code IdentityHashedCachingPublishingPolicy} */
+	IDENTITY_HASH_CACHING(SIdentityHashCaching.class),
+	
+	/** {@code ConcurrentIdentityHashedCachingPublishingPolicy} */
+	CONCURRENT_IDENTITY_HASH_CACHING(SConcurrentIdentityHashCaching.class),
+	
+	/** {@code MethodHandlePublishingPolicy} */
+	METHOD_HANDLE_CACHING(SMethodHandleCaching.class),
+	
+	/** {@code BytecodeGeneratingPublishingPolicy} */
+	BYTECODE_GENERATION(SBytecodeGeneration.class),
+	
+	/** {@code GeneratedPublishingPolicy} */
+	GENERATED(SGenerated.class);
+	
+	
+	private final Class<? extends SFixture> _substituteInterface;
+	
+	private Policy(Class<? extends SFixture> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+	}
+	
+	public Class<? extends SFixture> substituteInterface()
+	{
+		return _substituteInterface;
+	}
+}
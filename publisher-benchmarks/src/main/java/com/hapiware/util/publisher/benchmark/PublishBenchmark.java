@@ -0,0 +1,104 @@
+package com.hapiware.util.publisher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hapiware.util.publisher.Publisher;
+import com.hapiware.util.publisher.RebindableSubstitute;
+import com.hapiware.util.publisher.benchmark.SubstituteInterfaces.SFixture;
+
+
+/**
+ * Measures the cost of publishing, i.e. creating substitutes with every publishing policy
+ * through {@link Publisher#publish(Class, Object)}, {@link Publisher#publish(Class, Class)},
+ * {@link Publisher#create(Class)} and {@link Publisher#publish(Object)}, and the cost of
+ * rebinding a substitute with {@link RebindableSubstitute#bind(Object)}. The benchmarks are run
+ * with a single thread. See {@link ConcurrentPublishBenchmark} for the multi-threaded version.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class PublishBenchmark
+{
+	@Param
+	public Policy policy;
+	
+	private Class<? extends SFixture> _substituteInterface;
+	private Fixture _fixture;
+	private Publisher<? extends SFixture> _publisher;
+	
+	
+	@Setup
+	public void setUp()
+	{
+		_substituteInterface = policy.substituteInterface();
+		_fixture = new Fixture();
+		_publisher = Publisher.create(_substituteInterface);
+	}
+	
+	@Benchmark
+	public SFixture publishObject()
+	{
+		return Publisher.publish(_substituteInterface, _fixture);
+	}
+	
+	@Benchmark
+	public SFixture publishClass()
+	{
+		return Publisher.publish(_substituteInterface, Fixture.class);
+	}
+	
+	@Benchmark
+	public SFixture createAndPublish()
+	{
+		return Publisher.create(_substituteInterface).publish(_fixture);
+	}
+	
+	@Benchmark
+	public SFixture publishWithPublisher()
+	{
+		return _publisher.publish(_fixture);
+	}
+	
+	@Benchmark
+	public SFixture rebind(Rebindable rebindable)
+	{
+		return rebindable.substitute.bind(_fixture);
+	}
+	
+	
+	/**
+	 * A rebindable substitute owned by the benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Rebindable
+	{
+		RebindableSubstitute<? extends SFixture> substitute;
+		
+		
+		@Setup
+		public void setUp(PublishBenchmark benchmark)
+		{
+			substitute = Publisher.rebindable(benchmark._substituteInterface);
+		}
+	}
+}
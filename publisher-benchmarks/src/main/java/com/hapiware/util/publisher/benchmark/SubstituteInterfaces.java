@@ -0,0 +1,96 @@
+package com.hapiware.util.publisher.benchmark;
+
+import com.hapiware.util.publisher.annotation.BytecodeGeneration;
+import com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdentityHashCaching;
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+import com.hapiware.util.publisher.annotation.NoCaching;
+import com.hapiware.util.publisher.annotation.Substitutes;
+
+
+/**
+ * Substitute interfaces for {@link Fixture}, one for each publishing policy. All of them extend
+ * {@link SFixture} so that the benchmarks can use them through the same type.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+public final class SubstituteInterfaces
+{
+	public interface SFixture
+	{
+		public void doSomething();
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+		public Fixture create(int seed);
+	}
+	
+	public interface SAdaptive
+		extends
+			SFixture
+	{
+	}
+	
+	@NoCaching
+	public interface SNoCaching
+		extends
+			SFixture
+	{
+	}
+	
+	public interface SIdCaching
+		extends
+			SFixture
+	{
+		@Id(0) public void doSomething();
+		@Id(1) public String add(String a, String b);
+		@Id(2) public double add(double a, double b);
+		@Id(3) public int add(int a, int b);
+		@Id(4) public byte[] concat(byte[] left, byte[] right);
+		@Id(5) public Fixture create(int seed);
+	}
+	
+	@IdentityHashCaching
+	public interface SIdentityHashCaching
+		extends
+			SFixture
+	{
+	}
+	
+	@ConcurrentIdentityHashCaching
+	public interface SConcurrentIdentityHashCaching
+		extends
+			SFixture
+	{
+	}
+	
+	@MethodHandleCaching
+	public interface SMethodHandleCaching
+		extends
+			SFixture
+	{
+	}
+	
+	@BytecodeGeneration
+	public interface SBytecodeGeneration
+		extends
+			SFixture
+	{
+	}
+	
+	@Substitutes(Fixture.class)
+	public interface SGenerated
+		extends
+			SFixture
+	{
+	}
+	
+	
+	private SubstituteInterfaces()
+	{
+		// Prevents a construction of SubstituteInterfaces.
+	}
+}
@@ -0,0 +1,541 @@
+package com.hapiware.util.publisher.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+
+/**
+ * {@code SubstitutesProcessor} is an annotation processor which generates substitute classes for
+ * substitute interfaces marked with {@code com.hapiware.util.publisher.annotation.Substitutes}.
+ * <p>
+ * All the checks done by {@code Publisher} at runtime are done at compile time instead:
+ * 	<ul>
+ * 		<li>every substitute method must exist in the substituted class</li>
+ * 		<li>return types must be compatible</li>
+ * 		<li>
+ * 			a factory method (i.e. a method returning the substituted class) without a matching
+ * 			method must have a constructor with the same parameters
+ * 		</li>
+ * 		<li>
+ * 			every field accessed with {@code com.hapiware.util.publisher.annotation.FieldAccessor}
+ * 			must exist in the substituted class and its type must be compatible
+ * 		</li>
+ * 		<li>the substitute interface must not be {@code private} or generic</li>
+ * 	</ul>
+ * If any of the checks fail a compilation error is reported.
+ * <p>
+ * The generated class for a substitute interface {@code com.example.Outer.SInner} is
+ * {@code com.example.Outer_SInner_Substitute}. {@code Publisher} finds it at runtime and uses it
+ * to create substitute objects.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@SupportedAnnotationTypes(SubstitutesProcessor.SUBSTITUTES)
+public class SubstitutesProcessor
+	extends
+		AbstractProcessor
+{
+	final static String SUBSTITUTES = "com.hapiware.util.publisher.annotation.Substitutes";
+	private final static String FIELD_ACCESSOR =
+		"com.hapiware.util.publisher.annotation.FieldAccessor";
+	private final static String SUPPORT = "com.hapiware.util.publisher.SubstituteSupport";
+	private final static String GENERATED_CLASS_SUFFIX = "_Substitute";
+
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		TypeElement substitutes = processingEnv.getElementUtils().getTypeElement(SUBSTITUTES);
+		if(substitutes == null)
+			return false;
+		for(Element element : roundEnv.getElementsAnnotatedWith(substitutes)) {
+			if(element.getKind() != ElementKind.INTERFACE) {
+				error(element, "@Substitutes can be used only with interfaces.");
+				continue;
+			}
+			process((TypeElement)element);
+		}
+		return true;
+	}
+
+	private void process(TypeElement substituteInterface)
+	{
+		if(!substituteInterface.getTypeParameters().isEmpty()) {
+			error(substituteInterface, "Substitute interface cannot be generic.");
+			return;
+		}
+		Element enclosing = substituteInterface;
+		for(; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+			if(enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+				error(substituteInterface, "Substitute interface cannot be private.");
+				return;
+			}
+		}
+		TypeElement substitutedClass = substitutedClass(substituteInterface);
+		if(substitutedClass == null)
+			return;
+
+		List<ExecutableElement> siMethods = new ArrayList<ExecutableElement>();
+		List<Element> targets = new ArrayList<Element>();
+		boolean ok = true;
+		Elements elements = processingEnv.getElementUtils();
+		for(ExecutableElement siMethod :
+			ElementFilter.methodsIn(elements.getAllMembers(substituteInterface))
+		) {
+			Set<Modifier> modifiers = siMethod.getModifiers();
+			if(!modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.STATIC))
+				continue;
+			AnnotationMirror fieldAccessor = annotation(siMethod, FIELD_ACCESSOR);
+			if(fieldAccessor != null) {
+				VariableElement field =
+					findField(substituteInterface, substitutedClass, siMethod, fieldAccessor);
+				if(field == null) {
+					ok = false;
+					continue;
+				}
+				siMethods.add(siMethod);
+				targets.add(field);
+				continue;
+			}
+			ExecutableElement objMethod = findMethod(substitutedClass, siMethod);
+			if(objMethod == null && isFactoryMethod(substitutedClass, siMethod)) {
+				ExecutableElement constructor = findConstructor(substitutedClass, siMethod);
+				if(constructor != null) {
+					siMethods.add(siMethod);
+					targets.add(constructor);
+					continue;
+				}
+			}
+			if(objMethod == null) {
+				error(
+					siMethod,
+					"Substitute interface has a method name which does not exist "
+						+ "in the substituted class:\n  "
+						+ signature(substituteInterface, siMethod)
+				);
+				ok = false;
+				continue;
+			}
+			if(!isReturnTypeCompatible(siMethod, objMethod)) {
+				error(
+					siMethod,
+					"Return type of the substitute method is not compatible with "
+						+ objMethod.getReturnType() + ":\n  "
+						+ signature(substituteInterface, siMethod)
+				);
+				ok = false;
+				continue;
+			}
+			siMethods.add(siMethod);
+			targets.add(objMethod);
+		}
+		if(ok)
+			generate(substituteInterface, substitutedClass, siMethods, targets);
+	}
+
+	private TypeElement substitutedClass(TypeElement substituteInterface)
+	{
+		Object value = annotationValue(annotation(substituteInterface, SUBSTITUTES));
+		if(value instanceof DeclaredType)
+			return (TypeElement)((DeclaredType)value).asElement();
+		error(substituteInterface, "Substituted class cannot be resolved.");
+		return null;
+	}
+
+	private static AnnotationMirror annotation(Element element, String annotationName)
+	{
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotation = (TypeElement)mirror.getAnnotationType().asElement();
+			if(annotation.getQualifiedName().contentEquals(annotationName))
+				return mirror;
+		}
+		return null;
+	}
+
+	private static Object annotationValue(AnnotationMirror mirror)
+	{
+		if(mirror == null)
+			return null;
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+			mirror.getElementValues().entrySet()
+		) {
+			if(entry.getKey().getSimpleName().contentEquals("value"))
+				return entry.getValue().getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Finds and checks the field of a field accessor method. The naming rules are the same as
+	 * {@code Publisher} uses at runtime. Errors are reported.
+	 */
+	private VariableElement findField(
+		TypeElement substituteInterface,
+		TypeElement substitutedClass,
+		ExecutableElement siMethod,
+		AnnotationMirror fieldAccessor
+	)
+	{
+		Types types = processingEnv.getTypeUtils();
+		List<? extends VariableElement> parameters = siMethod.getParameters();
+		boolean returnsVoid = siMethod.getReturnType().getKind() == TypeKind.VOID;
+		boolean getter = parameters.isEmpty() && !returnsVoid;
+		boolean setter = parameters.size() == 1 && returnsVoid;
+		if(!getter && !setter) {
+			error(
+				siMethod,
+				"Field accessor must be a getter (no parameters) or a setter (one parameter "
+					+ "and void):\n  " + signature(substituteInterface, siMethod)
+			);
+			return null;
+		}
+		
+		List<String> names = new ArrayList<String>();
+		Object value = annotationValue(fieldAccessor);
+		if(value != null && value.toString().length() > 0)
+			names.add(value.toString());
+		else {
+			String name = fieldName(siMethod.getSimpleName().toString());
+			names.add(name);
+			names.add("_" + name);
+		}
+		VariableElement field = null;
+		for(VariableElement candidate :
+			ElementFilter.fieldsIn(substitutedClass.getEnclosedElements())
+		) {
+			if(candidate.getSimpleName().contentEquals(names.get(0)))
+				field = candidate;
+			else
+				if(field == null && names.size() > 1
+					&& candidate.getSimpleName().contentEquals(names.get(1))
+				)
+					field = candidate;
+		}
+		if(field == null) {
+			error(
+				siMethod,
+				"Substitute interface has a field accessor for a field which does not exist "
+					+ "in the substituted class:\n  " + signature(substituteInterface, siMethod)
+			);
+			return null;
+		}
+		
+		TypeMirror fieldType = types.erasure(field.asType());
+		boolean compatible =
+			getter
+				? types.isAssignable(fieldType, types.erasure(siMethod.getReturnType()))
+				: types.isAssignable(types.erasure(parameters.get(0).asType()), fieldType);
+		if(!compatible) {
+			error(
+				siMethod,
+				"Type of the field accessor is not compatible with " + field.asType() + ":\n  "
+					+ signature(substituteInterface, siMethod)
+			);
+			return null;
+		}
+		if(setter
+			&& field.getModifiers().contains(Modifier.STATIC)
+			&& field.getModifiers().contains(Modifier.FINAL)
+		) {
+			error(
+				siMethod,
+				"A static final field cannot be set:\n  " + signature(substituteInterface, siMethod)
+			);
+			return null;
+		}
+		return field;
+	}
+
+	private static String fieldName(String methodName)
+	{
+		String[] prefixes = { "get", "set", "is" };
+		for(String prefix : prefixes) {
+			if(
+				methodName.length() > prefix.length()
+					&& methodName.startsWith(prefix)
+					&& Character.isUpperCase(methodName.charAt(prefix.length()))
+			) {
+				String name = methodName.substring(prefix.length());
+				return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+			}
+		}
+		return methodName;
+	}
+
+	/**
+	 * Finds the method from the substituted class or its superclasses (excluding {@code Object})
+	 * like {@code Publisher} does at runtime.
+	 */
+	private ExecutableElement findMethod(TypeElement substitutedClass, ExecutableElement siMethod)
+	{
+		for(TypeElement type = substitutedClass; type != null; type = superclass(type)) {
+			for(ExecutableElement objMethod :
+				ElementFilter.methodsIn(type.getEnclosedElements())
+			) {
+				if(
+					objMethod.getSimpleName().contentEquals(siMethod.getSimpleName())
+						&& haveSameParameters(siMethod, objMethod)
+				)
+					return objMethod;
+			}
+		}
+		return null;
+	}
+
+	private static TypeElement superclass(TypeElement type)
+	{
+		TypeMirror superclass = type.getSuperclass();
+		if(superclass.getKind() != TypeKind.DECLARED)
+			return null;
+		TypeElement element = (TypeElement)((DeclaredType)superclass).asElement();
+		return
+			element.getQualifiedName().contentEquals(Object.class.getName())
+				? null
+				: element;
+	}
+
+	/**
+	 * Checks if the substitute method is a factory method, i.e. it returns the substituted class
+	 * and may be linked to a constructor.
+	 */
+	private boolean isFactoryMethod(TypeElement substitutedClass, ExecutableElement siMethod)
+	{
+		Types types = processingEnv.getTypeUtils();
+		return
+			!substitutedClass.getModifiers().contains(Modifier.ABSTRACT)
+				&& types.isSameType(
+					types.erasure(siMethod.getReturnType()),
+					types.erasure(substitutedClass.asType())
+				);
+	}
+
+	private ExecutableElement findConstructor(
+		TypeElement substitutedClass,
+		ExecutableElement siMethod
+	)
+	{
+		for(ExecutableElement constructor :
+			ElementFilter.constructorsIn(substitutedClass.getEnclosedElements())
+		) {
+			if(haveSameParameters(siMethod, constructor))
+				return constructor;
+		}
+		return null;
+	}
+
+	private boolean haveSameParameters(ExecutableElement siMethod, ExecutableElement objMethod)
+	{
+		Types types = processingEnv.getTypeUtils();
+		List<? extends VariableElement> siParameters = siMethod.getParameters();
+		List<? extends VariableElement> objParameters = objMethod.getParameters();
+		if(siParameters.size() != objParameters.size())
+			return false;
+		boolean match = true;
+		for(int i = 0; i < siParameters.size() && match; i++)
+			match =
+				types.isSameType(
+					types.erasure(siParameters.get(i).asType()),
+					types.erasure(objParameters.get(i).asType())
+				);
+		return match;
+	}
+
+	private boolean isReturnTypeCompatible(ExecutableElement siMethod, ExecutableElement objMethod)
+	{
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror siReturnType = types.erasure(siMethod.getReturnType());
+		TypeMirror objReturnType = types.erasure(objMethod.getReturnType());
+		if(siReturnType.getKind() == TypeKind.VOID)
+			return true;
+		if(objReturnType.getKind() == TypeKind.VOID)
+			return false;
+		return types.isAssignable(objReturnType, siReturnType);
+	}
+
+	private void generate(
+		TypeElement substituteInterface,
+		TypeElement substitutedClass,
+		List<ExecutableElement> siMethods,
+		List<Element> targets
+	)
+	{
+		Elements elements = processingEnv.getElementUtils();
+		String packageName =
+			elements.getPackageOf(substituteInterface).getQualifiedName().toString();
+		String binaryName = elements.getBinaryName(substituteInterface).toString();
+		if(packageName.length() > 0)
+			binaryName = binaryName.substring(packageName.length() + 1);
+		String simpleName = binaryName.replace('$', '_') + GENERATED_CLASS_SUFFIX;
+		String qualifiedName =
+			packageName.length() == 0 ? simpleName : packageName + "." + simpleName;
+		String interfaceName = substituteInterface.getQualifiedName().toString();
+		String interfaceLiteral = interfaceName + ".class";
+		String substitutedName = elements.getBinaryName(substitutedClass).toString();
+
+		try {
+			PrintWriter out =
+				new PrintWriter(
+					processingEnv.getFiler().createSourceFile(
+						qualifiedName,
+						substituteInterface
+					).openWriter()
+				);
+			try {
+				if(packageName.length() > 0) {
+					out.println("package " + packageName + ";");
+					out.println();
+				}
+				out.println();
+				out.println("/**");
+				out.println(" * Substitute class for {@link " + interfaceName + "}.");
+				out.println(" * Generated by " + getClass().getName() + ". Do not edit.");
+				out.println(" */");
+				out.println("final class " + simpleName);
+				out.println("\timplements");
+				out.println("\t\t" + interfaceName);
+				out.println("{");
+				for(int i = 0; i < siMethods.size(); i++) {
+					ExecutableElement siMethod = siMethods.get(i);
+					out.println(
+						"\tprivate final static java.lang.invoke.MethodHandle _h" + i + " ="
+					);
+					out.println(
+						"\t\t" + SUPPORT + ".link(" + interfaceLiteral + ", \"" + substitutedName
+							+ "\", \"" + siMethod.getSimpleName() + "\""
+							+ parameterClassLiterals(siMethod) + ");"
+					);
+				}
+				out.println("\tprivate final Object _target;");
+				out.println();
+				out.println();
+				out.println("\t" + simpleName + "(Object target)");
+				out.println("\t{");
+				out.println("\t\t_target = target;");
+				out.println("\t}");
+				for(int i = 0; i < siMethods.size(); i++)
+					generateMethod(
+						out,
+						interfaceLiteral,
+						siMethods.get(i),
+						targets.get(i).getModifiers().contains(Modifier.STATIC)
+							|| targets.get(i).getKind() == ElementKind.CONSTRUCTOR,
+						i
+					);
+				out.println("}");
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch(IOException ex) {
+			error(substituteInterface, "Cannot generate " + qualifiedName + ": " + ex.getMessage());
+		}
+	}
+
+	private void generateMethod(
+		PrintWriter out,
+		String interfaceLiteral,
+		ExecutableElement siMethod,
+		boolean isStatic,
+		int index
+	)
+	{
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror returnType = types.erasure(siMethod.getReturnType());
+		List<? extends VariableElement> parameters = siMethod.getParameters();
+		StringBuilder declaration = new StringBuilder();
+		StringBuilder arguments = new StringBuilder("_target");
+		for(int i = 0; i < parameters.size(); i++) {
+			if(i > 0)
+				declaration.append(", ");
+			declaration.append(types.erasure(parameters.get(i).asType())).append(" p").append(i);
+			arguments.append(", p").append(i);
+		}
+
+		out.println();
+		out.println(
+			"\tpublic " + returnType + " " + siMethod.getSimpleName() + "(" + declaration + ")"
+		);
+		out.println("\t{");
+		if(!isStatic) {
+			out.println("\t\tif(_target == null)");
+			out.println(
+				"\t\t\tthrow " + SUPPORT + ".staticMethodConflict(" + interfaceLiteral + ", \""
+					+ siMethod.getSimpleName() + "\"" + parameterClassLiterals(siMethod) + ");"
+			);
+		}
+		out.println("\t\ttry {");
+		if(returnType.getKind() == TypeKind.VOID)
+			out.println("\t\t\t_h" + index + ".invokeExact(" + arguments + ");");
+		else
+			out.println(
+				"\t\t\treturn (" + returnType + ")_h" + index + ".invokeExact(" + arguments + ");"
+			);
+		out.println("\t\t}");
+		out.println("\t\tcatch(Throwable t) {");
+		out.println("\t\t\tthrow " + SUPPORT + ".rethrow(t);");
+		out.println("\t\t}");
+		out.println("\t}");
+	}
+
+	private String parameterClassLiterals(ExecutableElement method)
+	{
+		Types types = processingEnv.getTypeUtils();
+		StringBuilder literals = new StringBuilder();
+		for(VariableElement parameter : method.getParameters())
+			literals.append(", ").append(types.erasure(parameter.asType())).append(".class");
+		return literals.toString();
+	}
+
+	private static String signature(TypeElement substituteInterface, ExecutableElement method)
+	{
+		StringBuilder signature =
+			new StringBuilder(substituteInterface.getQualifiedName())
+				.append('.')
+				.append(method.getSimpleName())
+				.append('(');
+		List<? extends VariableElement> parameters = method.getParameters();
+		for(int i = 0; i < parameters.size(); i++) {
+			if(i > 0)
+				signature.append(',');
+			signature.append(parameters.get(i).asType());
+		}
+		return signature.append(')').toString();
+	}
+
+	private void error(Element element, String message)
+	{
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
@@ -0,0 +1,91 @@
+package com.hapiware.util.publisher.processor;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.Publisher;
+import com.hapiware.util.publisher.StaticMethodConflictError;
+import com.hapiware.util.publisher.annotation.Substitutes;
+
+
+public class GeneratedSubstituteTest
+{
+	@Substitutes(PrivateMethods.class)
+	interface SPrivateMethods
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+	}
+	
+	@Substitutes(PrivateMethods.class)
+	interface SPrivateMethodsFactory
+	{
+		public PrivateMethods create();
+	}
+	
+	@Test
+	public void substituteIsGenerated()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		assertEquals(
+			GeneratedSubstituteTest.class.getPackage().getName()
+				+ ".GeneratedSubstituteTest_SPrivateMethods_Substitute",
+			spm.getClass().getName()
+		);
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		PrivateMethods pm = new PrivateMethods();
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, pm);
+		assertEquals(3, spm.add(1, 2));
+		assertEquals("Hello World", spm.add("Hello", " World"));
+		assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+		assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+		spm.doSomething();
+		
+		byte[] left = { 1, 2, 3, 4 };
+		byte[] right = { 10, 20, 30, 40, 50 };
+		byte[] result = spm.concat(left, right);
+		assertEquals(9, result.length);
+		int total = 0;
+		for(byte b : result)
+			total += b;
+		assertEquals(160, total);
+	}
+	
+	@Test
+	public void testStaticsOnly()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.doSomething();
+		assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[] { 5, 6, 7, 8, 9 }).length);
+	}
+	
+	@Test(expectedExceptions = {StaticMethodConflictError.class})
+	public void testStaticsOnlyFailure()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.add(1, 3);
+	}
+	
+	@Test
+	public void testFactoryMethod()
+	{
+		SPrivateMethodsFactory factory =
+			Publisher.publish(SPrivateMethodsFactory.class, PrivateMethods.class);
+		assertEquals(
+			GeneratedSubstituteTest.class.getPackage().getName()
+				+ ".GeneratedSubstituteTest_SPrivateMethodsFactory_Substitute",
+			factory.getClass().getName()
+		);
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, factory.create());
+		assertEquals(3, spm.add(1, 2));
+	}
+}
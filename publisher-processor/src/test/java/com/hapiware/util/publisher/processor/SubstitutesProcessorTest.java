@@ -0,0 +1,223 @@
+package com.hapiware.util.publisher.processor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.Test;
+
+
+public class SubstitutesProcessorTest
+{
+	private final static String FIXTURE =
+		"class Fixture { private long _count; private int add(int a, int b) { return a + b; } }\n";
+	
+	@Test
+	public void validInterfaceCompiles()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { int add(int a, int b); }\n"
+			);
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+	
+	@Test
+	public void missingMethodIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { int addd(int a, int b); }\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("does not exist"));
+	}
+	
+	@Test
+	public void wrongParameterTypesAreReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { int add(long a, int b); }\n"
+			);
+		assertEquals(1, errors.size());
+	}
+	
+	@Test
+	public void incompatibleReturnTypeIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { String add(int a, int b); }\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("Return type"));
+	}
+	
+	@Test
+	public void inheritedMethodsCompile()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"class SubFixture extends Fixture { }\n"
+					+ "@com.hapiware.util.publisher.annotation.Substitutes(SubFixture.class)\n"
+					+ "interface SFixture { int add(int a, int b); }\n"
+			);
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+	
+	@Test
+	public void methodsOfObjectAreReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { int hashCode(); }\n"
+			);
+		assertEquals(1, errors.size());
+	}
+	
+	@Test
+	public void fieldAccessorsCompile()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture {\n"
+					+ "@com.hapiware.util.publisher.annotation.FieldAccessor long getCount();\n"
+					+ "@com.hapiware.util.publisher.annotation.FieldAccessor void setCount(int c);\n"
+					+ "}\n"
+			);
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+	
+	@Test
+	public void missingFieldIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture {\n"
+					+ "@com.hapiware.util.publisher.annotation.FieldAccessor long getSize();\n"
+					+ "}\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("does not exist"));
+	}
+	
+	@Test
+	public void incompatibleFieldTypeIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture {\n"
+					+ "@com.hapiware.util.publisher.annotation.FieldAccessor int getCount();\n"
+					+ "}\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("not compatible"));
+	}
+	
+	@Test
+	public void factoryMethodsCompile()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { Fixture create(); }\n"
+			);
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+	
+	@Test
+	public void missingConstructorIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "interface SFixture { Fixture create(long count); }\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("does not exist"));
+	}
+	
+	@Test
+	public void privateInterfaceIsReported()
+	{
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			compile(
+				"class Outer {\n"
+					+ "@com.hapiware.util.publisher.annotation.Substitutes(Fixture.class)\n"
+					+ "private interface SFixture { int add(int a, int b); }\n"
+					+ "}\n"
+			);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("private"));
+	}
+	
+	private static List<Diagnostic<? extends JavaFileObject>> compile(String source)
+	{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics =
+			new DiagnosticCollector<JavaFileObject>();
+		File output = new File(System.getProperty("java.io.tmpdir"), "publisher-processor-test");
+		output.mkdirs();
+		CompilationTask task =
+			compiler.getTask(
+				null,
+				null,
+				diagnostics,
+				Arrays.asList(
+					"-classpath", System.getProperty("java.class.path"),
+					"-d", output.getPath(),
+					"-s", output.getPath()
+				),
+				null,
+				Arrays.asList(source("Fixture", FIXTURE), source("SFixture", source))
+			);
+		task.setProcessors(Arrays.asList(new SubstitutesProcessor()));
+		boolean ok = task.call();
+		List<Diagnostic<? extends JavaFileObject>> errors =
+			new ArrayList<Diagnostic<? extends JavaFileObject>>();
+		for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+			if(diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				errors.add(diagnostic);
+		assertEquals(errors.isEmpty(), ok);
+		return errors;
+	}
+	
+	private static JavaFileObject source(String name, String code)
+	{
+		final String content = code;
+		return
+			new SimpleJavaFileObject(
+				URI.create("string:///" + name + JavaFileObject.Kind.SOURCE.extension),
+				JavaFileObject.Kind.SOURCE
+			)
+			{
+				@Override
+				public CharSequence getCharContent(boolean ignoreEncodingErrors)
+				{
+					return content;
+				}
+			};
+	}
+}
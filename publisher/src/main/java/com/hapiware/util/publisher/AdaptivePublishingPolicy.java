@@ -0,0 +1,359 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * An adaptive publishing policy for {@link Publisher}. This is the default policy when
+ * the substitute interface has no annotations selecting a policy.
+ * <p>
+ * Every substitute method starts in the {@link Tier#REFLECTION} tier where the private method
+ * is found from the shared {@link SignatureIndex} and called with
+ * {@link Method#invoke(Object, Object...)}. Nothing has to be linked, so methods called only
+ * a few times (which is the usual case in unit tests) are cheap. The calls are counted per
+ * substitute method and substituted class, and when a method has been called
+ * {@link #getThreshold()} times it is promoted to the {@link Tier#METHOD_HANDLE} tier. The
+ * method is then linked to a {@link MethodHandle} (see {@link MethodHandleLinker}) which is
+ * called with {@link MethodHandle#invokeExact} like {@link MethodHandlePublishingPolicy} does.
+ * <p>
+ * The counters are found from a {@link PolymorphicInlineCache}, so also the overloaded methods
+ * are found with reference comparisons only. The call counter is not synchronized. Lost updates
+ * of concurrent calls only delay the promotion. The promotion itself is done only once per
+ * method and the handle is published safely to all the threads.
+ * <p>
+ * Exceptions thrown by the private method are wrapped to {@link InvocationTargetException}s in
+ * both tiers like with {@link NonCachingPublishingPolicy}, which was the default policy before
+ * this one. So the substitute throws {@link java.lang.reflect.UndeclaredThrowableException} and
+ * promoting a method does not change its behaviour. Field accessors and factory methods are
+ * not wrapped in either tier.
+ * <p>
+ * The current tiers can be checked with {@link #tiers(Class)} and {@link #staticTiers(Class)}
+ * (or {@link Publisher#tiers(Class, Class)}).
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class AdaptivePublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements
+		PublishingPolicy<PSI>
+{
+	/**
+	 * A system property for the default promotion threshold.
+	 */
+	public final static String THRESHOLD_PROPERTY = "com.hapiware.util.publisher.adaptive.threshold";
+
+	/**
+	 * The default promotion threshold if {@value #THRESHOLD_PROPERTY} is not set.
+	 */
+	public final static int DEFAULT_THRESHOLD = 1000;
+
+	private final static int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+
+	private final Class<?> _substituteInterface;
+	private final int _threshold;
+	private final SubstituteInterfaceCache<Dispatcher> _dispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass, false);
+			}
+		};
+	private final SubstituteInterfaceCache<Dispatcher> _staticDispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass, true);
+			}
+		};
+
+
+	/**
+	 * Creates an adaptive publishing policy with the threshold given in
+	 * {@value #THRESHOLD_PROPERTY} (or {@value #DEFAULT_THRESHOLD}).
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 */
+	public AdaptivePublishingPolicy(Class<?> substituteInterface)
+	{
+		this(substituteInterface, THRESHOLD);
+	}
+
+	/**
+	 * Creates an adaptive publishing policy.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param threshold
+	 * 		Number of calls after which a method is promoted to {@link Tier#METHOD_HANDLE}.
+	 * 		{@code 0} promotes the methods on the first call.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code threshold} is negative.
+	 */
+	public AdaptivePublishingPolicy(Class<?> substituteInterface, int threshold)
+	{
+		if(threshold < 0)
+			throw
+				new IllegalArgumentException("'threshold' cannot be negative. Was: " + threshold);
+		_substituteInterface = substituteInterface;
+		_threshold = threshold;
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(final Object substitutedObject)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedObject.getClass()),
+				substitutedObject
+			);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_staticDispatchers.get(_substituteInterface, substitutedClass),
+				null
+			);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass);
+	}
+
+	/**
+	 * @return
+	 * 		Number of calls after which a method is promoted to {@link Tier#METHOD_HANDLE}.
+	 */
+	public int getThreshold()
+	{
+		return _threshold;
+	}
+
+	/**
+	 * Returns the current tiers of the substitute methods for the substitutes published with
+	 * objects of {@code substitutedClass}.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @return
+	 * 		An unmodifiable map from every substitute interface method to its tier in
+	 * 		the declaration order. Methods which have not been called are in
+	 * 		{@link Tier#REFLECTION}.
+	 */
+	public Map<Method, Tier> tiers(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass).tiers();
+	}
+
+	/**
+	 * Returns the current tiers of the substitute methods for the substitutes published with
+	 * {@code substitutedClass} itself (i.e. for static methods).
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @return
+	 * 		An unmodifiable map from every substitute interface method to its tier.
+	 *
+	 * @see #tiers(Class)
+	 */
+	public Map<Method, Tier> staticTiers(Class<?> substitutedClass)
+	{
+		return _staticDispatchers.get(_substituteInterface, substitutedClass).tiers();
+	}
+
+
+	/**
+	 * A dispatch tier of a substitute method.
+	 */
+	public enum Tier
+	{
+		/**
+		 * The private method is called with {@link Method#invoke(Object, Object...)}.
+		 */
+		REFLECTION,
+
+		/**
+		 * The private method is called through a linked {@link MethodHandle}.
+		 */
+		METHOD_HANDLE
+	}
+
+
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		private final boolean _staticsOnly;
+		private final PolymorphicInlineCache<TieredMethod> _methods =
+			new PolymorphicInlineCache<TieredMethod>();
+
+
+		public Dispatcher(Class<?> substituteInterface, Class<?> substitutedClass, boolean staticsOnly)
+		{
+			super(substituteInterface, substitutedClass);
+			_staticsOnly = staticsOnly;
+		}
+
+
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			TieredMethod method = _methods.get(siMethod);
+			PublisherMetrics.cacheAccess(siMethod, method != null);
+			if(method == null) {
+				// An equal method of another proxy class shares the counter and the tier.
+				TieredMethod newMethod = _methods.find(siMethod);
+				if(newMethod == null)
+					newMethod = new TieredMethod(siMethod);
+				method = _methods.putIfAbsent(siMethod, newMethod);
+				if(method == null)
+					method = newMethod;
+			}
+
+			MethodHandle handle = method._handle;
+			if(handle == null && ++method._calls > _threshold)
+				handle = method.promote();
+			if(handle != null) {
+				try {
+					return (Object)handle.invokeExact(substitutedObject, args);
+				}
+				catch(SubstituteMethodNameConflictError ex) {
+					// Thrown by the linker instead of a missing private method.
+					throw ex;
+				}
+				catch(StaticMethodConflictError ex) {
+					throw ex;
+				}
+				catch(Throwable ex) {
+					// Same as Method.invoke() in the reflection tier.
+					if(method._memberAccessor)
+						throw ex;
+					throw new InvocationTargetException(ex);
+				}
+			}
+			return invoke(method, substitutedObject, args);
+		}
+
+		private Object invoke(TieredMethod method, Object substitutedObject, Object[] args)
+			throws
+				Throwable
+		{
+			Method siMethod = method._siMethod;
+			if(method._memberAccessor)
+				return
+					MemberAccessors.access(
+						_substituteInterface,
+						_substitutedClass,
+						siMethod,
+						substitutedObject,
+						args
+					);
+
+			try {
+				Method objMethod = method._objMethod;
+				if(objMethod == null) {
+					objMethod = SignatureIndex.of(_substitutedClass).method(siMethod);
+					method._objMethod = objMethod;
+				}
+				return objMethod.invoke(substitutedObject, args);
+			}
+			catch(NoSuchMethodException ex) {
+				throw
+					new SubstituteMethodNameConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+			catch(NullPointerException ex) {
+				throw
+					new StaticMethodConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+		}
+
+		private Map<Method, Tier> tiers()
+		{
+			Method[] siMethods =
+				BytecodeGeneratingPublishingPolicy.substituteMethods(_substituteInterface);
+			Map<Method, Tier> tiers = new LinkedHashMap<Method, Tier>();
+			for(Method siMethod : siMethods) {
+				TieredMethod method = _methods.find(siMethod);
+				tiers.put(
+					siMethod,
+					method != null && method._handle != null ? Tier.METHOD_HANDLE : Tier.REFLECTION
+				);
+			}
+			return Collections.unmodifiableMap(tiers);
+		}
+
+
+		/**
+		 * The call counter, the resolved private method and the promoted handle of a substitute
+		 * method.
+		 */
+		private final class TieredMethod
+		{
+			private final Method _siMethod;
+			private final boolean _memberAccessor;
+			private int _calls;
+			private volatile Method _objMethod;
+			private volatile MethodHandle _handle;
+
+
+			public TieredMethod(Method siMethod)
+			{
+				_siMethod = siMethod;
+				_memberAccessor = MemberAccessors.isMemberAccessor(_substitutedClass, siMethod);
+			}
+
+
+			/**
+			 * Links the method to a handle of type {@code (Object, Object[])Object}. Only
+			 * the first caller links and the others wait for the handle.
+			 */
+			private synchronized MethodHandle promote()
+			{
+				if(_handle == null) {
+					int parameterCount = _siMethod.getParameterTypes().length;
+					_handle =
+						MethodHandleLinker.link(
+							_substituteInterface,
+							_substitutedClass,
+							_siMethod,
+							_staticsOnly
+						).asType(
+							MethodType.genericMethodType(parameterCount + 1)
+						).asSpreader(Object[].class, parameterCount);
+				}
+				return _handle;
+			}
+		}
+	}
+}
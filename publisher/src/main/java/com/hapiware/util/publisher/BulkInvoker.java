@@ -0,0 +1,246 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * {@code BulkInvoker} calls a private method once for every row of an argument table for
+ * {@link Publisher#invokeAll}.
+ * <p>
+ * The substitute method is resolved to a {@link MethodHandle} (see
+ * {@link MethodHandleLinker#resolve}) which spreads the argument rows to the parameters of
+ * the private method. The handles are cached per substituted class and substitute method, so
+ * calling small tables repeatedly does not create new handles. The handles are stored with the
+ * substitute interface (see {@link SubstituteInterfaceCache}) because they refer to it. Rows are
+ * called in a tight loop and there is no proxy dispatch, no copying of the argument arrays and no
+ * access checks per row. With the primitive overloads the arguments and the results are not boxed
+ * either.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class BulkInvoker
+{
+	private final static HandleCache _objectRowHandles = new HandleCache();
+	private final static HandleCache _staticObjectRowHandles = new HandleCache();
+	private final static HandleCache _primitiveRowHandles = new HandleCache();
+	private final static HandleCache _staticPrimitiveRowHandles = new HandleCache();
+	
+	
+	private BulkInvoker()
+	{
+		// Prevents a construction of BulkInvoker.
+	}
+
+	/**
+	 * Calls a private method with every argument row.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param substitutedClass
+	 * 		A class declaring the private method.
+	 *
+	 * @param substitutedObject
+	 * 		A receiver of the private method or {@code null} if the method must be static.
+	 *
+	 * @param argumentRows
+	 * 		Arguments for each call.
+	 *
+	 * @param results
+	 * 		An array where the return values are written. Can be {@code null} if the results are
+	 * 		not needed.
+	 */
+	static void invokeAll(
+		Method siMethod,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		Object[][] argumentRows,
+		Object[] results
+	)
+	{
+		checkLength(argumentRows.length, results == null ? -1 : results.length);
+		MethodHandle handle =
+			resolve(siMethod, substitutedClass, substitutedObject, Object[].class, Object.class);
+		try {
+			for(int i = 0; i < argumentRows.length; i++) {
+				Object result = (Object)handle.invokeExact(substitutedObject, argumentRows[i]);
+				if(results != null)
+					results[i] = result;
+			}
+		}
+		catch(Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	/**
+	 * Calls a private method having only {@code int} parameters and an {@code int} return value
+	 * with every argument row.
+	 *
+	 * @see #invokeAll(Method, Class, Object, Object[][], Object[])
+	 */
+	static void invokeAll(
+		Method siMethod,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		int[][] argumentRows,
+		int[] results
+	)
+	{
+		checkLength(argumentRows.length, results.length);
+		MethodHandle handle =
+			resolve(siMethod, substitutedClass, substitutedObject, int[].class, int.class);
+		try {
+			for(int i = 0; i < argumentRows.length; i++)
+				results[i] = (int)handle.invokeExact(substitutedObject, argumentRows[i]);
+		}
+		catch(Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	/**
+	 * Calls a private method having only {@code long} parameters and a {@code long} return value
+	 * with every argument row.
+	 *
+	 * @see #invokeAll(Method, Class, Object, Object[][], Object[])
+	 */
+	static void invokeAll(
+		Method siMethod,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		long[][] argumentRows,
+		long[] results
+	)
+	{
+		checkLength(argumentRows.length, results.length);
+		MethodHandle handle =
+			resolve(siMethod, substitutedClass, substitutedObject, long[].class, long.class);
+		try {
+			for(int i = 0; i < argumentRows.length; i++)
+				results[i] = (long)handle.invokeExact(substitutedObject, argumentRows[i]);
+		}
+		catch(Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	/**
+	 * Calls a private method having only {@code double} parameters and a {@code double} return
+	 * value with every argument row.
+	 *
+	 * @see #invokeAll(Method, Class, Object, Object[][], Object[])
+	 */
+	static void invokeAll(
+		Method siMethod,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		double[][] argumentRows,
+		double[] results
+	)
+	{
+		checkLength(argumentRows.length, results.length);
+		MethodHandle handle =
+			resolve(siMethod, substitutedClass, substitutedObject, double[].class, double.class);
+		try {
+			for(int i = 0; i < argumentRows.length; i++)
+				results[i] = (double)handle.invokeExact(substitutedObject, argumentRows[i]);
+		}
+		catch(Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	/**
+	 * Returns a cached handle of type {@code (Object, A)R} where {@code A} is the array type of
+	 * an argument row and {@code R} is the result type. The first argument is the substituted
+	 * object.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If a primitive row type is used and the parameters or the return type of
+	 * 		{@code siMethod} are not the same primitive type.
+	 */
+	private static MethodHandle resolve(
+		Method siMethod,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		Class<?> rowType,
+		Class<?> resultType
+	)
+	{
+		boolean staticsOnly = substitutedObject == null;
+		HandleCache cache;
+		if(rowType.getComponentType().isPrimitive()) {
+			checkPrimitives(siMethod, rowType, resultType);
+			cache = staticsOnly ? _staticPrimitiveRowHandles : _primitiveRowHandles;
+		}
+		else
+			cache = staticsOnly ? _staticObjectRowHandles : _objectRowHandles;
+		ConcurrentMap<Method, MethodHandle> handles =
+			cache.get(siMethod.getDeclaringClass(), substitutedClass);
+		MethodHandle handle = handles.get(siMethod);
+		if(handle == null) {
+			MethodHandle newHandle =
+				MethodHandleLinker.resolve(
+					siMethod.getDeclaringClass(),
+					substitutedClass,
+					siMethod,
+					staticsOnly
+				)
+				.asSpreader(rowType, siMethod.getParameterTypes().length)
+				.asType(MethodType.methodType(resultType, Object.class, rowType));
+			handle = handles.putIfAbsent(siMethod, newHandle);
+			if(handle == null)
+				handle = newHandle;
+		}
+		return handle;
+	}
+
+	private static void checkPrimitives(Method siMethod, Class<?> rowType, Class<?> resultType)
+	{
+		boolean match = siMethod.getReturnType() == resultType;
+		for(Class<?> parameterType : siMethod.getParameterTypes())
+			match &= parameterType == rowType.getComponentType();
+		if(!match)
+			throw
+				new IllegalArgumentException(
+					siMethod + " cannot be called with " + rowType.getSimpleName()
+						+ " arguments returning " + resultType + "."
+				);
+	}
+
+	private static void checkLength(int rows, int results)
+	{
+		if(results >= 0 && results < rows)
+			throw
+				new IllegalArgumentException(
+					"Result array has " + results + " elements but there are " + rows + " rows."
+				);
+	}
+
+	private static RuntimeException rethrow(Throwable throwable)
+	{
+		if(throwable instanceof RuntimeException)
+			return (RuntimeException)throwable;
+		if(throwable instanceof Error)
+			throw (Error)throwable;
+		return new UndeclaredThrowableException(throwable);
+	}
+
+
+	private final static class HandleCache
+		extends
+			SubstituteInterfaceCache<ConcurrentMap<Method, MethodHandle>>
+	{
+		protected ConcurrentMap<Method, MethodHandle> computeValue(Class<?> substitutedClass)
+		{
+			return new ConcurrentHashMap<Method, MethodHandle>();
+		}
+	}
+}
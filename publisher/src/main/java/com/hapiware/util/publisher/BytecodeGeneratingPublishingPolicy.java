@@ -0,0 +1,203 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * A bytecode generating publishing policy for {@link Publisher}.
+ * <p>
+ * For every substituted class a hidden class implementing the substitute interface is generated
+ * (see {@link SubstituteClassGenerator}). The generated class calls the private methods through
+ * {@code static final} {@link MethodHandle}s so there is no {@link java.lang.reflect.Proxy},
+ * no {@link java.lang.reflect.InvocationHandler}, no argument arrays and no boxing between
+ * the substitute object and the private method. A substitute object is an instance of
+ * the generated class holding only the substituted object.
+ * <p>
+ * Hidden classes need Java 17 or later (see {@link LookupEngine}) and {@code Publisher} must
+ * have full privilege access to the package of the substitute interface. If a hidden class
+ * cannot be defined {@link MethodHandlePublishingPolicy} is used instead.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class BytecodeGeneratingPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements
+		PublishingPolicy<PSI>
+{
+	private final static MethodType CONSTRUCTOR_TYPE =
+		MethodType.methodType(Object.class, Object.class);
+	private final static MethodHandle NOT_GENERATED =
+		MethodHandles.identity(Object.class);
+
+	private final Class<?> _substituteInterface;
+	private final SubstituteInterfaceCache<MethodHandle> _constructorCache =
+		new SubstituteInterfaceCache<MethodHandle>()
+		{
+			protected MethodHandle computeValue(Class<?> substitutedClass)
+			{
+				return generate(substitutedClass, false);
+			}
+		};
+	private final SubstituteInterfaceCache<MethodHandle> _staticConstructorCache =
+		new SubstituteInterfaceCache<MethodHandle>()
+		{
+			protected MethodHandle computeValue(Class<?> substitutedClass)
+			{
+				return generate(substitutedClass, true);
+			}
+		};
+	private final PublishingPolicy<PSI> _fallbackPolicy;
+
+
+	public BytecodeGeneratingPublishingPolicy(Class<?> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+		_fallbackPolicy = new MethodHandlePublishingPolicy<PSI>(substituteInterface);
+	}
+
+
+	public PSI publish(final Object substitutedObject)
+	{
+		MethodHandle constructor =
+			_constructorCache.get(_substituteInterface, substitutedObject.getClass());
+		if(constructor == NOT_GENERATED)
+			return _fallbackPolicy.publish(substitutedObject);
+		return
+			newSubstitute(
+				_substituteInterface,
+				substitutedObject.getClass(),
+				constructor,
+				substitutedObject
+			);
+	}
+
+
+	public PSI publish(Class<?> substitutedClass)
+	{
+		MethodHandle constructor = _staticConstructorCache.get(_substituteInterface, substitutedClass);
+		if(constructor == NOT_GENERATED)
+			return _fallbackPolicy.publish(substitutedClass);
+		return newSubstitute(_substituteInterface, substitutedClass, constructor, null);
+	}
+
+
+	/**
+	 * Generates and defines a substitute class for the substituted class.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param staticsOnly
+	 * 		{@code true} if the substitute is published with a class instead of an object.
+	 *
+	 * @return
+	 * 		A constructor handle of type {@code (Object)Object} for the generated class or
+	 * 		{@link #NOT_GENERATED} if the class could not be defined.
+	 */
+	private MethodHandle generate(Class<?> substitutedClass, boolean staticsOnly)
+	{
+		Method[] siMethods = substituteMethods(_substituteInterface);
+		List<MethodHandle> handles = new ArrayList<MethodHandle>(siMethods.length);
+		for(Method siMethod : siMethods)
+			handles.add(
+				MethodHandleLinker.link(
+					_substituteInterface,
+					substitutedClass,
+					siMethod,
+					staticsOnly
+				)
+			);
+		MethodHandle constructor = defineSubstituteClass(_substituteInterface, siMethods, handles);
+		return constructor != null ? constructor : NOT_GENERATED;
+	}
+
+	/**
+	 * Generates and defines a substitute class calling the given linked method handles.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @param siMethods
+	 * 		Methods to be implemented by the substitute class (see
+	 * 		{@link #substituteMethods(Class)}).
+	 *
+	 * @param handles
+	 * 		Linked method handles (see {@link MethodHandleLinker}) in the same order as
+	 * 		{@code siMethods}.
+	 *
+	 * @return
+	 * 		A constructor handle of type {@code (Object)Object} for the generated class or
+	 * 		{@code null} if the class could not be defined.
+	 */
+	static MethodHandle defineSubstituteClass(
+		Class<?> substituteInterface,
+		Method[] siMethods,
+		List<MethodHandle> handles
+	)
+	{
+		byte[] bytes = SubstituteClassGenerator.generate(substituteInterface, siMethods);
+		try {
+			Lookup lookup = Lookups.defineHiddenClass(substituteInterface, bytes, handles);
+			return
+				lookup.findConstructor(
+					lookup.lookupClass(),
+					MethodType.methodType(void.class, Object.class)
+				).asType(CONSTRUCTOR_TYPE);
+		}
+		catch(UnsupportedOperationException ex) {
+			return null;
+		}
+		catch(IllegalAccessException ex) {
+			return null;
+		}
+		catch(SecurityException ex) {
+			return null;
+		}
+		catch(NoSuchMethodException ex) {
+			// Cannot happen because the constructor is always generated.
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Returns all the abstract methods of the substitute interface (including the inherited
+	 * ones). Methods having the same name and the same descriptor are returned only once.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @return
+	 * 		Methods to be implemented by a substitute class.
+	 */
+	static Method[] substituteMethods(Class<?> substituteInterface)
+	{
+		List<Method> siMethods = new ArrayList<Method>();
+		Set<String> descriptors = new HashSet<String>();
+		for(Method siMethod : substituteInterface.getMethods()) {
+			if(Modifier.isStatic(siMethod.getModifiers()) || siMethod.isDefault())
+				continue;
+			String descriptor =
+				siMethod.getName()
+					+ MethodType.methodType(
+						siMethod.getReturnType(),
+						siMethod.getParameterTypes()
+					).toMethodDescriptorString();
+			if(descriptors.add(descriptor))
+				siMethods.add(siMethod);
+		}
+		return siMethods.toArray(new Method[siMethods.size()]);
+	}
+}
@@ -0,0 +1,167 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+import com.hapiware.util.publisher.annotation.Id;
+
+
+/**
+ * A caching publishing policy for {@link Publisher}.
+ * <p>
+ * The substitute interface methods are resolved once per substituted class to a method table.
+ * The table is indexed with {@link Id} values or, if the methods are not annotated, in
+ * declaration order (see {@link MethodSlotTable}). No annotations are read when a substitute
+ * method is called. The table is owned by a {@link SubstituteDispatcher} which is shared, and
+ * every substitute object holds only the dispatcher and the substituted object.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ */
+final public class CachingPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements 
+		PublishingPolicy<PSI>
+{
+	private final Class<?> _substituteInterface;
+	private final MethodSlotTable _slotTable;
+	private final SubstituteInterfaceCache<Dispatcher> _dispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return
+					new Dispatcher(
+						_substituteInterface,
+						substitutedClass,
+						createMethodTable(substitutedClass)
+					);
+			}
+		};
+	
+	public CachingPublishingPolicy(Class<?> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+		_slotTable = new MethodSlotTable(substituteInterface.getDeclaredMethods());
+	}
+
+	
+	@SuppressWarnings("unchecked")
+	public PSI publish(final Object substitutedObject)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedObject.getClass()),
+				substitutedObject
+			);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedClass),
+				null
+			);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass);
+	}
+	
+	/**
+	 * Resolves all the substitute interface methods from the substituted class. The returned
+	 * table is indexed with the slots of {@link MethodSlotTable} and it is shared by all
+	 * the substitutes of the substituted class. Methods which do not exist in the substituted
+	 * class are left {@code null}.
+	 * 
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 * 
+	 * @return
+	 * 		A method table.
+	 */
+	private Method[] createMethodTable(Class<?> substitutedClass)
+	{
+		Method[] siMethods = _substituteInterface.getDeclaredMethods();
+		Method[] methodTable = new Method[_slotTable.size()];
+		SignatureIndex index = SignatureIndex.of(substitutedClass);
+		for(Method siMethod : siMethods) {
+			try {
+				methodTable[_slotTable.slot(siMethod)] = index.method(siMethod);
+			}
+			catch(NoSuchMethodException ex) {
+				// SubstituteMethodNameConflictError is thrown when the method is called.
+			}
+		}
+		return methodTable;
+	}
+	
+	
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		private final Method[] _methodTable;
+		
+		
+		public Dispatcher(
+			Class<?> substituteInterface,
+			Class<?> substitutedClass,
+			Method[] methodTable
+		)
+		{
+			super(substituteInterface, substitutedClass);
+			_methodTable = methodTable;
+		}
+		
+		
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			int slot = _slotTable.slot(siMethod);
+			Method objMethod = slot >= 0 ? _methodTable[slot] : null;
+			PublisherMetrics.cacheAccess(siMethod, objMethod != null);
+			try {
+				if(objMethod == null) {
+					if(MemberAccessors.isMemberAccessor(_substitutedClass, siMethod))
+						return
+							MemberAccessors.access(
+								_substituteInterface,
+								_substitutedClass,
+								siMethod,
+								substitutedObject,
+								args
+							);
+
+					// Throws NoSuchMethodException for a missing method. Methods
+					// inherited from other interfaces are not in the table.
+					objMethod = SignatureIndex.of(_substitutedClass).method(siMethod);
+				}
+				return objMethod.invoke(substitutedObject, args);
+			}
+			catch(NoSuchMethodException ex) {
+				throw 
+					new SubstituteMethodNameConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+			catch(IllegalArgumentException ex) {
+				throw
+					new AmbiguousMethodNameError(
+						createSignature(_substituteInterface.getName(), siMethod),
+						createSignature(_substituteInterface.getName(), objMethod),
+						ex
+					);
+			}
+		}
+	}
+}
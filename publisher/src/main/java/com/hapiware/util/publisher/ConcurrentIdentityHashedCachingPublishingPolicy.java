@@ -0,0 +1,46 @@
+package com.hapiware.util.publisher;
+
+
+/**
+ * A concurrent identity hashed caching publishing policy for {@link Publisher}. The cache used
+ * for {@code ConcurrentIdentityHashedCachingPublishingPolicy} is the same lock-free
+ * {@link IdentityMethodTable} as with {@link IdentityHashedCachingPublishingPolicy} and thus
+ * this policy only delegates to it. This policy is kept for the
+ * {@link com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching} annotation.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class ConcurrentIdentityHashedCachingPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements 
+		PublishingPolicy<PSI>
+{
+	private final IdentityHashedCachingPublishingPolicy<PSI> _policy;
+	
+	
+	public ConcurrentIdentityHashedCachingPublishingPolicy(Class<?> substituteInterface)
+	{
+		_policy = new IdentityHashedCachingPublishingPolicy<PSI>(substituteInterface);
+	}
+
+	
+	public PSI publish(final Object substitutedObject)
+	{
+		return _policy.publish(substitutedObject);
+	}
+
+
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return _policy.publish(substitutedClass);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _policy.dispatcher(substitutedClass);
+	}
+}
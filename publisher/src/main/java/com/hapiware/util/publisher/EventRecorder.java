@@ -0,0 +1,125 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code EventRecorder} is the Java 8 baseline implementation of {@link PublisherEvents} which
+ * does not record anything.
+ * <p>
+ * {@code EventRecorder11} is a versioned class of the multi-release jar (see
+ * {@link MultiRelease}) which records the events with Java Flight Recorder.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+class EventRecorder
+{
+	/**
+	 * Releases having a versioned recorder in the newest first order.
+	 */
+	private final static int[] VERSIONED_RELEASES = { 11 };
+
+
+	/**
+	 * Returns the newest recorder which can be loaded (see {@link MultiRelease}).
+	 *
+	 * @return
+	 * 		An event recorder.
+	 */
+	static EventRecorder select()
+	{
+		EventRecorder recorder =
+			MultiRelease.newestInstance(EventRecorder.class, VERSIONED_RELEASES);
+		return recorder != null ? recorder : new EventRecorder();
+	}
+
+	/**
+	 * Returns the Java release this recorder is compiled for.
+	 *
+	 * @return
+	 * 		A Java release (e.g. {@code 8}).
+	 */
+	int release()
+	{
+		return 8;
+	}
+
+	/**
+	 * @see PublisherEvents#beginPolicyResolution()
+	 */
+	Object beginPolicyResolution()
+	{
+		return null;
+	}
+
+	/**
+	 * @see PublisherEvents#endPolicyResolution(Object, Class, PublishingPolicy)
+	 */
+	void endPolicyResolution(
+		Object event,
+		Class<?> substituteInterface,
+		PublishingPolicy<?> publishingPolicy
+	)
+	{
+		// Does nothing.
+	}
+
+	/**
+	 * @see PublisherEvents#beginSubstituteCreation()
+	 */
+	Object beginSubstituteCreation()
+	{
+		return null;
+	}
+
+	/**
+	 * @see PublisherEvents#endSubstituteCreation(Object, Class, Class)
+	 */
+	void endSubstituteCreation(Object event, Class<?> substituteInterface, Class<?> substitutedClass)
+	{
+		// Does nothing.
+	}
+
+	/**
+	 * @see PublisherEvents#beginLinkage()
+	 */
+	Object beginLinkage()
+	{
+		return null;
+	}
+
+	/**
+	 * @see PublisherEvents#endLinkage(Object, Class, Class, Method)
+	 */
+	void endLinkage(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		// Does nothing.
+	}
+
+	/**
+	 * @see PublisherEvents#beginInvocation()
+	 */
+	Object beginInvocation()
+	{
+		return null;
+	}
+
+	/**
+	 * @see PublisherEvents#endInvocation(Object, Class, Class, Method)
+	 */
+	void endInvocation(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		// Does nothing.
+	}
+}
@@ -0,0 +1,386 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * {@code FunctionExtractor} implements private methods as functional interfaces (e.g.
+ * {@link java.util.function.IntBinaryOperator}) for {@link Publisher#extract}.
+ * <p>
+ * The implementing class is spun with {@link LambdaMetafactory} into the nest of
+ * the substituted class, so calling the functional interface is a direct call to the private
+ * method like a method reference would be. There is no argument array and primitives are not
+ * boxed if the functional interface uses primitives. If a lambda cannot be spun (e.g. on Java 8
+ * where {@link MethodHandles#privateLookupIn} does not exist) the functional interface is
+ * implemented with {@link MethodHandleProxies} instead.
+ * <p>
+ * A factory for the functional objects is created only once per functional interface and private
+ * method. The factories are cached with the class declaring the private method, so a functional
+ * interface of the bootstrap class loader (e.g. {@link java.util.function.IntBinaryOperator}) does
+ * not keep the private methods and the spun classes reachable.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class FunctionExtractor
+{
+	private final static MethodType FACTORY_TYPE =
+		MethodType.methodType(Object.class, Object.class);
+	private final static MethodHandle AS_INTERFACE_INSTANCE;
+	private final static MethodHandle BIND_TO;
+	static {
+		try {
+			AS_INTERFACE_INSTANCE =
+				MethodHandles.lookup().findStatic(
+					MethodHandleProxies.class,
+					"asInterfaceInstance",
+					MethodType.methodType(Object.class, Class.class, MethodHandle.class)
+				);
+			BIND_TO =
+				MethodHandles.lookup().findVirtual(
+					MethodHandle.class,
+					"bindTo",
+					MethodType.methodType(MethodHandle.class, Object.class)
+				);
+		}
+		catch(NoSuchMethodException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+		catch(IllegalAccessException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
+	private final static SubstituteCache<ConcurrentMap<FactoryKey, MethodHandle>> _factories =
+		new SubstituteCache<ConcurrentMap<FactoryKey, MethodHandle>>()
+		{
+			protected ConcurrentMap<FactoryKey, MethodHandle> computeValue(Class<?> declaringClass)
+			{
+				return new ConcurrentHashMap<FactoryKey, MethodHandle>();
+			}
+		};
+
+
+	private FunctionExtractor()
+	{
+		// Prevents a construction of FunctionExtractor.
+	}
+
+	/**
+	 * Implements a private method as a functional interface.
+	 *
+	 * @param <F>
+	 * 		A functional interface.
+	 *
+	 * @param functionalInterface
+	 * 		A functional interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A class declaring the private method.
+	 *
+	 * @param substitutedObject
+	 * 		An object bound as the receiver of the private method or {@code null} if
+	 * 		the receiver is the first parameter of the functional interface method (or
+	 * 		the private method is static).
+	 *
+	 * @param methodName
+	 * 		A name of the private method.
+	 *
+	 * @param parameterTypes
+	 * 		Parameter types of the private method.
+	 *
+	 * @return
+	 * 		A functional object calling the private method.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the method does not exist or it cannot be accessed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code functionalInterface} is not a functional interface or its method does not
+	 * 		match the private method.
+	 */
+	static <F> F extract(
+		Class<F> functionalInterface,
+		Class<?> substitutedClass,
+		Object substitutedObject,
+		String methodName,
+		Class<?>[] parameterTypes
+	)
+	{
+		Method objMethod;
+		try {
+			objMethod = SignatureIndex.of(substitutedClass).method(methodName, parameterTypes);
+		}
+		catch(NoSuchMethodException ex) {
+			throw
+				new SubstituteMethodNameConflictError(
+					signature(functionalInterface, substitutedClass, methodName, parameterTypes),
+					ex
+				);
+		}
+
+		boolean bound = substitutedObject != null;
+		ConcurrentMap<FactoryKey, MethodHandle> factories =
+			_factories.get(objMethod.getDeclaringClass());
+		FactoryKey key = new FactoryKey(objMethod, functionalInterface, bound);
+		MethodHandle factory = factories.get(key);
+		if(factory == null) {
+			MethodHandle newFactory = factory(functionalInterface, objMethod, bound);
+			factory = factories.putIfAbsent(key, newFactory);
+			if(factory == null)
+				factory = newFactory;
+		}
+		try {
+			return functionalInterface.cast((Object)factory.invokeExact(substitutedObject));
+		}
+		catch(RuntimeException ex) {
+			throw ex;
+		}
+		catch(Error ex) {
+			throw ex;
+		}
+		catch(Throwable ex) {
+			throw new UndeclaredThrowableException(ex);
+		}
+	}
+
+	/**
+	 * Creates a factory handle of type {@code (Object)Object} which takes the receiver (or
+	 * {@code null}) and returns a functional object.
+	 */
+	private static MethodHandle factory(
+		Class<?> functionalInterface,
+		Method objMethod,
+		boolean bound
+	)
+	{
+		Class<?> declaringClass = objMethod.getDeclaringClass();
+		Method samMethod = functionalMethod(functionalInterface);
+		MethodHandle implementation;
+		try {
+			implementation = Lookups.unreflect(objMethod);
+		}
+		catch(IllegalAccessException ex) {
+			throw
+				new SubstituteMethodNameConflictError(
+					signature(
+						functionalInterface,
+						declaringClass,
+						objMethod.getName(),
+						objMethod.getParameterTypes()
+					),
+					ex
+				);
+		}
+		boolean captureReceiver = bound && !Modifier.isStatic(objMethod.getModifiers());
+		MethodType samType =
+			MethodType.methodType(samMethod.getReturnType(), samMethod.getParameterTypes());
+		MethodType implementationType = implementation.type();
+		if(captureReceiver)
+			implementationType = implementationType.dropParameterTypes(0, 1);
+		try {
+			implementation.asType(
+				captureReceiver ? samType.insertParameterTypes(0, declaringClass) : samType
+			);
+		}
+		catch(WrongMethodTypeException ex) {
+			throw
+				new IllegalArgumentException(
+					samMethod + " does not match " + objMethod + ".",
+					ex
+				);
+		}
+
+		MethodHandle factory;
+		try {
+			CallSite callSite =
+				LambdaMetafactory.metafactory(
+					Lookups.privateLookupIn(declaringClass),
+					samMethod.getName(),
+					captureReceiver
+						? MethodType.methodType(functionalInterface, declaringClass)
+						: MethodType.methodType(functionalInterface),
+					samType,
+					implementation,
+					instantiatedType(samType, implementationType)
+				);
+			factory = callSite.getTarget();
+		}
+		catch(IllegalAccessException ex) {
+			factory = proxyFactory(functionalInterface, implementation, captureReceiver);
+		}
+		catch(LambdaConversionException ex) {
+			factory = proxyFactory(functionalInterface, implementation, captureReceiver);
+		}
+		if(!captureReceiver)
+			factory = MethodHandles.dropArguments(factory, 0, Object.class);
+		return factory.asType(FACTORY_TYPE);
+	}
+
+	private static MethodHandle proxyFactory(
+		Class<?> functionalInterface,
+		MethodHandle implementation,
+		boolean captureReceiver
+	)
+	{
+		if(captureReceiver)
+			return
+				MethodHandles.filterReturnValue(
+					BIND_TO.bindTo(implementation),
+					MethodHandles.insertArguments(AS_INTERFACE_INSTANCE, 0, functionalInterface)
+				);
+		else
+			return
+				MethodHandles.constant(
+					functionalInterface,
+					MethodHandleProxies.asInterfaceInstance(functionalInterface, implementation)
+				);
+	}
+
+	/**
+	 * Returns the type of the functional interface method specialized for the private method.
+	 * Reference types of {@code samType} are replaced with the (boxed) types of
+	 * {@code implementationType} so that {@link LambdaMetafactory} adds the casts and
+	 * the unboxing.
+	 */
+	private static MethodType instantiatedType(MethodType samType, MethodType implementationType)
+	{
+		MethodType instantiatedType = samType;
+		for(int i = 0; i < samType.parameterCount(); i++)
+			instantiatedType =
+				instantiatedType.changeParameterType(
+					i,
+					instantiatedType(samType.parameterType(i), implementationType.parameterType(i))
+				);
+		if(samType.returnType() == void.class || implementationType.returnType() == void.class)
+			return instantiatedType;
+		return
+			instantiatedType.changeReturnType(
+				instantiatedType(samType.returnType(), implementationType.returnType())
+			);
+	}
+
+	private static Class<?> instantiatedType(Class<?> samType, Class<?> implementationType)
+	{
+		if(samType.isPrimitive())
+			return samType;
+		Class<?> type =
+			implementationType.isPrimitive()
+				? MethodType.methodType(implementationType).wrap().returnType()
+				: implementationType;
+		return samType.isAssignableFrom(type) ? type : samType;
+	}
+
+	/**
+	 * Returns the single abstract method of a functional interface.
+	 */
+	private static Method functionalMethod(Class<?> functionalInterface)
+	{
+		Method samMethod = null;
+		if(functionalInterface.isInterface()) {
+			for(Method method : functionalInterface.getMethods()) {
+				if(
+					method.isDefault()
+						|| Modifier.isStatic(method.getModifiers())
+						|| isObjectMethod(method)
+				)
+					continue;
+				if(samMethod != null) {
+					samMethod = null;
+					break;
+				}
+				samMethod = method;
+			}
+		}
+		if(samMethod == null)
+			throw
+				new IllegalArgumentException(
+					functionalInterface.getName() + " is not a functional interface."
+				);
+		return samMethod;
+	}
+
+	private static boolean isObjectMethod(Method method)
+	{
+		try {
+			Object.class.getMethod(method.getName(), method.getParameterTypes());
+			return true;
+		}
+		catch(NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	private static String signature(
+		Class<?> functionalInterface,
+		Class<?> substitutedClass,
+		String methodName,
+		Class<?>[] parameterTypes
+	)
+	{
+		StringBuilder signature =
+			new StringBuilder(functionalInterface.getName())
+				.append(" -> ")
+				.append(substitutedClass.getName())
+				.append('.')
+				.append(methodName)
+				.append('(');
+		for(int i = 0; i < parameterTypes.length; i++) {
+			if(i > 0)
+				signature.append(',');
+			signature.append(parameterTypes[i].getName());
+		}
+		return signature.append(')').toString();
+	}
+
+
+	/**
+	 * A private method, a functional interface and whether the receiver is bound.
+	 */
+	private final static class FactoryKey
+	{
+		private final Method _objMethod;
+		private final Class<?> _functionalInterface;
+		private final boolean _bound;
+
+
+		FactoryKey(Method objMethod, Class<?> functionalInterface, boolean bound)
+		{
+			_objMethod = objMethod;
+			_functionalInterface = functionalInterface;
+			_bound = bound;
+		}
+
+
+		public boolean equals(Object obj)
+		{
+			if(this == obj)
+				return true;
+			if(!(obj instanceof FactoryKey))
+				return false;
+			FactoryKey key = (FactoryKey)obj;
+			return
+				_objMethod.equals(key._objMethod)
+					&& _functionalInterface == key._functionalInterface
+					&& _bound == key._bound;
+		}
+
+		public int hashCode()
+		{
+			int hash = _objMethod.hashCode() * 31 + _functionalInterface.hashCode();
+			return _bound ? ~hash : hash;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+import com.hapiware.util.publisher.annotation.Substitutes;
+
+
+/**
+ * A publishing policy for {@link Publisher} using substitute classes generated at compile time
+ * by {@code publisher-processor} annotation processor.
+ * <p>
+ * The generated class for a substitute interface {@code com.example.Outer.SInner} is
+ * {@code com.example.Outer_SInner_Substitute}. It has a constructor taking the substituted object
+ * (or {@code null} for static methods) and all the signature checks were already done at
+ * compile time. So, publishing a substitute is only a constructor call.
+ * <p>
+ * Generated classes are used only for the class given in {@link Substitutes} (or its
+ * subclasses). Other classes are published with {@link MethodHandlePublishingPolicy}.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ *
+ * @see Substitutes
+ */
+final public class GeneratedPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements
+		PublishingPolicy<PSI>
+{
+	private final static String GENERATED_CLASS_SUFFIX = "_Substitute";
+	private final static SubstituteCache<GeneratedClass> _generatedClasses =
+		new SubstituteCache<GeneratedClass>()
+		{
+			protected GeneratedClass computeValue(Class<?> substituteInterface)
+			{
+				return findGeneratedClass(substituteInterface);
+			}
+		};
+
+	private final Class<?> _substituteInterface;
+	private final GeneratedClass _generatedClass;
+	private volatile PublishingPolicy<PSI> _fallbackPolicy;
+
+
+	private GeneratedPublishingPolicy(Class<?> substituteInterface, GeneratedClass generatedClass)
+	{
+		_substituteInterface = substituteInterface;
+		_generatedClass = generatedClass;
+	}
+
+	/**
+	 * Finds a generated publishing policy for the substitute interface.
+	 *
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class marked with {@link Substitutes}.
+	 *
+	 * @return
+	 * 		A publishing policy or {@code null} if there is no generated class for
+	 * 		{@code substituteInterface}.
+	 */
+	public static <PSI> GeneratedPublishingPolicy<PSI> find(Class<PSI> substituteInterface)
+	{
+		GeneratedClass generatedClass = _generatedClasses.get(substituteInterface);
+		if(generatedClass == null)
+			return null;
+		return new GeneratedPublishingPolicy<PSI>(substituteInterface, generatedClass);
+	}
+
+	/**
+	 * Returns the name of the class generated for the substitute interface.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @return
+	 * 		A binary name of the generated class.
+	 */
+	public static String generatedClassName(Class<?> substituteInterface)
+	{
+		String name = substituteInterface.getName();
+		int packageEnd = name.lastIndexOf('.') + 1;
+		return
+			name.substring(0, packageEnd)
+				+ name.substring(packageEnd).replace('$', '_')
+				+ GENERATED_CLASS_SUFFIX;
+	}
+
+
+	public PSI publish(Object substitutedObject)
+	{
+		if(!_generatedClass._substitutedClass.isInstance(substitutedObject))
+			return fallbackPolicy().publish(substitutedObject);
+		return
+			newSubstitute(
+				_substituteInterface,
+				_generatedClass._substitutedClass,
+				_generatedClass._constructor,
+				substitutedObject
+			);
+	}
+
+
+	public PSI publish(Class<?> substitutedClass)
+	{
+		if(_generatedClass._substitutedClass != substitutedClass)
+			return fallbackPolicy().publish(substitutedClass);
+		return
+			newSubstitute(
+				_substituteInterface,
+				substitutedClass,
+				_generatedClass._constructor,
+				null
+			);
+	}
+
+
+	private PublishingPolicy<PSI> fallbackPolicy()
+	{
+		PublishingPolicy<PSI> fallbackPolicy = _fallbackPolicy;
+		if(fallbackPolicy == null) {
+			fallbackPolicy = new MethodHandlePublishingPolicy<PSI>(_substituteInterface);
+			_fallbackPolicy = fallbackPolicy;
+		}
+		return fallbackPolicy;
+	}
+
+	private static GeneratedClass findGeneratedClass(Class<?> substituteInterface)
+	{
+		Substitutes substitutes = substituteInterface.getAnnotation(Substitutes.class);
+		if(substitutes == null)
+			return null;
+		try {
+			Class<?> generatedClass =
+				Class.forName(
+					generatedClassName(substituteInterface),
+					true,
+					substituteInterface.getClassLoader()
+				);
+			if(!substituteInterface.isAssignableFrom(generatedClass))
+				return null;
+			MethodHandle constructor =
+				Lookups.unreflectConstructor(
+					generatedClass.getDeclaredConstructor(Object.class)
+				).asType(MethodType.methodType(Object.class, Object.class));
+			return new GeneratedClass(substitutes.value(), constructor);
+		}
+		catch(ClassNotFoundException ex) {
+			return null;
+		}
+		catch(NoSuchMethodException ex) {
+			return null;
+		}
+		catch(IllegalAccessException ex) {
+			return null;
+		}
+	}
+
+
+	private final static class GeneratedClass
+	{
+		private final Class<?> _substitutedClass;
+		private final MethodHandle _constructor;
+
+		public GeneratedClass(Class<?> substitutedClass, MethodHandle constructor)
+		{
+			_substitutedClass = substitutedClass;
+			_constructor = constructor;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * An identity hashed caching publishing policy for {@link Publisher}. 
+ * <p>
+ * The resolved methods are cached once per substituted class and the cache is shared by all
+ * the substitutes of the substituted class. The cache is owned by a {@link SubstituteDispatcher}
+ * and every substitute object holds only the dispatcher and the substituted object.
+ * <p>
+ * The cache is an {@link IdentityMethodTable} keyed by the identities of the substitute
+ * interface {@link Method}s. The keys are compared by reference, so the cache never mixes up
+ * two methods even if their {@link System#identityHashCode(Object)}s are the same. A member
+ * accessor (see {@link MemberAccessors}) is cached by mapping the method to itself.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class IdentityHashedCachingPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements 
+		PublishingPolicy<PSI>
+{
+	private final Class<?> _substituteInterface;
+	private final SubstituteInterfaceCache<Dispatcher> _dispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass);
+			}
+		};
+	
+	
+	public IdentityHashedCachingPublishingPolicy(Class<?> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+	}
+
+	
+	@SuppressWarnings("unchecked")
+	public PSI publish(final Object substitutedObject)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedObject.getClass()),
+				substitutedObject
+			);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedClass),
+				null
+			);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass);
+	}
+	
+	
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		private final IdentityMethodTable _methodTable = new IdentityMethodTable();
+		
+		
+		public Dispatcher(Class<?> substituteInterface, Class<?> substitutedClass)
+		{
+			super(substituteInterface, substitutedClass);
+		}
+		
+		
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			Method objMethod = _methodTable.get(siMethod);
+			PublisherMetrics.cacheAccess(siMethod, objMethod != null);
+			try {
+				if(objMethod == null) {
+					Method newObjMethod =
+						MemberAccessors.isMemberAccessor(_substitutedClass, siMethod)
+							? siMethod
+							: SignatureIndex.of(_substitutedClass).method(siMethod);
+					objMethod = _methodTable.putIfAbsent(siMethod, newObjMethod);
+					if(objMethod == null)
+						objMethod = newObjMethod;
+				}
+			}
+			catch(NoSuchMethodException ex) {
+				throw 
+					new SubstituteMethodNameConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+			
+			// A member accessor is mapped to itself.
+			if(objMethod == siMethod)
+				return
+					MemberAccessors.access(
+						_substituteInterface,
+						_substitutedClass,
+						siMethod,
+						substitutedObject,
+						args
+					);
+			
+			try {
+				return objMethod.invoke(substitutedObject, args);
+			}
+			catch(IllegalArgumentException ex) {
+				throw
+					new AmbiguousMethodNameError(
+						createSignature(_substituteInterface.getName(), siMethod),
+						createSignature(_substituteInterface.getName(), objMethod),
+						ex
+					);
+			}
+		}
+	}
+}
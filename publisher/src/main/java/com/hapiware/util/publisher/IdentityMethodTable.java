@@ -0,0 +1,108 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code IdentityMethodTable} maps substitute interface methods to methods of the substituted
+ * class. The keys are compared by reference (i.e. {@code ==}) so two different {@link Method}s
+ * never share an entry even if their {@link System#identityHashCode(Object)}s are the same.
+ * <p>
+ * The table uses open addressing with linear probing and nothing is boxed or allocated when
+ * a method is looked up. The arrays are never modified after they are published. Adding a method
+ * copies the arrays and publishes the copy through a {@code volatile} field, so the readers need
+ * no locking. Substitute interfaces have only a few methods and every method is added only once,
+ * so copying is cheap.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class IdentityMethodTable
+{
+	private final static int INITIAL_CAPACITY = 8;
+	
+	private volatile Entries _entries =
+		new Entries(new Method[INITIAL_CAPACITY], new Method[INITIAL_CAPACITY], 0);
+
+
+	/**
+	 * Returns the method mapped to {@code key}.
+	 *
+	 * @param key
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		A method of the substituted class or {@code null} if {@code key} is not mapped.
+	 */
+	Method get(Method key)
+	{
+		Entries entries = _entries;
+		Method[] keys = entries.keys;
+		int mask = keys.length - 1;
+		int index = System.identityHashCode(key) & mask;
+		Method k;
+		while((k = keys[index]) != null) {
+			if(k == key)
+				return entries.values[index];
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Maps {@code key} to {@code value} unless {@code key} is already mapped.
+	 *
+	 * @param key
+	 * 		A substitute interface method.
+	 *
+	 * @param value
+	 * 		A method of the substituted class.
+	 *
+	 * @return
+	 * 		The method already mapped to {@code key} or {@code null} if {@code value} was added.
+	 */
+	synchronized Method putIfAbsent(Method key, Method value)
+	{
+		Method existing = get(key);
+		if(existing != null)
+			return existing;
+
+		Entries entries = _entries;
+		int capacity = entries.keys.length;
+		if(2 * (entries.size + 1) > capacity)
+			capacity <<= 1;
+		Method[] keys = new Method[capacity];
+		Method[] values = new Method[capacity];
+		for(int i = 0; i < entries.keys.length; i++)
+			if(entries.keys[i] != null)
+				insert(keys, values, entries.keys[i], entries.values[i]);
+		insert(keys, values, key, value);
+		_entries = new Entries(keys, values, entries.size + 1);
+		return null;
+	}
+	
+	private static void insert(Method[] keys, Method[] values, Method key, Method value)
+	{
+		int mask = keys.length - 1;
+		int index = System.identityHashCode(key) & mask;
+		while(keys[index] != null)
+			index = (index + 1) & mask;
+		keys[index] = key;
+		values[index] = value;
+	}
+	
+	
+	private final static class Entries
+	{
+		final Method[] keys;
+		final Method[] values;
+		final int size;
+		
+		Entries(Method[] keys, Method[] values, int size)
+		{
+			this.keys = keys;
+			this.values = values;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.hapiware.util.publisher;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * {@code LatencyHistogram} is a lock-free log-linear histogram for {@link PublisherMetrics}
+ * (in the spirit of HdrHistogram). Values are counted to buckets which are exact below 16 and
+ * have 16 linear sub-buckets per power of two above it, so percentiles are within about 6% of
+ * the recorded values. Recording is a single atomic increment.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class LatencyHistogram
+{
+	private final static int SUB_BUCKET_BITS = 4;
+	private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private final static int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong _max = new AtomicLong();
+
+
+	/**
+	 * Records a value. Negative values are recorded as zero.
+	 *
+	 * @param value
+	 * 		A value to be recorded.
+	 */
+	void record(long value)
+	{
+		if(value < 0)
+			value = 0;
+		_counts.incrementAndGet(index(value));
+		long max = _max.get();
+		while(value > max && !_max.compareAndSet(max, value))
+			max = _max.get();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return
+	 * 		The maximum value or zero if nothing has been recorded.
+	 */
+	long max()
+	{
+		return _max.get();
+	}
+
+	/**
+	 * Returns a copy of the bucket counts to be used with {@link #valueAt(long[], double)}.
+	 *
+	 * @return
+	 * 		Bucket counts.
+	 */
+	long[] counts()
+	{
+		long[] counts = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++)
+			counts[i] = _counts.get(i);
+		return counts;
+	}
+
+	/**
+	 * Returns the value at the given percentile.
+	 *
+	 * @param counts
+	 * 		Bucket counts (see {@link #counts()}).
+	 *
+	 * @param percentile
+	 * 		A percentile between 0 and 100.
+	 *
+	 * @return
+	 * 		The highest value equivalent to the value at {@code percentile} or zero if there
+	 * 		are no values.
+	 */
+	static long valueAt(long[] counts, double percentile)
+	{
+		long total = 0;
+		for(long count : counts)
+			total += count;
+		if(total == 0)
+			return 0;
+		long target = Math.max(1, (long)Math.ceil(percentile / 100.0 * total));
+		long cumulative = 0;
+		for(int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			if(cumulative >= target)
+				return highestEquivalentValue(i);
+		}
+		return highestEquivalentValue(counts.length - 1);
+	}
+
+	static int index(long value)
+	{
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) - SUB_BUCKETS);
+	}
+
+	static long highestEquivalentValue(int index)
+	{
+		if(index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,125 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code LookupEngine} is the Java 8 baseline implementation of {@link Lookups}. Private members
+ * are made accessible first and then unreflected with a normal lookup. Private lookups and
+ * hidden classes are not supported.
+ * <p>
+ * Faster engines are versioned classes of the multi-release jar (see {@link MultiRelease}):
+ * 	<ul>
+ * 		<li>
+ * 			{@code LookupEngine9} uses {@code MethodHandles.privateLookupIn()} and
+ * 			{@code VarHandle}s, so nothing is made accessible.
+ * 		</li>
+ * 		<li>
+ * 			{@code LookupEngine17} defines hidden classes with class data for
+ * 			{@link BytecodeGeneratingPublishingPolicy}.
+ * 		</li>
+ * 	</ul>
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+class LookupEngine
+{
+	/**
+	 * Releases having a versioned engine in the newest first order.
+	 */
+	private final static int[] VERSIONED_RELEASES = { 17, 9 };
+
+
+	/**
+	 * Returns the newest engine which can be loaded (see {@link MultiRelease}).
+	 *
+	 * @return
+	 * 		A lookup engine.
+	 */
+	static LookupEngine select()
+	{
+		LookupEngine engine = MultiRelease.newestInstance(LookupEngine.class, VERSIONED_RELEASES);
+		return engine != null ? engine : new LookupEngine();
+	}
+
+	/**
+	 * Returns the Java release this engine is compiled for.
+	 *
+	 * @return
+	 * 		A Java release (e.g. {@code 8}).
+	 */
+	int release()
+	{
+		return 8;
+	}
+
+	/**
+	 * @see Lookups#unreflect(Method)
+	 */
+	MethodHandle unreflect(Method method)
+		throws
+			IllegalAccessException
+	{
+		method.setAccessible(true);
+		return MethodHandles.lookup().unreflect(method);
+	}
+
+	/**
+	 * @see Lookups#unreflectConstructor(Constructor)
+	 */
+	MethodHandle unreflectConstructor(Constructor<?> constructor)
+		throws
+			IllegalAccessException
+	{
+		constructor.setAccessible(true);
+		return MethodHandles.lookup().unreflectConstructor(constructor);
+	}
+
+	/**
+	 * @see Lookups#unreflectGetter(Field)
+	 */
+	MethodHandle unreflectGetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		field.setAccessible(true);
+		return MethodHandles.lookup().unreflectGetter(field);
+	}
+
+	/**
+	 * @see Lookups#unreflectSetter(Field)
+	 */
+	MethodHandle unreflectSetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		field.setAccessible(true);
+		return MethodHandles.lookup().unreflectSetter(field);
+	}
+
+	/**
+	 * @see Lookups#privateLookupIn(Class)
+	 */
+	Lookup privateLookupIn(Class<?> targetClass)
+		throws
+			IllegalAccessException
+	{
+		throw new IllegalAccessException("Private lookups are not supported.");
+	}
+
+	/**
+	 * @see Lookups#defineHiddenClass(Class, byte[], Object)
+	 */
+	Lookup defineHiddenClass(Class<?> host, byte[] bytes, Object classData)
+		throws
+			IllegalAccessException
+	{
+		throw new UnsupportedOperationException("Hidden classes are not supported.");
+	}
+}
@@ -0,0 +1,178 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code Lookups} creates {@link MethodHandle}s for private members of substituted classes and
+ * defines hidden classes for {@link BytecodeGeneratingPublishingPolicy}.
+ * <p>
+ * The work is done by the {@link LookupEngine} of the running JVM. On Java 8 the members are
+ * made accessible first and then unreflected with a normal lookup. On Java 9 or later
+ * {@code MethodHandles.privateLookupIn()} and {@code VarHandle}s are used and on Java 17 or later
+ * hidden classes are supported too. The engine is selected once, so there are no version checks
+ * when handles are created.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class Lookups
+{
+	private final static LookupEngine ENGINE = LookupEngine.select();
+	
+	
+	private Lookups()
+	{
+		// Prevents a construction of Lookups.
+	}
+	
+	/**
+	 * Creates a direct {@link MethodHandle} for the given (possibly private) method.
+	 * 
+	 * @param method
+	 * 		A method of the substituted class.
+	 * 
+	 * @return
+	 * 		A method handle for {@code method}.
+	 * 
+	 * @throws IllegalAccessException
+	 * 		If the method cannot be accessed.
+	 */
+	static MethodHandle unreflect(Method method)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.unreflect(method);
+	}
+	
+	/**
+	 * Creates a direct {@link MethodHandle} for the given (possibly private) constructor.
+	 * 
+	 * @param constructor
+	 * 		A constructor.
+	 * 
+	 * @return
+	 * 		A method handle for {@code constructor}.
+	 * 
+	 * @throws IllegalAccessException
+	 * 		If the constructor cannot be accessed.
+	 */
+	static MethodHandle unreflectConstructor(Constructor<?> constructor)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.unreflectConstructor(constructor);
+	}
+	
+	/**
+	 * Creates a getter {@link MethodHandle} for the given (possibly private) field. The type of
+	 * the handle is {@code (D)T} for instance fields and {@code ()T} for static fields where
+	 * {@code D} is the declaring class and {@code T} is the type of the field.
+	 * 
+	 * @param field
+	 * 		A field of the substituted class.
+	 * 
+	 * @return
+	 * 		A getter handle for {@code field}.
+	 * 
+	 * @throws IllegalAccessException
+	 * 		If the field cannot be accessed.
+	 */
+	static MethodHandle unreflectGetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.unreflectGetter(field);
+	}
+	
+	/**
+	 * Creates a setter {@link MethodHandle} for the given (possibly private) field. The type of
+	 * the handle is {@code (D, T)void} for instance fields and {@code (T)void} for static fields
+	 * where {@code D} is the declaring class and {@code T} is the type of the field. 
+	 * {@code VarHandle}s cannot write {@code final} fields so they are always made accessible
+	 * and unreflected.
+	 * 
+	 * @param field
+	 * 		A field of the substituted class.
+	 * 
+	 * @return
+	 * 		A setter handle for {@code field}.
+	 * 
+	 * @throws IllegalAccessException
+	 * 		If the field cannot be accessed or it is {@code static final}.
+	 */
+	static MethodHandle unreflectSetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.unreflectSetter(field);
+	}
+	
+	/**
+	 * Returns a lookup object having private access to the given class. Classes spun with
+	 * the lookup object (e.g. with {@link java.lang.invoke.LambdaMetafactory}) can call
+	 * the private members of {@code targetClass}.
+	 *
+	 * @param targetClass
+	 * 		A class of the private members.
+	 *
+	 * @return
+	 * 		A lookup object of {@code targetClass}.
+	 *
+	 * @throws IllegalAccessException
+	 * 		If the running JVM does not have
+	 * 		{@code MethodHandles.privateLookupIn()} or the access is denied.
+	 */
+	static Lookup privateLookupIn(Class<?> targetClass)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.privateLookupIn(targetClass);
+	}
+
+	/**
+	 * Defines a hidden class to the same package and class loader as {@code host} and
+	 * initializes it. {@code classData} is available to the hidden class through
+	 * {@code MethodHandles.classData()}.
+	 * 
+	 * @param host
+	 * 		A class which package and class loader are used for the hidden class.
+	 * 
+	 * @param bytes
+	 * 		Bytes of a class file.
+	 * 
+	 * @param classData
+	 * 		Class data for the hidden class.
+	 * 
+	 * @return
+	 * 		A lookup object of the hidden class.
+	 * 
+	 * @throws UnsupportedOperationException
+	 * 		If the running JVM does not support hidden classes with class data.
+	 * 
+	 * @throws IllegalAccessException
+	 * 		If {@code Publisher} does not have full privilege access to {@code host}.
+	 */
+	static Lookup defineHiddenClass(Class<?> host, byte[] bytes, Object classData)
+		throws
+			IllegalAccessException
+	{
+		return ENGINE.defineHiddenClass(host, bytes, classData);
+	}
+	
+	/**
+	 * Returns the Java release of the selected {@link LookupEngine}.
+	 * 
+	 * @return
+	 * 		A Java release (e.g. {@code 17}).
+	 */
+	static int engineRelease()
+	{
+		return ENGINE.release();
+	}
+}
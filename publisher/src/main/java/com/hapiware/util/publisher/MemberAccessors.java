@@ -0,0 +1,155 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hapiware.util.publisher.annotation.FieldAccessor;
+
+
+/**
+ * {@code MemberAccessors} calls substitute methods which are not linked to private methods for
+ * the reflection based publishing policies (i.e. the ones calling
+ * {@link Method#invoke(Object, Object...)}). These are {@link FieldAccessor} methods and factory
+ * methods linked to constructors (see {@link MethodHandleLinker}). The accessors are linked with
+ * {@link MethodHandleLinker} once per substituted class and cached with the substitute interface.
+ * Thus a substituted class loaded by a parent class loader does not keep the substitute
+ * interfaces (e.g. of a test) reachable.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class MemberAccessors
+{
+	private final static AccessorCache _accessors = new AccessorCache();
+	private final static AccessorCache _staticAccessors = new AccessorCache();
+	
+	
+	private MemberAccessors()
+	{
+		// Prevents a construction of MemberAccessors.
+	}
+	
+	/**
+	 * Checks if the substitute method is a field accessor or a factory method. Factory methods
+	 * return the substituted class and they are linked to a constructor if the substituted class
+	 * is not abstract and does not have a method with the same name and parameters. A method
+	 * returning the substituted class which does exist is called like any other method.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		{@code true} if {@code siMethod} must be called with {@link #access}.
+	 */
+	static boolean isMemberAccessor(Class<?> substitutedClass, Method siMethod)
+	{
+		if(siMethod.isAnnotationPresent(FieldAccessor.class))
+			return true;
+		return
+			siMethod.getReturnType() == substitutedClass
+				&& !Modifier.isAbstract(substitutedClass.getModifiers())
+				&& !SignatureIndex.of(substitutedClass).contains(siMethod);
+	}
+	
+	/**
+	 * Reads or writes the field of a {@link FieldAccessor} method or calls a factory method.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method (see {@link #isMemberAccessor}).
+	 *
+	 * @param substitutedObject
+	 * 		A substituted object or {@code null} for static members.
+	 *
+	 * @param args
+	 * 		Arguments given to {@link java.lang.reflect.InvocationHandler}.
+	 *
+	 * @return
+	 * 		A field value for getters, {@code null} for setters and a new object for factory
+	 * 		methods.
+	 *
+	 * @throws Throwable
+	 * 		Errors of {@link MethodHandleLinker#link}.
+	 */
+	static Object access(
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod,
+		Object substitutedObject,
+		Object[] args
+	)
+		throws
+			Throwable
+	{
+		boolean staticsOnly = substitutedObject == null;
+		ConcurrentMap<Method, MethodHandle> accessors =
+			(staticsOnly ? _staticAccessors : _accessors).accessors(
+				substituteInterface,
+				substitutedClass
+			);
+		MethodHandle accessor = accessors.get(siMethod);
+		if(accessor == null) {
+			int parameterCount = siMethod.getParameterTypes().length;
+			MethodHandle newAccessor =
+				MethodHandleLinker.link(
+					substituteInterface,
+					substitutedClass,
+					siMethod,
+					staticsOnly
+				).asType(
+					MethodType.genericMethodType(parameterCount + 1)
+				).asSpreader(Object[].class, parameterCount);
+			accessor = accessors.putIfAbsent(siMethod, newAccessor);
+			if(accessor == null)
+				accessor = newAccessor;
+		}
+		return (Object)accessor.invokeExact(substitutedObject, args);
+	}
+	
+	
+	/**
+	 * The accessors of every substituted class published with a substitute interface.
+	 */
+	private final static class AccessorCache
+		extends
+			SubstituteCache<ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodHandle>>>
+	{
+		protected ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodHandle>> computeValue(
+			Class<?> substituteInterface
+		)
+		{
+			return new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, MethodHandle>>();
+		}
+
+		ConcurrentMap<Method, MethodHandle> accessors(
+			Class<?> substituteInterface,
+			Class<?> substitutedClass
+		)
+		{
+			ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodHandle>> substitutedClasses =
+				get(substituteInterface);
+			ConcurrentMap<Method, MethodHandle> accessors =
+				substitutedClasses.get(substitutedClass);
+			if(accessors == null) {
+				ConcurrentMap<Method, MethodHandle> newAccessors =
+					new ConcurrentHashMap<Method, MethodHandle>();
+				accessors = substitutedClasses.putIfAbsent(substitutedClass, newAccessors);
+				if(accessors == null)
+					accessors = newAccessors;
+			}
+			return accessors;
+		}
+	}
+}
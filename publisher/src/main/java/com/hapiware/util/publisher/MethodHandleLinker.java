@@ -0,0 +1,385 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.hapiware.util.publisher.annotation.FieldAccessor;
+
+
+/**
+ * {@code MethodHandleLinker} resolves substitute interface methods to {@link MethodHandle}s
+ * of the substituted class.
+ * <p>
+ * A linked handle has always a type {@code (Object, P...)R} where {@code P...} and {@code R} are
+ * the parameter types and the return type of the substitute method and the first argument is
+ * the substituted object (or {@code null} for static methods). With {@link #link} substitute
+ * methods which cannot be linked are not reported immediately but they are linked to handles
+ * throwing the same errors as the other publishing policies do when the method is called.
+ * {@link #resolve} throws the errors immediately.
+ * <p>
+ * Substitute methods marked with {@link FieldAccessor} are resolved to getter and setter handles
+ * of the fields instead (see {@link Lookups#unreflectGetter(Field)}).
+ * <p>
+ * A substitute method returning the substituted class is a factory method. If the substituted
+ * class does not have a method with the same name and parameters the factory method is resolved
+ * to a (possibly private) constructor having the same parameters. Constructors are linked like
+ * static methods, so factory methods work also with substitutes published with a class.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class MethodHandleLinker
+{
+	private final static MethodHandle STATIC_METHOD_CONFLICT;
+	private final static MethodHandle SUBSTITUTE_METHOD_NAME_CONFLICT;
+	static {
+		try {
+			STATIC_METHOD_CONFLICT =
+				MethodHandles.lookup().findStatic(
+					MethodHandleLinker.class,
+					"throwStaticMethodConflictError",
+					MethodType.methodType(Object.class, String.class)
+				);
+			SUBSTITUTE_METHOD_NAME_CONFLICT =
+				MethodHandles.lookup().findStatic(
+					MethodHandleLinker.class,
+					"throwSubstituteMethodNameConflictError",
+					MethodType.methodType(Object.class, String.class, Throwable.class)
+				);
+		}
+		catch(NoSuchMethodException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+		catch(IllegalAccessException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
+
+	private MethodHandleLinker()
+	{
+		// Prevents a construction of MethodHandleLinker.
+	}
+
+	/**
+	 * Returns the exact type of a linked handle for {@code siMethod}.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		{@code (Object, P...)R}
+	 */
+	static MethodType linkedType(Method siMethod)
+	{
+		return
+			MethodType.methodType(
+				siMethod.getReturnType(),
+				siMethod.getParameterTypes()
+			).insertParameterTypes(0, Object.class);
+	}
+
+	/**
+	 * Resolves a substitute method to a method handle of type {@code (Object, P...)R}. If
+	 * the method cannot be resolved a handle throwing the error is returned.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class. Used for error messages only.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param staticsOnly
+	 * 		{@code true} if the substitute was published with a class instead of an object.
+	 *
+	 * @return
+	 * 		A linked method handle.
+	 */
+	static MethodHandle link(
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod,
+		boolean staticsOnly
+	)
+	{
+		try {
+			return resolve(substituteInterface, substitutedClass, siMethod, staticsOnly);
+		}
+		catch(SubstituteMethodNameConflictError ex) {
+			return
+				throwing(
+					SUBSTITUTE_METHOD_NAME_CONFLICT,
+					linkedType(siMethod),
+					signature(substituteInterface, siMethod),
+					ex.getCause()
+				);
+		}
+		catch(StaticMethodConflictError ex) {
+			return
+				throwing(
+					STATIC_METHOD_CONFLICT,
+					linkedType(siMethod),
+					signature(substituteInterface, siMethod)
+				);
+		}
+	}
+
+	/**
+	 * Resolves a substitute method to a method handle of type {@code (Object, P...)R}.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class. Used for error messages only.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param staticsOnly
+	 * 		{@code true} if the substitute was published with a class instead of an object.
+	 *
+	 * @return
+	 * 		A linked method handle.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the substituted class does not have the method or it cannot be accessed.
+	 *
+	 * @throws StaticMethodConflictError
+	 * 		If {@code staticsOnly} is {@code true} and the method is not static.
+	 */
+	static MethodHandle resolve(
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod,
+		boolean staticsOnly
+	)
+	{
+		Object event = PublisherEvents.beginLinkage();
+		try {
+			return resolveHandle(substituteInterface, substitutedClass, siMethod, staticsOnly);
+		}
+		finally {
+			PublisherEvents.endLinkage(event, substituteInterface, substitutedClass, siMethod);
+		}
+	}
+
+	private static MethodHandle resolveHandle(
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod,
+		boolean staticsOnly
+	)
+	{
+		MethodType linkedType = linkedType(siMethod);
+		FieldAccessor fieldAccessor = siMethod.getAnnotation(FieldAccessor.class);
+		int modifiers;
+		MethodHandle handle;
+		try {
+			if(fieldAccessor != null) {
+				Field field = findField(substitutedClass, siMethod, fieldAccessor);
+				modifiers = field.getModifiers();
+				handle =
+					siMethod.getParameterTypes().length == 0
+						? Lookups.unreflectGetter(field)
+						: Lookups.unreflectSetter(field);
+			}
+			else {
+				Method objMethod = findMethod(substitutedClass, siMethod);
+				if(objMethod != null) {
+					modifiers = objMethod.getModifiers();
+					handle = Lookups.unreflect(objMethod);
+				}
+				else {
+					Constructor<?> constructor =
+						substitutedClass.getDeclaredConstructor(siMethod.getParameterTypes());
+					modifiers = Modifier.STATIC;
+					handle = Lookups.unreflectConstructor(constructor);
+				}
+			}
+		}
+		catch(NoSuchMethodException ex) {
+			throw
+				new SubstituteMethodNameConflictError(
+					signature(substituteInterface, siMethod),
+					ex
+				);
+		}
+		catch(NoSuchFieldException ex) {
+			throw
+				new SubstituteMethodNameConflictError(
+					signature(substituteInterface, siMethod),
+					ex
+				);
+		}
+		catch(IllegalAccessException ex) {
+			throw
+				new SubstituteMethodNameConflictError(
+					signature(substituteInterface, siMethod),
+					ex
+				);
+		}
+
+		if(Modifier.isStatic(modifiers))
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		else
+			if(staticsOnly)
+				throw new StaticMethodConflictError(signature(substituteInterface, siMethod), null);
+
+		try {
+			return handle.asType(linkedType);
+		}
+		catch(WrongMethodTypeException ex) {
+			// Return types do not match. Goes through a generic type to get
+			// a ClassCastException when called, like the proxy based policies do.
+			return
+				handle.asType(
+					MethodType.genericMethodType(linkedType.parameterCount())
+				).asType(linkedType);
+		}
+	}
+
+	/**
+	 * Finds the method of the substituted class having the same name and parameters as
+	 * the substitute method.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		A method of {@code substitutedClass} (or its superclass) or {@code null} if
+	 * 		{@code siMethod} is a factory method of a non-abstract class and it must be resolved
+	 * 		to a constructor.
+	 *
+	 * @throws NoSuchMethodException
+	 * 		If the method does not exist and {@code siMethod} is not a factory method.
+	 */
+	private static Method findMethod(Class<?> substitutedClass, Method siMethod)
+		throws
+			NoSuchMethodException
+	{
+		try {
+			return
+				SignatureIndex.of(substitutedClass).method(
+					siMethod.getName(),
+					siMethod.getParameterTypes()
+				);
+		}
+		catch(NoSuchMethodException ex) {
+			if(
+				siMethod.getReturnType() != substitutedClass
+					|| Modifier.isAbstract(substitutedClass.getModifiers())
+			)
+				throw ex;
+			return null;
+		}
+	}
+
+	/**
+	 * Finds the field accessed by a {@link FieldAccessor} method. See {@link FieldAccessor} for
+	 * the naming rules.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method marked with {@link FieldAccessor}.
+	 *
+	 * @param fieldAccessor
+	 * 		The annotation of {@code siMethod}.
+	 *
+	 * @return
+	 * 		A field declared by {@code substitutedClass}.
+	 *
+	 * @throws NoSuchFieldException
+	 * 		If the field does not exist or {@code siMethod} is not a getter or a setter.
+	 */
+	static Field findField(Class<?> substitutedClass, Method siMethod, FieldAccessor fieldAccessor)
+		throws
+			NoSuchFieldException
+	{
+		int parameterCount = siMethod.getParameterTypes().length;
+		boolean returnsVoid = siMethod.getReturnType() == void.class;
+		if(!(parameterCount == 0 && !returnsVoid) && !(parameterCount == 1 && returnsVoid))
+			throw
+				new NoSuchFieldException(
+					siMethod.getName() + " is not a getter (no parameters) "
+						+ "or a setter (one parameter and void)."
+				);
+		
+		String name = fieldAccessor.value();
+		if(name.length() > 0)
+			return substitutedClass.getDeclaredField(name);
+		name = fieldName(siMethod.getName());
+		try {
+			return substitutedClass.getDeclaredField(name);
+		}
+		catch(NoSuchFieldException ex) {
+			return substitutedClass.getDeclaredField("_" + name);
+		}
+	}
+
+	private static String fieldName(String methodName)
+	{
+		String[] prefixes = { "get", "set", "is" };
+		for(String prefix : prefixes) {
+			if(
+				methodName.length() > prefix.length()
+					&& methodName.startsWith(prefix)
+					&& Character.isUpperCase(methodName.charAt(prefix.length()))
+			) {
+				String name = methodName.substring(prefix.length());
+				return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+			}
+		}
+		return methodName;
+	}
+
+	private static String signature(Class<?> substituteInterface, Method siMethod)
+	{
+		return PublishingPolicyBase.createSignature(substituteInterface.toString(), siMethod);
+	}
+
+	private static MethodHandle throwing(
+		MethodHandle thrower,
+		MethodType linkedType,
+		Object... errorArguments
+	)
+	{
+		return
+			MethodHandles.dropArguments(
+				MethodHandles.insertArguments(thrower, 0, errorArguments).asType(
+					MethodType.methodType(linkedType.returnType())
+				),
+				0,
+				linkedType.parameterList()
+			);
+	}
+
+	@SuppressWarnings("unused")
+	private static Object throwStaticMethodConflictError(String signature)
+	{
+		throw new StaticMethodConflictError(signature, null);
+	}
+
+	@SuppressWarnings("unused")
+	private static Object throwSubstituteMethodNameConflictError(
+		String signature,
+		Throwable cause
+	)
+	{
+		throw new SubstituteMethodNameConflictError(signature, cause);
+	}
+}
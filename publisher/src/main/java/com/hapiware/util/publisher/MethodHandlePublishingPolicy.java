@@ -0,0 +1,156 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+
+/**
+ * A method handle caching publishing policy for {@link Publisher}.
+ * <p>
+ * Every substitute method is resolved only once per substituted class to a
+ * {@link MethodHandle} (see
+ * {@link java.lang.invoke.MethodHandles#privateLookupIn(Class, java.lang.invoke.MethodHandles.Lookup)}).
+ * The handle is adapted to take the substituted object and the argument array of
+ * the {@link InvocationHandler} as is, and it is called with {@link MethodHandle#invokeExact}.
+ * Thus there are no access checks and no argument array copying on the call path like there is
+ * with {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * The handles are found from a {@link PolymorphicInlineCache}, so also the overloaded methods
+ * are found with reference comparisons only.
+ * <p>
+ * Exceptions thrown by the private method are not wrapped to
+ * {@link java.lang.reflect.InvocationTargetException}s.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class MethodHandlePublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements
+		PublishingPolicy<PSI>
+{
+	private final Class<?> _substituteInterface;
+	private final SubstituteInterfaceCache<Dispatcher> _dispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass, false);
+			}
+		};
+	private final SubstituteInterfaceCache<Dispatcher> _staticDispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass, true);
+			}
+		};
+
+
+	public MethodHandlePublishingPolicy(Class<?> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(final Object substitutedObject)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedObject.getClass()),
+				substitutedObject
+			);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_staticDispatchers.get(_substituteInterface, substitutedClass),
+				null
+			);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass);
+	}
+
+	/**
+	 * Resolves a substitute method to a method handle of type {@code (Object, Object[])Object}
+	 * where the first argument is the substituted object (or {@code null} for static methods)
+	 * and the second one is the argument array given to {@link InvocationHandler}.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param staticsOnly
+	 * 		{@code true} if the substitute was published with a class instead of an object.
+	 *
+	 * @return
+	 * 		An adapted method handle.
+	 */
+	private MethodHandle link(Class<?> substitutedClass, Method siMethod, boolean staticsOnly)
+	{
+		int parameterCount = siMethod.getParameterTypes().length;
+		return
+			MethodHandleLinker.link(
+				_substituteInterface,
+				substitutedClass,
+				siMethod,
+				staticsOnly
+			).asType(
+				MethodType.genericMethodType(parameterCount + 1)
+			).asSpreader(Object[].class, parameterCount);
+	}
+
+
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		private final boolean _staticsOnly;
+		private final PolymorphicInlineCache<MethodHandle> _handles =
+			new PolymorphicInlineCache<MethodHandle>();
+
+
+		public Dispatcher(Class<?> substituteInterface, Class<?> substitutedClass, boolean staticsOnly)
+		{
+			super(substituteInterface, substitutedClass);
+			_staticsOnly = staticsOnly;
+		}
+
+
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			MethodHandle handle = _handles.get(siMethod);
+			PublisherMetrics.cacheAccess(siMethod, handle != null);
+			if(handle == null)
+				// An equal method of another proxy class shares the handle.
+				handle = _handles.find(siMethod);
+			if(handle == null) {
+				MethodHandle newHandle = link(_substitutedClass, siMethod, _staticsOnly);
+				handle = _handles.putIfAbsent(siMethod, newHandle);
+				if(handle == null)
+					handle = newHandle;
+			}
+			return (Object)handle.invokeExact(substitutedObject, args);
+		}
+	}
+}
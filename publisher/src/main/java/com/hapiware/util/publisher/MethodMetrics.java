@@ -0,0 +1,57 @@
+package com.hapiware.util.publisher;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * {@code MethodMetrics} collects the metrics of a single substitute method for
+ * {@link PublisherMetrics}. All the counters are lock-free.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class MethodMetrics
+{
+	private final LongAdder _calls = new LongAdder();
+	private final LongAdder _totalNanos = new LongAdder();
+	private final LongAdder _cacheHits = new LongAdder();
+	private final LongAdder _cacheMisses = new LongAdder();
+	private final LatencyHistogram _latencies = new LatencyHistogram();
+
+
+	void record(long nanos)
+	{
+		_calls.increment();
+		_totalNanos.add(nanos);
+		_latencies.record(nanos);
+	}
+
+	void cacheAccess(boolean hit)
+	{
+		if(hit)
+			_cacheHits.increment();
+		else
+			_cacheMisses.increment();
+	}
+
+	MethodMetricsSnapshot snapshot(String method)
+	{
+		long calls = _calls.sum();
+		long totalNanos = _totalNanos.sum();
+		long[] counts = _latencies.counts();
+		return
+			new MethodMetricsSnapshot(
+				method,
+				calls,
+				totalNanos,
+				calls == 0 ? 0 : totalNanos / calls,
+				LatencyHistogram.valueAt(counts, 50.0),
+				LatencyHistogram.valueAt(counts, 90.0),
+				LatencyHistogram.valueAt(counts, 99.0),
+				LatencyHistogram.valueAt(counts, 99.9),
+				_latencies.max(),
+				_cacheHits.sum(),
+				_cacheMisses.sum()
+			);
+	}
+}
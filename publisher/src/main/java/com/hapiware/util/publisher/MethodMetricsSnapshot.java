@@ -0,0 +1,175 @@
+package com.hapiware.util.publisher;
+
+
+/**
+ * {@code MethodMetricsSnapshot} is an immutable snapshot of the metrics of a single substitute
+ * method. See {@link PublisherMetrics}.
+ * <p>
+ * Latencies are measured in nanoseconds around the {@link java.lang.reflect.InvocationHandler}
+ * of the substitute, so they include the publishing policy overhead and the private method
+ * itself. Percentiles are accurate to about 6%.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @see PublisherMetrics
+ */
+final public class MethodMetricsSnapshot
+{
+	private final String _method;
+	private final long _calls;
+	private final long _totalNanos;
+	private final long _meanNanos;
+	private final long _p50Nanos;
+	private final long _p90Nanos;
+	private final long _p99Nanos;
+	private final long _p999Nanos;
+	private final long _maxNanos;
+	private final long _cacheHits;
+	private final long _cacheMisses;
+
+
+	MethodMetricsSnapshot(
+		String method,
+		long calls,
+		long totalNanos,
+		long meanNanos,
+		long p50Nanos,
+		long p90Nanos,
+		long p99Nanos,
+		long p999Nanos,
+		long maxNanos,
+		long cacheHits,
+		long cacheMisses
+	)
+	{
+		_method = method;
+		_calls = calls;
+		_totalNanos = totalNanos;
+		_meanNanos = meanNanos;
+		_p50Nanos = p50Nanos;
+		_p90Nanos = p90Nanos;
+		_p99Nanos = p99Nanos;
+		_p999Nanos = p999Nanos;
+		_maxNanos = maxNanos;
+		_cacheHits = cacheHits;
+		_cacheMisses = cacheMisses;
+	}
+
+
+	/**
+	 * Returns a signature of the substitute method (e.g.
+	 * {@code com.example.SHashGenerator.concat([B,[B)}).
+	 *
+	 * @return
+	 * 		A signature of the substitute method.
+	 */
+	public String getMethod()
+	{
+		return _method;
+	}
+
+	/**
+	 * @return
+	 * 		Number of completed calls.
+	 */
+	public long getCalls()
+	{
+		return _calls;
+	}
+
+	/**
+	 * @return
+	 * 		Cumulative latency of all the calls.
+	 */
+	public long getTotalNanos()
+	{
+		return _totalNanos;
+	}
+
+	/**
+	 * @return
+	 * 		Mean latency.
+	 */
+	public long getMeanNanos()
+	{
+		return _meanNanos;
+	}
+
+	/**
+	 * @return
+	 * 		Median latency.
+	 */
+	public long getP50Nanos()
+	{
+		return _p50Nanos;
+	}
+
+	/**
+	 * @return
+	 * 		90th percentile of the latencies.
+	 */
+	public long getP90Nanos()
+	{
+		return _p90Nanos;
+	}
+
+	/**
+	 * @return
+	 * 		99th percentile of the latencies.
+	 */
+	public long getP99Nanos()
+	{
+		return _p99Nanos;
+	}
+
+	/**
+	 * @return
+	 * 		99.9th percentile of the latencies.
+	 */
+	public long getP999Nanos()
+	{
+		return _p999Nanos;
+	}
+
+	/**
+	 * @return
+	 * 		The highest latency.
+	 */
+	public long getMaxNanos()
+	{
+		return _maxNanos;
+	}
+
+	/**
+	 * Returns the number of calls which found the linked private method from the method cache
+	 * of the publishing policy. Publishing policies without a method cache do not count hits or
+	 * misses.
+	 *
+	 * @return
+	 * 		Number of method cache hits.
+	 */
+	public long getCacheHits()
+	{
+		return _cacheHits;
+	}
+
+	/**
+	 * Returns the number of calls which had to resolve the private method.
+	 *
+	 * @return
+	 * 		Number of method cache misses.
+	 */
+	public long getCacheMisses()
+	{
+		return _cacheMisses;
+	}
+
+	@Override
+	public String toString()
+	{
+		return
+			_method + ": calls=" + _calls + ", mean=" + _meanNanos + "ns, p50=" + _p50Nanos
+				+ "ns, p99=" + _p99Nanos + "ns, max=" + _maxNanos + "ns, cacheHits=" + _cacheHits
+				+ ", cacheMisses=" + _cacheMisses;
+	}
+}
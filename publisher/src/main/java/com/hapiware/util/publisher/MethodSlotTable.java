@@ -0,0 +1,100 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+import com.hapiware.util.publisher.annotation.Id;
+
+
+/**
+ * {@code MethodSlotTable} maps substitute interface methods to array slots. The table is built
+ * once and the lookup does not do any annotation lookups, boxing or allocation.
+ * <p>
+ * The table uses open addressing with linear probing and it is keyed by {@link Method#hashCode()}
+ * and {@link Method#equals(Object)}. When a method is found with {@code equals()} the key is
+ * replaced with the given {@link Method} object. {@link java.lang.reflect.Proxy} passes always
+ * the same {@link Method} objects to its {@link java.lang.reflect.InvocationHandler} so after
+ * the first call the keys are found with an identity comparison only. Replacing a key with an
+ * equal one is harmless even if several threads do it at the same time.
+ * <p>
+ * If every method has an {@link Id} annotation the slots are the {@link Id} values. Otherwise
+ * the slots are assigned in declaration order.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class MethodSlotTable
+{
+	private final Method[] _keys;
+	private final int[] _slots;
+	private final int _mask;
+	private final int _size;
+
+
+	/**
+	 * Builds a slot table for the methods.
+	 *
+	 * @param methods
+	 * 		Substitute interface methods.
+	 */
+	MethodSlotTable(Method[] methods)
+	{
+		int capacity = 2;
+		while(capacity < 2 * methods.length)
+			capacity <<= 1;
+		_keys = new Method[capacity];
+		_slots = new int[capacity];
+		_mask = capacity - 1;
+
+		boolean useIds = methods.length > 0;
+		for(Method method : methods)
+			if(method.getAnnotation(Id.class) == null)
+				useIds = false;
+		int size = 0;
+		for(int i = 0; i < methods.length; i++) {
+			int slot = useIds ? methods[i].getAnnotation(Id.class).value() : i;
+			int index = methods[i].hashCode() & _mask;
+			while(_keys[index] != null)
+				index = (index + 1) & _mask;
+			_keys[index] = methods[i];
+			_slots[index] = slot;
+			size = Math.max(size, slot + 1);
+		}
+		_size = size;
+	}
+
+	/**
+	 * Returns the slot of the method.
+	 *
+	 * @param method
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		A slot or {@code -1} if the method is not in the table.
+	 */
+	int slot(Method method)
+	{
+		int index = method.hashCode() & _mask;
+		Method key;
+		while((key = _keys[index]) != null) {
+			if(key == method)
+				return _slots[index];
+			if(key.equals(method)) {
+				_keys[index] = method;
+				return _slots[index];
+			}
+			index = (index + 1) & _mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the length of an array which can hold all the slots.
+	 *
+	 * @return
+	 * 		The greatest slot plus one.
+	 */
+	int size()
+	{
+		return _size;
+	}
+}
@@ -0,0 +1,82 @@
+package com.hapiware.util.publisher;
+
+
+/**
+ * {@code MultiRelease} loads the versioned implementations of the publisher jar.
+ * <p>
+ * The publisher jar is a multi-release jar. The baseline classes are compiled for Java 8 and
+ * a baseline class {@code X} can have faster versions {@code X<release>} (e.g.
+ * {@code LookupEngine9}) which are packaged under {@code META-INF/versions/<release>}. Versioned
+ * classes are visible only to JVMs new enough to run them, so the newest one which can be
+ * loaded is used. The releases can be limited with the system property
+ * {@value #ENGINE_PROPERTY} (e.g. {@code -Dcom.hapiware.util.publisher.engine=9}) which is
+ * mainly meant for testing every version layer on a single JVM.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class MultiRelease
+{
+	/**
+	 * A system property limiting the Java release of the versioned classes.
+	 */
+	final static String ENGINE_PROPERTY = "com.hapiware.util.publisher.engine";
+
+	private final static int MAX_RELEASE = maxRelease();
+
+
+	private MultiRelease()
+	{
+		// Prevents a construction of MultiRelease.
+	}
+
+	/**
+	 * Creates an instance of the newest versioned class of {@code baseClass}.
+	 *
+	 * @param <T>
+	 * 		A type of the baseline class.
+	 *
+	 * @param baseClass
+	 * 		A baseline class.
+	 *
+	 * @param releases
+	 * 		Releases having a versioned class in the newest first order.
+	 *
+	 * @return
+	 * 		An instance of the versioned class or {@code null} if none of the versioned classes
+	 * 		can be loaded.
+	 */
+	static <T> T newestInstance(Class<T> baseClass, int... releases)
+	{
+		for(int release : releases) {
+			if(release > MAX_RELEASE)
+				continue;
+			try {
+				return baseClass.cast(Class.forName(baseClass.getName() + release).newInstance());
+			}
+			catch(ClassNotFoundException ex) {
+				// Not in the multi-release jar of the running JVM.
+			}
+			catch(LinkageError ex) {
+				// Compiled for a newer JVM (e.g. a versioned directory in the class path).
+			}
+			catch(InstantiationException ex) {
+				throw new IllegalStateException(ex);
+			}
+			catch(IllegalAccessException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @throws NumberFormatException
+	 * 		If {@value #ENGINE_PROPERTY} is not a number.
+	 */
+	private static int maxRelease()
+	{
+		String property = System.getProperty(ENGINE_PROPERTY);
+		return property == null ? Integer.MAX_VALUE : Integer.parseInt(property.trim());
+	}
+}
@@ -0,0 +1,132 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * A non-caching publishing policy for {@link Publisher}.
+ * <p>
+ * No method table is built beforehand. A private method is found from the shared
+ * {@link SignatureIndex} of the substituted class on the first call of a substitute method and
+ * the dispatcher remembers it in an {@link IdentityMethodTable}, so the later calls neither
+ * copy the parameter types nor look up the index. A member accessor (see
+ * {@link MemberAccessors}) is remembered in the same table by mapping it to itself. The dispatch
+ * logic is shared per substituted class (see {@link SubstituteDispatcher}).
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+*/
+final public class NonCachingPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements 
+		PublishingPolicy<PSI>
+{
+	private final Class<?> _substituteInterface;
+	private final SubstituteInterfaceCache<Dispatcher> _dispatchers =
+		new SubstituteInterfaceCache<Dispatcher>()
+		{
+			protected Dispatcher computeValue(Class<?> substitutedClass)
+			{
+				return new Dispatcher(_substituteInterface, substitutedClass);
+			}
+		};
+	
+	public NonCachingPublishingPolicy(Class<?> substituteInterface)
+	{
+		_substituteInterface = substituteInterface;
+	}
+
+	
+	@SuppressWarnings("unchecked")
+	public PSI publish(final Object substitutedObject)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedObject.getClass()),
+				substitutedObject
+			);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return
+			(PSI)newProxy(
+				_substituteInterface,
+				_dispatchers.get(_substituteInterface, substitutedClass),
+				null
+			);
+	}
+
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return _dispatchers.get(_substituteInterface, substitutedClass);
+	}
+
+	
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		private final IdentityMethodTable _methodTable = new IdentityMethodTable();
+		
+		
+		public Dispatcher(Class<?> substituteInterface, Class<?> substitutedClass)
+		{
+			super(substituteInterface, substitutedClass);
+		}
+		
+		
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			Method objMethod = _methodTable.get(siMethod);
+			try {
+				if(objMethod == null) {
+					Method newObjMethod =
+						MemberAccessors.isMemberAccessor(_substitutedClass, siMethod)
+							? siMethod
+							: SignatureIndex.of(_substitutedClass).method(siMethod);
+					objMethod = _methodTable.putIfAbsent(siMethod, newObjMethod);
+					if(objMethod == null)
+						objMethod = newObjMethod;
+				}
+			}
+			catch(NoSuchMethodException ex) {
+				throw 
+					new SubstituteMethodNameConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+			
+			// A member accessor is mapped to itself.
+			if(objMethod == siMethod)
+				return
+					MemberAccessors.access(
+						_substituteInterface,
+						_substitutedClass,
+						siMethod,
+						substitutedObject,
+						args
+					);
+			
+			try {
+				return objMethod.invoke(substitutedObject, args);
+			}
+			catch(NullPointerException ex) {
+				throw 
+					new StaticMethodConflictError(
+						createSignature(_substituteInterface.toString(), siMethod),
+						ex
+					);
+			}
+		}
+	}
+}
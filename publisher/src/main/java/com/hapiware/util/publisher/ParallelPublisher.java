@@ -0,0 +1,172 @@
+package com.hapiware.util.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+/**
+ * {@code ParallelPublisher} publishes substituted objects of a {@link Spliterator} in parallel
+ * with a {@link ForkJoinPool} for {@link Publisher#publishAll}.
+ * <p>
+ * The spliterator is split recursively (like parallel streams do) until the parts are small
+ * enough to keep all the workers of the pool busy. Every part is published and called in
+ * a separate task and the results of a part are collected into an array. The arrays are joined
+ * in the encounter order of the spliterator, so the results are in the same order as
+ * the substituted objects no matter which worker processed them.
+ * <p>
+ * All the workers use the same {@link PublishingPolicy}, so the resolved methods are shared and
+ * there are no per worker caches to fill.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class ParallelPublisher
+{
+	/**
+	 * Number of parts created per worker. Some slack is needed because the parts are seldom of
+	 * equal cost.
+	 */
+	private final static int PARTS_PER_WORKER = 4;
+
+
+	private ParallelPublisher()
+	{
+		// Prevents a construction of ParallelPublisher.
+	}
+
+	/**
+	 * Publishes every substituted object and applies {@code call} to the substitute objects in
+	 * parallel.
+	 *
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 *
+	 * @param <R>
+	 * 		A result type.
+	 *
+	 * @param publisher
+	 * 		A publisher creating the substitute objects.
+	 *
+	 * @param substitutedObjects
+	 * 		Objects to be substituted.
+	 *
+	 * @param call
+	 * 		A function calling the substitute object.
+	 *
+	 * @param pool
+	 * 		A pool running the calls.
+	 *
+	 * @return
+	 * 		An unmodifiable list of the results in the encounter order of
+	 * 		{@code substitutedObjects}.
+	 */
+	@SuppressWarnings("unchecked")
+	static <PSI, R> List<R> publishAll(
+		Publisher<PSI> publisher,
+		Spliterator<?> substitutedObjects,
+		Function<? super PSI, ? extends R> call,
+		ForkJoinPool pool
+	)
+	{
+		// With an unknown size (i.e. Long.MAX_VALUE) only the root task splits and the prefixes
+		// are batches of the spliterator.
+		long threshold =
+			Math.max(
+				substitutedObjects.estimateSize() / (pool.getParallelism() * PARTS_PER_WORKER),
+				1
+			);
+		List<Object[]> parts =
+			pool.invoke(new PublishingTask<PSI>(publisher, substitutedObjects, call, threshold));
+
+		int total = 0;
+		for(Object[] part : parts)
+			total += part.length;
+		Object[] results = new Object[total];
+		int offset = 0;
+		for(Object[] part : parts) {
+			System.arraycopy(part, 0, results, offset, part.length);
+			offset += part.length;
+		}
+		return Collections.unmodifiableList((List<R>)(List<?>)Arrays.asList(results));
+	}
+
+
+	/**
+	 * Splits the substituted objects and returns the results of the parts in the encounter
+	 * order.
+	 */
+	private final static class PublishingTask<PSI>
+		extends
+			RecursiveTask<List<Object[]>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Publisher<PSI> _publisher;
+		private final Function<? super PSI, ?> _call;
+		private final long _threshold;
+		private final Spliterator<?> _substitutedObjects;
+
+
+		public PublishingTask(
+			Publisher<PSI> publisher,
+			Spliterator<?> substitutedObjects,
+			Function<? super PSI, ?> call,
+			long threshold
+		)
+		{
+			_publisher = publisher;
+			_substitutedObjects = substitutedObjects;
+			_call = call;
+			_threshold = threshold;
+		}
+
+
+		protected List<Object[]> compute()
+		{
+			// Prefixes are forked and the rest is split further by this task. The forked tasks
+			// are in the encounter order.
+			List<PublishingTask<PSI>> prefixTasks = new ArrayList<PublishingTask<PSI>>();
+			Spliterator<?> prefix;
+			while(
+				_substitutedObjects.estimateSize() > _threshold
+					&& (prefix = _substitutedObjects.trySplit()) != null
+			) {
+				PublishingTask<PSI> prefixTask =
+					new PublishingTask<PSI>(_publisher, prefix, _call, _threshold);
+				prefixTask.fork();
+				prefixTasks.add(prefixTask);
+			}
+			Object[] ownResults = publish();
+
+			List<Object[]> parts = new ArrayList<Object[]>();
+			for(PublishingTask<PSI> prefixTask : prefixTasks)
+				parts.addAll(prefixTask.join());
+			parts.add(ownResults);
+			return parts;
+		}
+
+		private Object[] publish()
+		{
+			long size = _substitutedObjects.getExactSizeIfKnown();
+			final List<Object> results =
+				new ArrayList<Object>(size < 0 || size > Integer.MAX_VALUE ? 1024 : (int)size);
+			_substitutedObjects.forEachRemaining(
+				new Consumer<Object>()
+				{
+					public void accept(Object substitutedObject)
+					{
+						results.add(_call.apply(_publisher.publish(substitutedObject)));
+					}
+				}
+			);
+			return results.toArray();
+		}
+	}
+}
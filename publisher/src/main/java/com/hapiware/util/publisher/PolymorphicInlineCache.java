@@ -0,0 +1,270 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code PolymorphicInlineCache} maps substitute interface methods to their dispatch targets
+ * (e.g. {@link java.lang.invoke.MethodHandle}s). The entries are grouped by the method name and
+ * the keys are compared by reference (i.e. {@code ==}) like in {@link IdentityMethodTable}.
+ * <p>
+ * {@link Method#hashCode()} depends only on the declaring class and the method name, so all
+ * the overloads of a name (e.g. {@code add(int, int)}, {@code add(double, double)} and
+ * {@code add(String, String)}) collide in a hash map and have to be told apart with
+ * {@link Method#equals(Object)} which compares the parameter types. Here a name is found
+ * once with its cached {@link String#hashCode()} and the overloads of the name are then checked
+ * by reference only:
+ * 	<ul>
+ * 		<li>
+ * 			Up to {@value #POLYMORPHIC_LIMIT} overloads are kept in a small array which is
+ * 			scanned linearly (a monomorphic or polymorphic site).
+ * 		</li>
+ * 		<li>
+ * 			A name having more overloads is moved to an open addressed table keyed by
+ * 			{@link System#identityHashCode(Object)} (a megamorphic site).
+ * 		</li>
+ * 	</ul>
+ * Nothing is boxed or allocated when a method is looked up.
+ * <p>
+ * The sites are never modified after they are published. Adding a method copies the site and
+ * publishes the copy through a {@code volatile} field, so the readers need no locking. A method
+ * equal to an already mapped method is not added (see {@link #putIfAbsent(Method, Object)}), so
+ * the fresh copies returned by {@link Class#getDeclaredMethods()} do not grow the sites.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <V>
+ * 		A type of the dispatch targets.
+ */
+final class PolymorphicInlineCache<V>
+{
+	/**
+	 * The greatest number of methods a site checks linearly.
+	 */
+	final static int POLYMORPHIC_LIMIT = 4;
+
+	private final static int INITIAL_CAPACITY = 8;
+
+	private volatile Site[] _sites = new Site[INITIAL_CAPACITY];
+	private int _size;
+
+
+	/**
+	 * Returns the target mapped to {@code key}.
+	 *
+	 * @param key
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		A dispatch target or {@code null} if {@code key} is not mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	V get(Method key)
+	{
+		Site site = site(_sites, key.getName());
+		return site != null ? (V)site.get(key) : null;
+	}
+
+	/**
+	 * Returns the target mapped to {@code key} or to any method equal to {@code key}. Unlike
+	 * {@link #get(Method)} this compares all the methods of the name with
+	 * {@link Method#equals(Object)}, so it is meant for the slow paths only.
+	 *
+	 * @param key
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		A dispatch target or {@code null} if neither {@code key} nor an equal method is mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	V find(Method key)
+	{
+		Site site = site(_sites, key.getName());
+		return site != null ? (V)site.find(key) : null;
+	}
+
+	/**
+	 * Maps {@code key} to {@code value} unless {@code key} or a method equal to {@code key} is
+	 * already mapped. An equal method is not added, so {@link #get(Method)} keeps missing it and
+	 * the callers should try {@link #find(Method)} before creating a new target.
+	 *
+	 * @param key
+	 * 		A substitute interface method.
+	 *
+	 * @param value
+	 * 		A dispatch target.
+	 *
+	 * @return
+	 * 		The target already mapped to {@code key} (or to an equal method) or {@code null} if
+	 * 		{@code value} was added.
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized V putIfAbsent(Method key, V value)
+	{
+		Site[] sites = _sites;
+		String name = key.getName();
+		Site site = site(sites, name);
+		if(site == null) {
+			if(2 * (_size + 1) > sites.length)
+				sites = rehash(sites, sites.length << 1);
+			else
+				sites = sites.clone();
+			insert(sites, Site.polymorphic(name, key, value));
+			_size++;
+		}
+		else {
+			Object existing = site.get(key);
+			if(existing == null)
+				existing = site.find(key);
+			if(existing != null)
+				return (V)existing;
+			sites = sites.clone();
+			replace(sites, site.with(key, value));
+		}
+		_sites = sites;
+		return null;
+	}
+
+	private static Site site(Site[] sites, String name)
+	{
+		int mask = sites.length - 1;
+		int index = name.hashCode() & mask;
+		Site site;
+		while((site = sites[index]) != null) {
+			// The names of reflected methods are interned, so equals() returns on ==.
+			if(site.name.equals(name))
+				return site;
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private static Site[] rehash(Site[] sites, int capacity)
+	{
+		Site[] rehashed = new Site[capacity];
+		for(Site site : sites)
+			if(site != null)
+				insert(rehashed, site);
+		return rehashed;
+	}
+
+	private static void insert(Site[] sites, Site site)
+	{
+		int mask = sites.length - 1;
+		int index = site.name.hashCode() & mask;
+		while(sites[index] != null)
+			index = (index + 1) & mask;
+		sites[index] = site;
+	}
+
+	private static void replace(Site[] sites, Site site)
+	{
+		int mask = sites.length - 1;
+		int index = site.name.hashCode() & mask;
+		while(!sites[index].name.equals(site.name))
+			index = (index + 1) & mask;
+		sites[index] = site;
+	}
+
+
+	/**
+	 * The methods of a single name. {@code mask} is {@code -1} for a polymorphic site where
+	 * the arrays are full and scanned linearly. Otherwise the arrays are an open addressed table.
+	 */
+	private final static class Site
+	{
+		final String name;
+		final Method[] keys;
+		final Object[] values;
+		final int mask;
+
+
+		private Site(String name, Method[] keys, Object[] values, int mask)
+		{
+			this.name = name;
+			this.keys = keys;
+			this.values = values;
+			this.mask = mask;
+		}
+
+
+		static Site polymorphic(String name, Method key, Object value)
+		{
+			return new Site(name, new Method[] { key }, new Object[] { value }, -1);
+		}
+
+		Object get(Method key)
+		{
+			Method[] keys = this.keys;
+			if(mask < 0) {
+				for(int i = 0; i < keys.length; i++)
+					if(keys[i] == key)
+						return values[i];
+				return null;
+			}
+
+			int index = System.identityHashCode(key) & mask;
+			Method k;
+			while((k = keys[index]) != null) {
+				if(k == key)
+					return values[index];
+				index = (index + 1) & mask;
+			}
+			return null;
+		}
+
+		Object find(Method key)
+		{
+			for(int i = 0; i < keys.length; i++)
+				if(keys[i] != null && keys[i].equals(key))
+					return values[i];
+			return null;
+		}
+
+		Site with(Method key, Object value)
+		{
+			int size = size() + 1;
+			if(size <= POLYMORPHIC_LIMIT) {
+				Method[] keys = new Method[size];
+				Object[] values = new Object[size];
+				System.arraycopy(this.keys, 0, keys, 0, size - 1);
+				System.arraycopy(this.values, 0, values, 0, size - 1);
+				keys[size - 1] = key;
+				values[size - 1] = value;
+				return new Site(name, keys, values, -1);
+			}
+
+			int capacity = INITIAL_CAPACITY;
+			while(capacity < 2 * size)
+				capacity <<= 1;
+			Method[] keys = new Method[capacity];
+			Object[] values = new Object[capacity];
+			for(int i = 0; i < this.keys.length; i++)
+				if(this.keys[i] != null)
+					insert(keys, values, this.keys[i], this.values[i]);
+			insert(keys, values, key, value);
+			return new Site(name, keys, values, capacity - 1);
+		}
+
+		private int size()
+		{
+			if(mask < 0)
+				return keys.length;
+			int size = 0;
+			for(Method key : keys)
+				if(key != null)
+					size++;
+			return size;
+		}
+
+		private static void insert(Method[] keys, Object[] values, Method key, Object value)
+		{
+			int mask = keys.length - 1;
+			int index = System.identityHashCode(key) & mask;
+			while(keys[index] != null)
+				index = (index + 1) & mask;
+			keys[index] = key;
+			values[index] = value;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A prelinked publishing policy for {@link Publisher}. Created with
+ * {@link Publisher#create(Class, Class)}.
+ * <p>
+ * Every substitute interface method is resolved to a {@link MethodHandle} of the substituted
+ * class already when the policy is constructed and all the mismatches are reported at once with
+ * {@link SubstituteLinkageError}. {@link #publish(Object)} does not do any lookups. It creates
+ * an instance of a generated substitute class (see {@link BytecodeGeneratingPublishingPolicy})
+ * or, if a class cannot be generated, a proxy using the prelinked method handles.
+ * <p>
+ * {@link #publish(Class)} is not prelinked and it works like {@link MethodHandlePublishingPolicy}.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class PrelinkedPublishingPolicy<PSI>
+	extends
+		PublishingPolicyBase
+	implements
+		PublishingPolicy<PSI>
+{
+	private final Class<?> _substituteInterface;
+	private final Class<?> _substitutedClass;
+	private final MethodHandle _constructor;
+	private final Map<Method, MethodHandle> _handles;
+	private final SubstituteDispatcher _dispatcher;
+	private final PublishingPolicy<PSI> _staticPolicy;
+
+
+	/**
+	 * Links all the substitute interface methods to the substituted class.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 * 
+	 * @throws SubstituteLinkageError
+	 * 		If any of the substitute interface methods cannot be linked.
+	 */
+	public PrelinkedPublishingPolicy(Class<?> substituteInterface, Class<?> substitutedClass)
+	{
+		_substituteInterface = substituteInterface;
+		_substitutedClass = substitutedClass;
+		_staticPolicy = new MethodHandlePublishingPolicy<PSI>(substituteInterface);
+
+		Method[] siMethods = BytecodeGeneratingPublishingPolicy.substituteMethods(substituteInterface);
+		List<MethodHandle> handles = new ArrayList<MethodHandle>(siMethods.length);
+		List<Error> mismatches = new ArrayList<Error>();
+		for(Method siMethod : siMethods) {
+			try {
+				handles.add(
+					MethodHandleLinker.resolve(
+						substituteInterface,
+						substitutedClass,
+						siMethod,
+						false
+					)
+				);
+			}
+			catch(SubstituteMethodNameConflictError ex) {
+				mismatches.add(ex);
+			}
+		}
+		if(!mismatches.isEmpty())
+			throw new SubstituteLinkageError(substitutedClass, mismatches);
+		
+		_constructor =
+			BytecodeGeneratingPublishingPolicy.defineSubstituteClass(
+				substituteInterface,
+				siMethods,
+				handles
+			);
+		if(_constructor != null) {
+			_handles = null;
+			_dispatcher = null;
+		}
+		else {
+			_handles = new HashMap<Method, MethodHandle>();
+			for(int i = 0; i < siMethods.length; i++)
+				_handles.put(siMethods[i], spread(handles.get(i), siMethods[i]));
+			_dispatcher = new Dispatcher(substituteInterface, substitutedClass);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If {@code substitutedObject} is not an instance of the substituted class given to
+	 * 		the constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	public PSI publish(Object substitutedObject)
+	{
+		if(!_substitutedClass.isInstance(substitutedObject))
+			throw
+				new IllegalArgumentException(
+					"'substitutedObject' must be an instance of " + _substitutedClass.getName()
+						+ ". Was: " + substitutedObject + "."
+				);
+		if(_constructor != null)
+			return
+				newSubstitute(_substituteInterface, _substitutedClass, _constructor, substitutedObject);
+		
+		return (PSI)newProxy(_substituteInterface, _dispatcher, substitutedObject);
+	}
+
+
+	public PSI publish(Class<?> substitutedClass)
+	{
+		return _staticPolicy.publish(substitutedClass);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If {@code substitutedClass} is not the substituted class given to the constructor.
+	 */
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		if(substitutedClass != _substitutedClass)
+			throw
+				new IllegalArgumentException(
+					"'substitutedClass' must be " + _substitutedClass.getName() + ". Was: "
+						+ substitutedClass.getName() + "."
+				);
+		return _dispatcher;
+	}
+
+
+	private static MethodHandle spread(MethodHandle handle, Method siMethod)
+	{
+		int parameterCount = siMethod.getParameterTypes().length;
+		return
+			handle.asType(
+				MethodType.genericMethodType(parameterCount + 1)
+			).asSpreader(Object[].class, parameterCount);
+	}
+
+
+	private final class Dispatcher
+		extends
+			SubstituteDispatcher
+	{
+		public Dispatcher(Class<?> substituteInterface, Class<?> substitutedClass)
+		{
+			super(substituteInterface, substitutedClass);
+		}
+		
+		
+		Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			MethodHandle handle = _handles.get(siMethod);
+			PublisherMetrics.cacheAccess(siMethod, handle != null);
+			if(handle == null) {
+				// A method inherited from several interfaces can be passed with
+				// a different declaring class than it was linked with.
+				handle =
+					spread(
+						MethodHandleLinker.link(
+							_substituteInterface,
+							_substitutedClass,
+							siMethod,
+							false
+						),
+						siMethod
+					);
+			}
+			return (Object)handle.invokeExact(substitutedObject, args);
+		}
+	}
+}
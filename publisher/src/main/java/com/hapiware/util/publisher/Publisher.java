@@ -0,0 +1,1442 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.hapiware.util.publisher.annotation.BytecodeGeneration;
+import com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdAnnotationError;
+import com.hapiware.util.publisher.annotation.IdentityHashCaching;
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+import com.hapiware.util.publisher.annotation.NoCaching;
+import com.hapiware.util.publisher.annotation.Substitutes;
+
+/**
+ * {@code Publisher} is a Java utility library to make private methods public in a type safe
+ * manner very easily. Type safety is created by using <i>public substitute interfaces</i> (or
+ * <i>substitute interface</i> for short). Substitute interface is a Java {@code interface} where
+ * all the wanted private methods from the class to be substituted are duplicated. Publishing
+ * a substitute interface creates a <i>public substitute object</i> (or <i>substitute object</i>
+ * for short) which can be used to write unit tests for private methods of the substituted class.
+ * <p>
+ * Using {@code Publisher} is a very convenient way to write unit tests for private methods and
+ * still maintain type safety.
+ * 
+ * 
+ * 
+ * <h3>Using {@code Publisher}</h3>
+ * <h4>Normal usage</h4>
+ * To use private methods of the instantiated class type safely a substitute interface must be
+ * introduced. The substitute interface will have all the needed private methods with <u>exactly
+ * the same signature</u> but with <u>different access modifiers</u>. The access modifier in the
+ * substitute interface must be always {@code public}. The substitute interface must be published
+ * with {@link #publish(Class, Object)} along respective instantiated class to create a substitute
+ * object. For example, if the class is like this:
+ * <pre>
+ * 	class HashGenerator {
+ * 		...
+ * 		private String createDigest(String algorithm, String input)
+ * 		{
+ * 			// Some implementation.
+ * 		}
+ * 		...
+ * 		private static byte[] concat(byte[] left, byte[] right)
+ * 		{
+ * 			byte[] retVal = new byte[left.length + right.length];
+ * 			System.arraycopy(left, 0, retVal, 0, left.length);
+ *			System.arraycopy(right, 0, retVal, left.length, right.length);
+ *			return retVal;
+ *		}
+ * 		...
+ * 	}
+ * </pre> 
+ * 
+ * A substitute interface for the class would be:
+ * <pre>
+ * 	interface SHashGenerator
+ * 	{
+ * 		public String createDigest(String algorithm, String input);
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * And the unit test code could be:
+ * <pre>
+ * 	{@code @Test}
+ *	public void concatTest()
+ *	{
+ *		HashGenerator hashGenerator = new HashGenerator();
+ *		SHashGenerator substitute = Publisher.publish(SHashGenerator.class, hashGenerator);
+ *		byte[] left = { 1, 2, 3, 4 };
+ *		byte[] right = { 10, 20, 30, 40, 50 };
+ *		byte[] result = substitute.concat(left, right);
+ *		assertEquals(9, result.length);
+ *		int total = 0;
+ *		for(byte b : result)
+ *			total += b;
+ *		assertEquals(160, total);
+ *	}
+ * </pre>
+ * 
+ * 
+ * <h4><a name="publisher-usage-with-loops">Usage with loops</a></h4>
+ * If there is a need to create multiple instances of the substituted class (i.e. the one having
+ * private methods) repetitively then {@link #create(Class)} and {@link #publish(Object)} methods
+ * can be used together and achieve better performance than using {@link #publish(Class, Object)}
+ * alone. Here is a continuation to the example above:
+ * <pre>
+ * 	{@code @Test}
+ *	public void digestTest()
+ *	{
+ *		Publisher<SHashGenerator> publisher = Publisher.create(SHashGenerator.class);
+ *		for(int i = 0; i < _table.length; i++) {
+ *			HashGenerator hashGenerator = new HashGenerator(i);
+ *			SHashGenerator substitute = publisher.publish(hashGenerator);
+ *			String result = substitute.createDigest("sha-1", _table[i]);
+ *			// Make assertions.
+ *		}
+ *	}
+ * </pre>
+ * 
+ * Finding a publishing policy (i.e. checking the annotations of the substitute interface) is
+ * done only once per substitute interface and the result is shared by all the later
+ * {@link #publish(Class, Object)}, {@link #publish(Class, Class)} and {@link #create(Class)} calls.
+ * The shared policies are stored with {@link ClassValue} and thus they do not prevent unloading
+ * the class loader of the substitute interface. If the annotations break the {@link Id}
+ * constraints nothing is stored and {@link IdAnnotationError} is thrown on every call.
+ * <p>
+ * All the caches of {@code Publisher} (the shared policies, the resolved private methods,
+ * the proxy classes etc.) are bounded. By default every cache holds at most 1024 classes and
+ * the least recently used classes are evicted (the limit can be changed with the system property
+ * {@code com.hapiware.util.publisher.cache.maximumSize}). The hits, misses and evictions are
+ * counted by {@link PublisherMetrics#getSubstituteCacheHits()} and its siblings. In long-running
+ * JVMs (e.g. an IDE or a build daemon running many test suites) the caches can also be emptied
+ * explicitly with {@link #clearCaches()}, for example after a test class:
+ * <pre>
+ * 	{@code @AfterClass}
+ * 	public void releaseSubstitutes()
+ * 	{
+ * 		Publisher.clearCaches();
+ * 	}
+ * </pre>
+ * <p>
+ * With every caching policy the resolved private methods are cached per substituted class and
+ * shared by all the substitute objects. Each substitute object is bound only to the substituted
+ * object it was published with, so in the loop above every {@code substitute} calls its own
+ * {@code hashGenerator}. The proxy class of the substitute interface is created and looked up
+ * only once, so publishing allocates just the substitute object and a small handler holding
+ * the substituted object.
+ *
+ * 
+ * <h4><a name="publisher-rebindable-substitutes">Rebindable substitutes</a></h4>
+ * When millions of substituted objects are iterated even the single substitute object per
+ * round shows up as garbage. {@link #rebindable(Class)} creates a substitute once and its
+ * companion {@link RebindableSubstitute} binds it to the next substituted object without any
+ * allocation:
+ * <pre>
+ * 	RebindableSubstitute&lt;SHashGenerator&gt; rebindable =
+ * 		Publisher.rebindable(SHashGenerator.class);
+ * 	SHashGenerator substitute = rebindable.substitute();
+ * 	for(int i = 0; i &lt; _table.length; i++) {
+ * 		rebindable.bind(new HashGenerator(i));
+ * 		String result = substitute.createDigest("sha-1", _table[i]);
+ * 		// Make assertions.
+ * 	}
+ * </pre>
+ * A rebindable substitute can be used only by the thread which created it. Using it from
+ * another thread throws {@link IllegalStateException}, so create one per thread.
+ *
+ * 
+ * <h4><a name="publisher-parallel-publishing">Parallel publishing</a></h4>
+ * The loop above runs in a single thread. With a large number of substituted objects
+ * {@link #publishAll(Spliterator, Function)} (or {@link #publishAll(Stream, Function)}) can be
+ * used instead to publish the objects and call the substitutes in parallel with
+ * {@link ForkJoinPool#commonPool()}. Another pool can be given with
+ * {@link #publishAll(Spliterator, Function, ForkJoinPool)}. The objects are split like with
+ * parallel streams and all the workers share the publishing policy of the {@code Publisher},
+ * so the private methods are resolved only once. The results are returned in the encounter
+ * order of the substituted objects. For example:
+ * <pre>
+ * 	Publisher&lt;SHashGenerator&gt; publisher = Publisher.create(SHashGenerator.class);
+ * 	List&lt;String&gt; digests =
+ * 		publisher.publishAll(
+ * 			generators.spliterator(),
+ * 			new Function&lt;SHashGenerator, String&gt;()
+ * 			{
+ * 				public String apply(SHashGenerator substitute)
+ * 				{
+ * 					return substitute.createDigest("sha-1", "input");
+ * 				}
+ * 			}
+ * 		);
+ * </pre>
+ * The function is called from several threads at the same time, but every substituted object
+ * is called only from one thread.
+ *
+ * 
+ * <h4><a name="publisher-static-methods">Static methods</a></h4>
+ * If there is a need to test only private static methods of the substituted class
+ * {@link #publish(Class, Class)} method can be used. The benefit is that there is no need to
+ * create an instance of the substituted class. Let's change the {@code concatTest()} example test
+ * method above to use {@link #publish(Class, Class)} method. A substitute interface would be:
+ * <pre>
+ * 	interface SHashGenerator
+ * 	{
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * And the unit test:
+ * <pre>
+ * 	{@code @Test}
+ *	public void concatTest()
+ *	{
+ *		SHashGenerator substitute = Publisher.publish(SHashGenerator.class, HashGenerator.class);
+ *		byte[] left = { 1, 2, 3, 4 };
+ *		byte[] right = { 10, 20, 30, 40, 50 };
+ *		byte[] result = substitute.concat(left, right);
+ *		assertEquals(9, result.length);
+ *		int total = 0;
+ *		for(byte b : result)
+ *			total += b;
+ *		assertEquals(160, total);
+ *	}
+ * </pre>
+ *
+ *
+ * <h4><a name="publisher-inherited-methods">Inherited private methods</a></h4>
+ * Private methods are searched also from the superclasses of the substituted class, so
+ * a substitute object published with an instance of a subclass can call the private methods of
+ * its superclasses. If a subclass and its superclass both declare a method with the same
+ * signature the method of the subclass is called. The methods of the whole hierarchy are
+ * collected only once per substituted class and shared by all the later publishings.
+ *
+ *
+ * <h4><a name="publisher-private-fields">Private fields</a></h4>
+ * Private fields of the substituted class can be read and written through the substitute
+ * interface by marking getter and setter methods with
+ * {@link com.hapiware.util.publisher.annotation.FieldAccessor}. Static fields work with
+ * {@link #publish(Class, Class)} like static methods do. For example:
+ * <pre>
+ * 	interface SHashGenerator
+ * 	{
+ * 		{@code @FieldAccessor}("_algorithm") public String getAlgorithm();
+ * 		public String createDigest(String algorithm, String value);
+ * 	}
+ * </pre>
+ *
+ *
+ * <h4><a name="publisher-private-constructors">Private constructors</a></h4>
+ * A substitute method returning the substituted class is a factory method. If the substituted
+ * class does not have a method with the same name and parameters (e.g. a private static factory
+ * method), the factory method calls a (possibly private) constructor having the same parameters.
+ * Constructors work like static methods, so there is no need to have an instance of
+ * the substituted class. The constructor is resolved only once, and with
+ * <a href="#publisher-bytecode-generation">bytecode generation</a> or
+ * <a href="#publisher-generated-substitutes">generated substitutes</a> creating objects is as
+ * fast as with {@code new}. For example:
+ * <pre>
+ * 	interface SHashGeneratorFactory
+ * 	{
+ * 		public HashGenerator create(String algorithm, int rounds);
+ * 	}
+ *
+ * 	SHashGeneratorFactory factory =
+ * 		Publisher.publish(SHashGeneratorFactory.class, HashGenerator.class);
+ * 	for(int i = 0; i < 1000000; i++)
+ * 		fuzz(factory.create("sha-1", i));
+ * </pre>
+ *
+ *
+ * <h4><a name="publisher-functional-interfaces">Functional interfaces</a></h4>
+ * For hot loops a single private method can be extracted as a functional interface with
+ * {@link #extract(Class, Object, String, Class...)} or {@link #extract(Class, Class, String,
+ * Class...)}. The functional object is generated with
+ * {@link java.lang.invoke.LambdaMetafactory} and it calls the private method directly like
+ * a method reference. There is no argument array and there is no boxing with primitive
+ * specializations like {@link java.util.function.IntBinaryOperator}. Generic functional
+ * interfaces (e.g. {@link java.util.function.ToDoubleBiFunction}) are adapted with casts and
+ * unboxing. On Java 8 the functional object is a {@link java.lang.reflect.Proxy} instead.
+ * For example:
+ * <pre>
+ * 	IntBinaryOperator add =
+ * 		Publisher.extract(IntBinaryOperator.class, new Calculator(), "add", int.class, int.class);
+ * 	for(int i = 0; i < 1000000; i++)
+ * 		assertEquals(2 * i, add.applyAsInt(i, i));
+ * </pre>
+ *
+ *
+ * <h4><a name="publisher-bulk-invocation">Bulk invocation</a></h4>
+ * Table driven tests can call a private method once for every row of an argument table with
+ * {@link #invokeAll(Method, Object, Object[][], Object[])}. The substitute method is given as
+ * a {@link Method} of the substitute interface and it is resolved only once for the whole
+ * table. The rows are then called in a tight loop without proxy dispatch and without copying
+ * the argument arrays, so the cost per row is close to a direct call. The results are written to
+ * an array given by the caller. If all the parameters and the return value of the method are
+ * {@code int}s, {@code long}s or {@code double}s the primitive overloads (e.g.
+ * {@link #invokeAll(Method, Object, int[][], int[])}) do not box anything. Static methods are
+ * called with the overloads taking a {@link Class}. For example:
+ * <pre>
+ * 	int[][] rows = new int[1000000][];
+ * 	for(int i = 0; i < rows.length; i++)
+ * 		rows[i] = new int[] { i, i };
+ * 	int[] results = new int[rows.length];
+ * 	Publisher.invokeAll(
+ * 		SCalculator.class.getMethod("add", int.class, int.class),
+ * 		new Calculator(),
+ * 		rows,
+ * 		results
+ * 	);
+ * </pre>
+ *
+ *
+ * <h4><a name="publisher-eager-linking">Eager linking</a></h4>
+ * Normally the substitute methods are resolved lazily and a missing method is reported only when
+ * it is called for the first time. {@link #create(Class, Class)} resolves all the substitute
+ * methods of the given substituted class already when the {@code Publisher} is created and
+ * reports all the mismatches at once with {@link SubstituteLinkageError}. The returned
+ * {@code Publisher} does not do any lookups in {@link #publish(Object)} and the first calls of
+ * the substitute methods are as fast as the later ones. Annotations of the substitute interface
+ * are ignored. For example:
+ * <pre>
+ * 	{@code @Test}
+ *	public void digestTest()
+ *	{
+ *		Publisher<SHashGenerator> publisher =
+ *			Publisher.create(SHashGenerator.class, HashGenerator.class);
+ *		for(int i = 0; i < _table.length; i++) {
+ *			SHashGenerator substitute = publisher.publish(new HashGenerator(i));
+ *			String result = substitute.createDigest("sha-1", _table[i]);
+ *			// Make assertions.
+ *		}
+ *	}
+ * </pre>
+ * 
+ * 
+ * 
+ * <h4>Exceptions</h4>
+ * If a substitute interface has a method which does not exist in the substituted class then
+ * {@link SubstituteMethodNameConflictError} is thrown. Most frequently this error is thrown
+ * because there is a typo in the substitute interface. So, if {@link SubstituteMethodNameConflictError}
+ * is thrown check the error message carefully and start comparing your substitute interface
+ * and substituted class. With <a href="#publisher-eager-linking">eager linking</a> all such
+ * methods are reported at once with {@link SubstituteLinkageError}.
+ * 
+ * 
+ * <h4>Thread safety</h4>
+ * {@code Publisher} objects, publishing policies and substitute objects can be shared between
+ * threads. All the caching policies can be used from several threads at the same time, for
+ * example, when unit tests are run in parallel. The caches are read without locking. Of course,
+ * the substituted objects themselves are not made thread safe by {@code Publisher}.
+ * 
+ * 
+ * 
+ * <h3>Recommended conventions</h3>
+ * <h4>Where to put substitute interfaces?</h4>
+ * The recommendation is that substitute interfaces are created as a nested interface inside
+ * the test class. For example:
+ * <pre>
+ * 	public class HashGeneratorTest
+ * 	{
+ * 		interface SHashGenerator
+ * 		{
+ * 			public String createDigest(String algorithm, String input);
+ * 			public byte[] concat(byte[] left, byte[] right);
+ * 		}
+ * 
+ * 		{@code @Test}
+ * 		public void digestTest()
+ * 		{
+ * 			...
+ * 		}
+ * 
+ * 		...
+ * 	}
+ * </pre>
+ * 
+ * 
+ * <h4>Naming</h4>
+ * A programmer is absolutely free to select whatever name he/she sees fit. There are no
+ * limitations other than the Java specification states. However, it is recommended to use one
+ * of the following prefixes for the substitute interface:
+ * 	<ul>
+ * 		<li><b>S</b>, which stands for <i>substitute</i></li>
+ * 		<li><b>SI</b>, which stands for <i>substitute interface</i></li>
+ * 		<li><b>PS</b>, which stands for <i>public substitute</i></li>
+ * 		<li><b>PSI</b>, which stands for <i>public substitute interface</i></li>
+ * 	</ul>
+ * 
+ * This way the unit test writing is simple and the substitute interface and the original class
+ * can be easily identified.
+ * 
+ * 
+ * 
+ * <h3>Performance</h3>
+ * Because the implementation relies on {@link java.lang.reflect.Proxy} the performance is not
+ * as good as with direct calls (which, of course, cannot be made to {@code private} methods).
+ * To improve performance {@code Publisher} can be directed to use different caching policies.
+ * A caching policy is selected with annotations. There are several different publishing policies
+ * implemented. The most conservative one is called normal caching
+ * (<a href="#publisher-normal-caching">the one created with {@link Id} annotation</a>).
+ * <p>
+ * Without annotations the hot methods are linked automatically
+ * (see <a href="#publisher-adaptive-dispatch">Adaptive dispatch</a>).
+ * <p>
+ * There is also a simple trick to improve performance with a {@link NoCaching} annotation.
+ * For more information see <a href="#publisher-disabling-caching">Disabling caching</a>.
+ * <p>
+ * To find out which substitute methods are hot and how much the publishing policies cost,
+ * {@link PublisherMetrics} can be enabled. It collects call counts, latencies and cache hits per
+ * substitute method and exports them through JMX.
+ * <p>
+ * On Java 11 or later {@code Publisher} also records Java Flight Recorder events in
+ * the category <i>Publisher</i>, so the time spent in resolving publishing policies, creating
+ * substitutes, linking private methods and (optionally) calling them can be seen from
+ * a recording without any extra setup:
+ * 	<ul>
+ * 		<li>{@code com.hapiware.util.publisher.PolicyResolution}</li>
+ * 		<li>{@code com.hapiware.util.publisher.SubstituteCreation} (threshold 10 us)</li>
+ * 		<li>{@code com.hapiware.util.publisher.Linkage}</li>
+ * 		<li>
+ * 			{@code com.hapiware.util.publisher.Invocation} (disabled, threshold 1 ms, proxy based
+ * 			policies only)
+ * 		</li>
+ * 	</ul>
+ * For example:
+ * <pre>
+ * 	jcmd &lt;pid&gt; JFR.start com.hapiware.util.publisher.Invocation#enabled=true
+ * </pre>
+ * <p>
+ * The publisher jar is a multi-release jar running on Java 8 or later. Newer JVMs automatically
+ * use faster ways to access the private members: private lookups and {@code VarHandle}s on
+ * Java 9 or later and hidden classes (for <a href="#publisher-bytecode-generation">bytecode
+ * generation</a>) on Java 17 or later. The system property
+ * {@code com.hapiware.util.publisher.engine} (e.g. {@code 8} or {@code 9}) limits the features
+ * to an older release.
+ *
+ *
+ * <h4><a name="publisher-normal-caching">Normal caching</a></h4>
+ * If it seems that there is a performance issue with a normal usage the performance can be
+ * improved by introducing a caching policy for published methods. This is done by introducing
+ * an index id for each of the methods in the substitute interface. {@link Id} annotation is
+ * used for this purpouse. For example:
+ * <pre>
+ * 	interface SHashGenerator
+ * 	{
+ * 		{@code @Id}(0) public String createDigest(String algorithm, String input);
+ * 		{@code @Id}(1) public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * Constraints for {@link Id} values are:
+ * 	<ul>
+ * 		<li>
+ * 			<u>Every method in the substitute interface must have an {@link Id} annotation</u>
+ * 			to introduce a normal caching policy.
+ * 		</li>
+ * 		<li>Same value is not allowed for multiple methods.</li>
+ * 		<li>Value cannot be negative.</li>
+ * 		<li>Values must be sequential.</li>
+ * 		<li>The first value must be zero (0).</li>
+ * 	</ul>
+ * 
+ * If any constraint is broken then {@link IdAnnotationError} is thrown. 
+ * <p>
+ * <u>Normal caching is the recommended caching policy</u>, if caching is needed.
+ * <p>
+ * {@link Id} values are read only once when the publishing policy is created. They are not
+ * needed at all if {@link CachingPublishingPolicy} is given directly to
+ * {@link #create(PublishingPolicy)}. In that case the methods are cached in declaration order.
+ * 
+ * 
+ * <h4><a name="publisher-adaptive-dispatch">Adaptive dispatch</a></h4>
+ * If the substitute interface has no annotations at all {@link AdaptivePublishingPolicy} is
+ * used. Every substitute method starts with plain reflective calls, which need no linking, and
+ * the calls are counted per substitute method. When a method has been called more than
+ * a threshold number of times (1000 by default) it is promoted to a linked
+ * {@link java.lang.invoke.MethodHandle} like with
+ * <a href="#publisher-method-handle-caching">method handle caching</a>. So the rarely called
+ * methods stay cheap to set up and the hot methods get fast. The threshold can be changed with
+ * the system property {@code com.hapiware.util.publisher.adaptive.threshold} ({@code 0} links
+ * every method on its first call).
+ * <p>
+ * The current tier of each method can be checked with {@link #tiers(Class, Class)}:
+ * <pre>
+ * 	Map&lt;Method, AdaptivePublishingPolicy.Tier&gt; tiers =
+ * 		Publisher.tiers(SHashGenerator.class, HashGenerator.class);
+ * </pre>
+ *
+ * Exceptions thrown by the private methods are wrapped like with
+ * <a href="#publisher-disabling-caching">disabled caching</a> in both tiers (i.e. the substitute
+ * throws {@link java.lang.reflect.UndeclaredThrowableException}).
+ *
+ *
+ * <h4><a name="publisher-disabling-caching">Disabling caching</a></h4>
+ * To disable caching use {@link NoCaching} annotation. The other annotations are then completely
+ * ignored and no caching is used. For example:
+ * <pre>
+ * 	{@code @NoCaching}
+ * 	interface SHashGenerator
+ * 	{
+ * 		{@code @Id}(0) public String createDigest(String algorithm, String input);
+ * 		{@code @Id}(1) public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * <b>Notice</b> also that <u>using a {@link NoCaching} annotation can improve performance</u>
+ * of the first publishing because other annotations are not checked and thus the time used for
+ * finding a proper publishing policy is greatly diminished. This is true even if no {@link Id}
+ * annotations are used. The later publishings use the policy found by the first one (see
+ * <a href="#publisher-usage-with-loops">Usage with loops</a>). 
+ * <p>
+ * Even without caching the private methods are not searched with reflection on every call.
+ * The methods of every substituted class (including the ones inherited from its superclasses)
+ * are indexed once and the index is shared by all the publishing policies and substitute
+ * interfaces.
+ * 
+ * 
+ * <h4><a name="publisher-method-handle-caching">Method handle caching</a></h4>
+ * Method handle caching is turned on by marking the substitute interface with
+ * {@link MethodHandleCaching} annotation. Every substitute method is resolved only once to
+ * a {@link java.lang.invoke.MethodHandle} which is then used for all the later calls. This
+ * avoids the access checks and argument array copying of {@link Method#invoke(Object, Object...)}
+ * and thus it is the best choice when private methods are called in tight loops. {@link Id}
+ * annotations are completely ignored. {@link MethodHandleCaching} overrides
+ * {@link IdentityHashCaching} and {@link ConcurrentIdentityHashCaching} and is overridden by
+ * {@link NoCaching} and {@link BytecodeGeneration}.
+ * <p>
+ * Here is an example:
+ * <pre>
+ * 	{@code @MethodHandleCaching}
+ * 	interface SHashGenerator
+ * 	{
+ * 		public String createDigest(String algorithm, String input);
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * The method handle caching policy can also be selected without annotations by giving
+ * a {@link MethodHandlePublishingPolicy} to {@link #create(PublishingPolicy)}:
+ * <pre>
+ * 	Publisher&lt;SHashGenerator&gt; publisher =
+ * 		Publisher.create(
+ * 			new MethodHandlePublishingPolicy&lt;SHashGenerator&gt;(SHashGenerator.class)
+ * 		);
+ * </pre>
+ * 
+ * 
+ * <h4><a name="publisher-generated-substitutes">Substitutes generated at compile time</a></h4>
+ * If {@code publisher-processor} annotation processor is in the compiler's class path (or
+ * processor path) substitute classes can be generated already at compile time. This is done by
+ * marking the substitute interface with {@link Substitutes} annotation which names the
+ * substituted class. For example:
+ * <pre>
+ * 	{@code @Substitutes}(HashGenerator.class)
+ * 	interface SHashGenerator
+ * 	{
+ * 		public String createDigest(String algorithm, String input);
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * The annotation processor checks that every substitute method exists in the substituted class
+ * and breaks the build if it does not. At runtime {@code Publisher} finds the generated class
+ * and uses it for the substituted class (see {@link GeneratedPublishingPolicy}) so there is no
+ * reflection involved when substitute objects are created. The generated class is used instead of
+ * all the other caching policies but {@link NoCaching} overrides {@link Substitutes}. If the
+ * generated class does not exist {@link Substitutes} is ignored.
+ * <p>
+ * Because the generated class is a top level class in the same package as the substitute
+ * interface, the substitute interface must not be {@code private}.
+ * 
+ * 
+ * <h4><a name="publisher-bytecode-generation">Bytecode generation</a></h4>
+ * Bytecode generation is turned on by marking the substitute interface with
+ * {@link BytecodeGeneration} annotation. Substitute objects are then not
+ * {@link java.lang.reflect.Proxy} objects but instances of hidden classes generated for each
+ * substitute interface and substituted class pair. The generated methods call the private methods
+ * through constant {@link java.lang.invoke.MethodHandle}s without argument arrays or boxing and
+ * thus JIT can inline the calls almost like direct calls. Bytecode generation is the fastest
+ * policy when the same substitute interface is used with {@link #create(Class)} and
+ * {@link #publish(Object)} in loops. {@link BytecodeGeneration} overrides all the other caching
+ * annotations and is overridden by {@link NoCaching}.
+ * <p>
+ * Hidden classes need Java 17 or later. If a hidden class cannot be defined (for example,
+ * the JVM is too old or the substitute interface is in a module not open to {@code Publisher})
+ * then <a href="#publisher-method-handle-caching">method handle caching</a> is used instead.
+ * 
+ * 
+ * <h4><a name="publisher-identity-hash-caching">Identity hash caching</a></h4>
+ * Identity hash caching is turned on by marking the substitute interface with
+ * {@link IdentityHashCaching} annotation. {@link Id} annotations are completely ignored and
+ * there is no need to remove possibly existing {@link Id} annotations. {@link IdentityHashCaching}
+ * overrides {@link ConcurrentIdentityHashCaching} and is overridden by {@link NoCaching} and
+ * {@link MethodHandleCaching}.
+ * <p>
+ * Here is an example:
+ * <pre>
+ * 	{@code @IdentityHashCaching}
+ * 	interface SHashGenerator
+ * 	{
+ * 		public String createDigest(String algorithm, String input);
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * Comparing to the <a href="#publisher-normal-caching">normal caching</a> the identity hash
+ * caching is simpler to use because the only annotation needed is {@link IdentityHashCaching}
+ * annotation. The cache is keyed by the identities of the substitute interface {@link Method}s.
+ * {@link System#identityHashCode(Object)} is used only to find a slot in the cache and the keys
+ * are compared by reference. So, even if two {@link Method}s happen to have the same identity hash
+ * code they never share a cache entry. Earlier versions used the identity hash code alone as
+ * a key and could fail with {@link AmbiguousMethodNameError}s.
+ * 
+ * 
+ * 
+ * <h4>Concurrent identity hash caching</h4>
+ * Concurrent identity hash caching is turned on by marking the substitute interface with
+ * {@link ConcurrentIdentityHashCaching} annotation. {@link Id} annotations are completely
+ * ignored and there is no need to remove possibly existing {@link Id} annotations.
+ * {@link ConcurrentIdentityHashCaching} is overridden by {@link IdentityHashCaching},
+ * {@link MethodHandleCaching} and {@link NoCaching}.
+ * <p>
+ * Here is an example. 
+ * <pre>
+ * 	{@code @ConcurrentIdentityHashCaching}
+ * 	interface SHashGenerator
+ * 	{
+ * 		public String createDigest(String algorithm, String input);
+ * 		public byte[] concat(byte[] left, byte[] right);
+ * 	}
+ * </pre>
+ * 
+ * This and <a href="#publisher-identity-hash-caching">identity hash caching</a> use the same
+ * lock-free cache which is safe to use from several threads. All which is true for
+ * <a href="#publisher-identity-hash-caching">identity hash caching</a> is true for concurrent
+ * hash caching policy, also.
+ * 
+ * 
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ * 
+ * @see Id
+ * @see NoCaching
+ * @see Substitutes
+ * @see BytecodeGeneration
+ * @see MethodHandleCaching
+ * @see IdentityHashCaching
+ * @see ConcurrentIdentityHashCaching
+ */
+final public class Publisher<PSI>
+{
+	private final static SubstituteCache<PublishingPolicy<?>> _publishingPolicies =
+		new SubstituteCache<PublishingPolicy<?>>()
+		{
+			protected PublishingPolicy<?> computeValue(Class<?> substituteInterface)
+			{
+				PublisherMetrics.publishingPolicyCacheMiss();
+				Object event = PublisherEvents.beginPolicyResolution();
+				PublishingPolicy<?> publishingPolicy = null;
+				try {
+					publishingPolicy = findPublishingPolicy(substituteInterface);
+					return publishingPolicy;
+				}
+				finally {
+					PublisherEvents.endPolicyResolution(
+						event,
+						substituteInterface,
+						publishingPolicy
+					);
+				}
+			}
+		};
+	
+	private final PublishingPolicy<PSI> _publishingPolicy; 
+	
+	
+	private Publisher(PublishingPolicy<PSI> publishingPolicy)
+	{
+		_publishingPolicy = publishingPolicy;
+	}
+	
+	/**
+	 * Creates a substitute object for an object which have private methods to be published.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedObject
+	 * 		An object to be substituted (i.e. the object which does the real work).
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 * 
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If substitute interface has a method which does not exist in the substituted class. 
+	 * 
+	 * @throws IdAnnotationError
+	 * 		If any of the {@link Id} constraints are broken.
+	 */
+	public static <PSI> PSI publish(
+		final Class<PSI> substituteInterface,
+		final Object substitutedObject
+	)
+	{
+		return (PSI)publishingPolicy(substituteInterface).publish(substitutedObject);
+	}
+	
+	/**
+	 * Creates a substitute object for a class which have private static methods to be published.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClass
+	 * 		A class to be substituted (i.e. the class which static methods do the real work).
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 * 
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If substitute interface has a method which does not exist in the substituted class. 
+	 * 
+	 * @throws IdAnnotationError
+	 * 		If any of the {@link Id} constraints are broken.
+	 */
+	public static <PSI> PSI publish(
+		final Class<PSI> substituteInterface,
+		final Class<?> substitutedClass
+	)
+	{
+		return (PSI)publishingPolicy(substituteInterface).publish(substitutedClass);
+	}
+	
+	/**
+	 * Creates a substitute object for an object which have private methods to be published.
+	 * This is supposed to be used together with {@link #create(Class)} method in loops or
+	 * other places where the substitute objects are created in a frequent manner. See
+	 * <a href="#publisher-usage-with-loops">Usage with loops</a>.
+	 * 
+	 * @param substitutedObject
+	 * 		An object to be substituted (i.e. the object which does the real work).
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 * 
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If substitute interface has a method which does not exist in the substituted class.
+	 * 
+	 *  @see #create(Class)
+	 */
+	public PSI publish(final Object substitutedObject)
+	{
+		return (PSI)_publishingPolicy.publish(substitutedObject);
+	}
+
+	/**
+	 * Publishes every substituted object and applies {@code call} to the substitute objects in
+	 * parallel with {@link ForkJoinPool#commonPool()}. See
+	 * <a href="#publisher-parallel-publishing">Parallel publishing</a>.
+	 * 
+	 * @param <R>
+	 * 		A result type.
+	 * 
+	 * @param substitutedObjects
+	 * 		Objects to be substituted.
+	 * 
+	 * @param call
+	 * 		A function calling the substitute object (e.g.
+	 * 		{@code s -> s.createDigest("sha-1", "input")}).
+	 * 
+	 * @return
+	 * 		An unmodifiable list of the results in the encounter order of
+	 * 		{@code substitutedObjects}.
+	 * 
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If substitute interface has a method which does not exist in the substituted class.
+	 */
+	public <R> List<R> publishAll(
+		final Spliterator<?> substitutedObjects,
+		final Function<? super PSI, ? extends R> call
+	)
+	{
+		return publishAll(substitutedObjects, call, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Publishes every substituted object and applies {@code call} to the substitute objects in
+	 * parallel with the given pool. See
+	 * <a href="#publisher-parallel-publishing">Parallel publishing</a>.
+	 * 
+	 * @param <R>
+	 * 		A result type.
+	 * 
+	 * @param substitutedObjects
+	 * 		Objects to be substituted.
+	 * 
+	 * @param call
+	 * 		A function calling the substitute object.
+	 * 
+	 * @param pool
+	 * 		A pool running the calls.
+	 * 
+	 * @return
+	 * 		An unmodifiable list of the results in the encounter order of
+	 * 		{@code substitutedObjects}.
+	 * 
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If substitute interface has a method which does not exist in the substituted class.
+	 */
+	public <R> List<R> publishAll(
+		final Spliterator<?> substitutedObjects,
+		final Function<? super PSI, ? extends R> call,
+		final ForkJoinPool pool
+	)
+	{
+		return ParallelPublisher.publishAll(this, substitutedObjects, call, pool);
+	}
+	
+	/**
+	 * Publishes every substituted object of a stream and applies {@code call} to the substitute
+	 * objects in parallel with {@link ForkJoinPool#commonPool()}. The stream is consumed.
+	 * 
+	 * @see #publishAll(Spliterator, Function)
+	 */
+	public <R> List<R> publishAll(
+		final Stream<?> substitutedObjects,
+		final Function<? super PSI, ? extends R> call
+	)
+	{
+		return publishAll(substitutedObjects.spliterator(), call, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Publishes every substituted object of a stream and applies {@code call} to the substitute
+	 * objects in parallel with the given pool. The stream is consumed.
+	 * 
+	 * @see #publishAll(Spliterator, Function, ForkJoinPool)
+	 */
+	public <R> List<R> publishAll(
+		final Stream<?> substitutedObjects,
+		final Function<? super PSI, ? extends R> call,
+		final ForkJoinPool pool
+	)
+	{
+		return publishAll(substitutedObjects.spliterator(), call, pool);
+	}
+
+	/**
+	 * Creates a {@link Publisher} object to used later. This is supposed to be used together
+	 * with {@link #publish(Object)} method in loops or other places where the substitute
+	 * objects are created in a frequent manner.
+	 * See <a href="#publisher-usage-with-loops">Usage with loops</a>.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @return
+	 * 		A publisher to be used later.
+	 * 
+	 * @throws IdAnnotationError
+	 * 		If any of the {@link Id} constraints are broken.
+	 * 
+	 * @see #publish(Object)
+	 */
+	public static <PSI> Publisher<PSI> create(
+		final Class<PSI> substituteInterface
+	)
+	{
+		return new Publisher<PSI>(publishingPolicy(substituteInterface));
+	}
+
+	/**
+	 * Creates a {@link Publisher} object which uses the given publishing policy instead of
+	 * the one selected with annotations. This can be used, for example, to select
+	 * {@link MethodHandlePublishingPolicy} without annotating the substitute interface.
+	 * See <a href="#publisher-method-handle-caching">Method handle caching</a>.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param publishingPolicy
+	 * 		A publishing policy for the substitute interface.
+	 * 
+	 * @return
+	 * 		A publisher to be used later.
+	 * 
+	 * @see #publish(Object)
+	 */
+	public static <PSI> Publisher<PSI> create(
+		final PublishingPolicy<PSI> publishingPolicy
+	)
+	{
+		if(publishingPolicy == null)
+			throw new IllegalArgumentException("'publishingPolicy' cannot be null.");
+		return new Publisher<PSI>(publishingPolicy);
+	}
+
+	/**
+	 * Creates a {@link Publisher} object where all the substitute interface methods are
+	 * already linked to the private methods of {@code substitutedClass}. {@link #publish(Object)}
+	 * of the returned publisher does not do any lookups. Annotations of the substitute interface
+	 * are ignored. See <a href="#publisher-eager-linking">Eager linking</a>.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClass
+	 * 		A class to be substituted. {@link #publish(Object)} accepts only instances of this
+	 * 		class.
+	 * 
+	 * @return
+	 * 		A publisher to be used later.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If {@code substituteInterface} argument is not an interface.
+	 * 
+	 * @throws SubstituteLinkageError
+	 * 		If any of the substitute interface methods cannot be linked.
+	 * 
+	 * @see #publish(Object)
+	 */
+	public static <PSI> Publisher<PSI> create(
+		final Class<PSI> substituteInterface,
+		final Class<?> substitutedClass
+	)
+	{
+		checkInterface(substituteInterface);
+		return
+			new Publisher<PSI>(
+				new PrelinkedPublishingPolicy<PSI>(substituteInterface, substitutedClass)
+			);
+	}
+
+	/**
+	 * Extracts a private method of an object as a functional interface (e.g.
+	 * {@link java.util.function.IntBinaryOperator}). The object is bound as the receiver of
+	 * the private method. See <a href="#publisher-functional-interfaces">Functional
+	 * interfaces</a>.
+	 *
+	 * @param <F>
+	 * 		A functional interface.
+	 *
+	 * @param functionalInterface
+	 * 		A functional interface class.
+	 *
+	 * @param substitutedObject
+	 * 		An object which private method is extracted.
+	 *
+	 * @param methodName
+	 * 		A name of the private method.
+	 *
+	 * @param parameterTypes
+	 * 		Parameter types of the private method.
+	 *
+	 * @return
+	 * 		A functional object calling the private method.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the method does not exist in the class of {@code substitutedObject}.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code functionalInterface} is not a functional interface or its method does not
+	 * 		match the private method.
+	 */
+	public static <F> F extract(
+		final Class<F> functionalInterface,
+		final Object substitutedObject,
+		final String methodName,
+		final Class<?>... parameterTypes
+	)
+	{
+		return
+			FunctionExtractor.extract(
+				functionalInterface,
+				substitutedObject.getClass(),
+				substitutedObject,
+				methodName,
+				parameterTypes
+			);
+	}
+
+	/**
+	 * Extracts a private method of a class as a functional interface (e.g.
+	 * {@link java.util.function.IntBinaryOperator}). If the private method is not static
+	 * the first parameter of the functional interface method is the receiver (like with
+	 * {@code PrivateMethods::add} method references). See
+	 * <a href="#publisher-functional-interfaces">Functional interfaces</a>.
+	 *
+	 * @param <F>
+	 * 		A functional interface.
+	 *
+	 * @param functionalInterface
+	 * 		A functional interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A class which private method is extracted.
+	 *
+	 * @param methodName
+	 * 		A name of the private method.
+	 *
+	 * @param parameterTypes
+	 * 		Parameter types of the private method.
+	 *
+	 * @return
+	 * 		A functional object calling the private method.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the method does not exist in {@code substitutedClass}.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code functionalInterface} is not a functional interface or its method does not
+	 * 		match the private method.
+	 */
+	public static <F> F extract(
+		final Class<F> functionalInterface,
+		final Class<?> substitutedClass,
+		final String methodName,
+		final Class<?>... parameterTypes
+	)
+	{
+		return
+			FunctionExtractor.extract(
+				functionalInterface,
+				substitutedClass,
+				null,
+				methodName,
+				parameterTypes
+			);
+	}
+
+	/**
+	 * Calls a private method of an object once for every argument row. The substitute method
+	 * is resolved only once and the rows are called in a tight loop. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method (e.g. {@code SCalculator.class.getMethod("add",
+	 * 		int.class, int.class)}).
+	 *
+	 * @param substitutedObject
+	 * 		An object which private method is called.
+	 *
+	 * @param argumentRows
+	 * 		Arguments for each call.
+	 *
+	 * @param results
+	 * 		An array where the return value of each row is written. Can be {@code null} if
+	 * 		the results are not needed.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the method does not exist in the class of {@code substitutedObject}.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code results} is shorter than {@code argumentRows} or a row has a wrong number of
+	 * 		arguments.
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Object substitutedObject,
+		final Object[][] argumentRows,
+		final Object[] results
+	)
+	{
+		BulkInvoker.invokeAll(
+			siMethod,
+			substitutedObject.getClass(),
+			substitutedObject,
+			argumentRows,
+			results
+		);
+	}
+
+	/**
+	 * Calls a private static method of a class once for every argument row. The substitute
+	 * method is resolved only once and the rows are called in a tight loop. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param substitutedClass
+	 * 		A class which private static method is called.
+	 *
+	 * @param argumentRows
+	 * 		Arguments for each call.
+	 *
+	 * @param results
+	 * 		An array where the return value of each row is written. Can be {@code null} if
+	 * 		the results are not needed.
+	 *
+	 * @throws SubstituteMethodNameConflictError
+	 * 		If the method does not exist in {@code substitutedClass}.
+	 *
+	 * @throws StaticMethodConflictError
+	 * 		If the private method is not static.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code results} is shorter than {@code argumentRows} or a row has a wrong number of
+	 * 		arguments.
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Class<?> substitutedClass,
+		final Object[][] argumentRows,
+		final Object[] results
+	)
+	{
+		BulkInvoker.invokeAll(siMethod, substitutedClass, null, argumentRows, results);
+	}
+
+	/**
+	 * Calls a private method of an object once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code int}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code int}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Object, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Object substitutedObject,
+		final int[][] argumentRows,
+		final int[] results
+	)
+	{
+		BulkInvoker.invokeAll(
+			siMethod,
+			substitutedObject.getClass(),
+			substitutedObject,
+			argumentRows,
+			results
+		);
+	}
+
+	/**
+	 * Calls a private static method of a class once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code int}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code int}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Class, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Class<?> substitutedClass,
+		final int[][] argumentRows,
+		final int[] results
+	)
+	{
+		BulkInvoker.invokeAll(siMethod, substitutedClass, null, argumentRows, results);
+	}
+
+	/**
+	 * Calls a private method of an object once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code long}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code long}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Object, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Object substitutedObject,
+		final long[][] argumentRows,
+		final long[] results
+	)
+	{
+		BulkInvoker.invokeAll(
+			siMethod,
+			substitutedObject.getClass(),
+			substitutedObject,
+			argumentRows,
+			results
+		);
+	}
+
+	/**
+	 * Calls a private static method of a class once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code long}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code long}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Class, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Class<?> substitutedClass,
+		final long[][] argumentRows,
+		final long[] results
+	)
+	{
+		BulkInvoker.invokeAll(siMethod, substitutedClass, null, argumentRows, results);
+	}
+
+	/**
+	 * Calls a private method of an object once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code double}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code double}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Object, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Object substitutedObject,
+		final double[][] argumentRows,
+		final double[] results
+	)
+	{
+		BulkInvoker.invokeAll(
+			siMethod,
+			substitutedObject.getClass(),
+			substitutedObject,
+			argumentRows,
+			results
+		);
+	}
+
+	/**
+	 * Calls a private static method of a class once for every argument row without boxing. All
+	 * the parameters and the return value of the method must be {@code double}s. See
+	 * <a href="#publisher-bulk-invocation">Bulk invocation</a>.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the parameters or the return type of {@code siMethod} are not {@code double}s or
+	 * 		{@code results} is shorter than {@code argumentRows}.
+	 *
+	 * @see #invokeAll(Method, Class, Object[][], Object[])
+	 */
+	public static void invokeAll(
+		final Method siMethod,
+		final Class<?> substitutedClass,
+		final double[][] argumentRows,
+		final double[] results
+	)
+	{
+		BulkInvoker.invokeAll(siMethod, substitutedClass, null, argumentRows, results);
+	}
+
+	/**
+	 * Creates a substitute which can be bound to a new substituted object without creating
+	 * a new substitute object. The substitute is owned by the current thread. See
+	 * <a href="#publisher-rebindable-substitutes">Rebindable substitutes</a>.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @return
+	 * 		A rebindable substitute which is not bound yet.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If {@code substituteInterface} argument is not an interface.
+	 * 
+	 * @throws IdAnnotationError
+	 * 		If any of the {@link Id} constraints are broken.
+	 */
+	public static <PSI> RebindableSubstitute<PSI> rebindable(final Class<PSI> substituteInterface)
+	{
+		return
+			new RebindableSubstitute<PSI>(
+				substituteInterface,
+				publishingPolicy(substituteInterface)
+			);
+	}
+
+	/**
+	 * Removes all the cached publishing policies, resolved private methods, proxy classes etc.
+	 * from the shared caches so that they do not keep the substitute interfaces and
+	 * the substituted classes (and their class loaders) reachable. Substitute objects and
+	 * {@code Publisher} objects created earlier can still be used but their publishing policies
+	 * may cache again. See <a href="#publisher-usage-with-loops">Usage with loops</a>.
+	 */
+	public static void clearCaches()
+	{
+		SubstituteCache.clearAll();
+	}
+
+	/**
+	 * Returns the current dispatch tiers of the substitute methods for the substitutes published
+	 * with objects of {@code substitutedClass}. See
+	 * <a href="#publisher-adaptive-dispatch">Adaptive dispatch</a>.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @return
+	 * 		An unmodifiable map from every substitute interface method to its tier or an empty
+	 * 		map if the publishing policy of {@code substituteInterface} is not
+	 * 		an {@link AdaptivePublishingPolicy}.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code substituteInterface} argument is not an interface.
+	 *
+	 * @see AdaptivePublishingPolicy#tiers(Class)
+	 */
+	public static Map<Method, AdaptivePublishingPolicy.Tier> tiers(
+		final Class<?> substituteInterface,
+		final Class<?> substitutedClass
+	)
+	{
+		PublishingPolicy<?> publishingPolicy = publishingPolicy(substituteInterface);
+		if(publishingPolicy instanceof AdaptivePublishingPolicy)
+			return ((AdaptivePublishingPolicy<?>)publishingPolicy).tiers(substitutedClass);
+		return Collections.emptyMap();
+	}
+
+
+	/**
+	 * Returns a shared publishing policy for the substitute interface. The policy is found with
+	 * {@link #findPublishingPolicy(Class)} only once per substitute interface.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @return
+	 * 		A publishing policy.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If {@code substituteInterface} argument is not an interface.
+	 * 
+	 * @throws IdAnnotationError
+	 * 		If any of the {@link Id} constraints are broken.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <PSI> PublishingPolicy<PSI> publishingPolicy(
+		final Class<PSI> substituteInterface
+	)
+	{
+		PublisherMetrics.publishingPolicyLookup();
+		return (PublishingPolicy<PSI>)_publishingPolicies.get(substituteInterface);
+	}
+	
+	/**
+	 * Finds a proper publishing policy based on selected annotations.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @return
+	 * 		A publishing policy.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If {@code substituteInterface} argument is not an interface.
+	 */
+	private static <PSI> PublishingPolicy<PSI> findPublishingPolicy(
+		final Class<PSI> substituteInterface
+	)
+	{
+		checkInterface(substituteInterface);
+		if(substituteInterface.isAnnotationPresent(NoCaching.class))
+			return new NonCachingPublishingPolicy<PSI>(substituteInterface);
+		if(substituteInterface.isAnnotationPresent(Substitutes.class)) {
+			PublishingPolicy<PSI> generatedPolicy =
+				GeneratedPublishingPolicy.find(substituteInterface);
+			if(generatedPolicy != null)
+				return generatedPolicy;
+		}
+		if(substituteInterface.isAnnotationPresent(BytecodeGeneration.class))
+			return new BytecodeGeneratingPublishingPolicy<PSI>(substituteInterface);
+		if(substituteInterface.isAnnotationPresent(MethodHandleCaching.class))
+			return new MethodHandlePublishingPolicy<PSI>(substituteInterface);
+		if(substituteInterface.isAnnotationPresent(IdentityHashCaching.class))
+			return new IdentityHashedCachingPublishingPolicy<PSI>(substituteInterface);
+		if(substituteInterface.isAnnotationPresent(ConcurrentIdentityHashCaching.class))
+			return new ConcurrentIdentityHashedCachingPublishingPolicy<PSI>(substituteInterface);
+
+		Method[] methods = substituteInterface.getDeclaredMethods();
+		int numberOfAnnotations = 0;
+		int expectedTotalIdSum = 0;
+		int i = 0;
+		int totalIdSum = 0;
+		boolean idZeroFound = false;
+		Set<Integer> set = new HashSet<Integer>();
+		for(Method m : methods) {
+			expectedTotalIdSum += i++;
+			Id id = m.getAnnotation(Id.class);
+			if(id == null)
+				continue;
+			
+			if(id.value() < 0)
+				throw new IdAnnotationError("@Id values cannot be negative numbers.");
+			numberOfAnnotations++;
+			if(id.value() == 0)
+				idZeroFound = true;
+			
+			if(!set.add(id.value()))
+				throw new IdAnnotationError("Same @Id values are not allowed.");
+			totalIdSum += id.value();
+		}
+		if(numberOfAnnotations == 0)
+			return new AdaptivePublishingPolicy<PSI>(substituteInterface);
+		if(methods.length != numberOfAnnotations)
+			throw new IdAnnotationError("Every substitute method needs @Id.");
+		if(!idZeroFound)
+			throw new IdAnnotationError("@Id values must start from zero (0).");
+		if(expectedTotalIdSum != totalIdSum)
+			throw new IdAnnotationError("@Id values must be sequential.");
+		
+		return new CachingPublishingPolicy<PSI>(substituteInterface);
+	}
+	
+	private static void checkInterface(final Class<?> substituteInterface)
+	{
+		if(!substituteInterface.isInterface())
+			throw
+				new IllegalArgumentException(
+					"'substituteInterface' class must be an interface. Was: "
+						+ substituteInterface.getName() + "."
+				);
+	}
+}
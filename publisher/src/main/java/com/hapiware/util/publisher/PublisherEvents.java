@@ -0,0 +1,214 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code PublisherEvents} records Java Flight Recorder events of the publishing:
+ * 	<ul>
+ * 		<li>
+ * 			{@value #POLICY_RESOLUTION} when a publishing policy is created for a substitute
+ * 			interface (see {@link Publisher#create(Class)}).
+ * 		</li>
+ * 		<li>
+ * 			{@value #SUBSTITUTE_CREATION} when a substitute object is created. Only the creations
+ * 			taking longer than 10 microseconds (e.g. the first one which defines a proxy class)
+ * 			are recorded by default.
+ * 		</li>
+ * 		<li>
+ * 			{@value #LINKAGE} when a substitute method is resolved to a private member of
+ * 			the substituted class. This is usually done on the first call.
+ * 		</li>
+ * 		<li>
+ * 			{@value #INVOCATION} when a substitute method of a {@link java.lang.reflect.Proxy}
+ * 			based substitute is called. The event is disabled by default and when it is
+ * 			enabled only the calls taking longer than 1 millisecond are recorded by default.
+ * 		</li>
+ * 	</ul>
+ * The events carry the substitute interface, the substituted class and the signature of
+ * the substitute method (as created by {@link PublishingPolicyBase#createSignature}) where they
+ * apply, and the duration.
+ * <p>
+ * The events need Java 11 or later (see {@link EventRecorder}). On Java 8 the hooks do nothing.
+ * Each hook pair is used like this:
+ * <pre>
+ * 	Object event = PublisherEvents.beginLinkage();
+ * 	try {
+ * 		...
+ * 	}
+ * 	finally {
+ * 		PublisherEvents.endLinkage(event, substituteInterface, substitutedClass, siMethod);
+ * 	}
+ * </pre>
+ * The details of an event are collected only if the event is committed, so a disabled event
+ * costs next to nothing.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class PublisherEvents
+{
+	final static String POLICY_RESOLUTION = "com.hapiware.util.publisher.PolicyResolution";
+	final static String SUBSTITUTE_CREATION = "com.hapiware.util.publisher.SubstituteCreation";
+	final static String LINKAGE = "com.hapiware.util.publisher.Linkage";
+	final static String INVOCATION = "com.hapiware.util.publisher.Invocation";
+
+	private final static EventRecorder RECORDER = EventRecorder.select();
+
+
+	private PublisherEvents()
+	{
+		// Prevents a construction of PublisherEvents.
+	}
+
+	/**
+	 * Returns the Java release of the selected {@link EventRecorder}.
+	 *
+	 * @return
+	 * 		A Java release (e.g. {@code 11}).
+	 */
+	static int recorderRelease()
+	{
+		return RECORDER.release();
+	}
+
+	/**
+	 * Starts timing a {@value #POLICY_RESOLUTION} event.
+	 *
+	 * @return
+	 * 		An event to be given to {@link #endPolicyResolution(Object, Class, PublishingPolicy)}
+	 * 		or {@code null} if the event is not recorded.
+	 */
+	static Object beginPolicyResolution()
+	{
+		return RECORDER.beginPolicyResolution();
+	}
+
+	/**
+	 * Ends and commits a {@value #POLICY_RESOLUTION} event.
+	 *
+	 * @param event
+	 * 		An event returned by {@link #beginPolicyResolution()}.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @param publishingPolicy
+	 * 		A created publishing policy or {@code null} if the creation failed.
+	 */
+	static void endPolicyResolution(
+		Object event,
+		Class<?> substituteInterface,
+		PublishingPolicy<?> publishingPolicy
+	)
+	{
+		RECORDER.endPolicyResolution(event, substituteInterface, publishingPolicy);
+	}
+
+	/**
+	 * Starts timing a {@value #SUBSTITUTE_CREATION} event.
+	 *
+	 * @return
+	 * 		An event to be given to {@link #endSubstituteCreation(Object, Class, Class)} or
+	 * 		{@code null} if the event is not recorded.
+	 */
+	static Object beginSubstituteCreation()
+	{
+		return RECORDER.beginSubstituteCreation();
+	}
+
+	/**
+	 * Ends and commits a {@value #SUBSTITUTE_CREATION} event.
+	 *
+	 * @param event
+	 * 		An event returned by {@link #beginSubstituteCreation()}.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 */
+	static void endSubstituteCreation(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass
+	)
+	{
+		RECORDER.endSubstituteCreation(event, substituteInterface, substitutedClass);
+	}
+
+	/**
+	 * Starts timing a {@value #LINKAGE} event.
+	 *
+	 * @return
+	 * 		An event to be given to {@link #endLinkage(Object, Class, Class, Method)} or
+	 * 		{@code null} if the event is not recorded.
+	 */
+	static Object beginLinkage()
+	{
+		return RECORDER.beginLinkage();
+	}
+
+	/**
+	 * Ends and commits a {@value #LINKAGE} event.
+	 *
+	 * @param event
+	 * 		An event returned by {@link #beginLinkage()}.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @param siMethod
+	 * 		A linked substitute interface method.
+	 */
+	static void endLinkage(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		RECORDER.endLinkage(event, substituteInterface, substitutedClass, siMethod);
+	}
+
+	/**
+	 * Starts timing an {@value #INVOCATION} event.
+	 *
+	 * @return
+	 * 		An event to be given to {@link #endInvocation(Object, Class, Class, Method)} or
+	 * 		{@code null} if the event is not recorded.
+	 */
+	static Object beginInvocation()
+	{
+		return RECORDER.beginInvocation();
+	}
+
+	/**
+	 * Ends and commits an {@value #INVOCATION} event.
+	 *
+	 * @param event
+	 * 		An event returned by {@link #beginInvocation()}.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @param siMethod
+	 * 		A called substitute interface method.
+	 */
+	static void endInvocation(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		RECORDER.endInvocation(event, substituteInterface, substitutedClass, siMethod);
+	}
+}
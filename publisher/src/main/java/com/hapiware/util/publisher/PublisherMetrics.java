@@ -0,0 +1,350 @@
+package com.hapiware.util.publisher;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * {@code PublisherMetrics} collects per substitute method invocation metrics of the publishing
+ * policies which are based on {@link java.lang.reflect.Proxy} (i.e. all the others but
+ * the bytecode generating ones):
+ * 	<ul>
+ * 		<li>number of calls</li>
+ * 		<li>cumulative, mean and percentile latencies (see {@link MethodMetricsSnapshot})</li>
+ * 		<li>method cache hits and misses of the publishing policy</li>
+ * 	</ul>
+ * In addition the hits and misses of the publishing policy cache of {@link Publisher} are
+ * counted.
+ * <p>
+ * The misses and evictions of the shared caches of {@link Publisher} (see
+ * {@link Publisher#clearCaches()}) are always counted, also when the metrics are disabled.
+ * The hits of the shared caches are counted only when the metrics are enabled.
+ * <p>
+ * The metrics are disabled by default and they are enabled by setting the system property
+ * {@value #ENABLED_PROPERTY} to {@code true} when the JVM is started, for example:
+ * <pre>
+ * 	mvn test -DargLine="-Dcom.hapiware.util.publisher.metrics=true"
+ * </pre>
+ * The property is read only once to a {@code static final} field so the JIT compiler removes
+ * all the instrumentation when the metrics are disabled.
+ * <p>
+ * The metrics are available with {@link #snapshot()} and through JMX from the platform MBean
+ * {@value #OBJECT_NAME} (see {@link PublisherMetricsMXBean}).
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @see MethodMetricsSnapshot
+ */
+final public class PublisherMetrics
+{
+	/**
+	 * A system property which enables the metrics.
+	 */
+	public final static String ENABLED_PROPERTY = "com.hapiware.util.publisher.metrics";
+
+	/**
+	 * An object name of the platform MBean.
+	 */
+	public final static String OBJECT_NAME = "com.hapiware.util.publisher:type=PublisherMetrics";
+
+	final static boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	private final static ConcurrentMap<Method, MethodMetrics> _methodMetrics =
+		new ConcurrentHashMap<Method, MethodMetrics>();
+	private final static LongAdder _policyLookups = new LongAdder();
+	private final static LongAdder _policyCacheMisses = new LongAdder();
+	static {
+		if(ENABLED)
+			registerMBean(ManagementFactory.getPlatformMBeanServer());
+	}
+
+
+	private PublisherMetrics()
+	{
+		// Prevents a construction of PublisherMetrics.
+	}
+
+	/**
+	 * Checks if the metrics are collected.
+	 *
+	 * @return
+	 * 		{@code true} if the system property {@value #ENABLED_PROPERTY} was {@code true} when
+	 * 		{@code PublisherMetrics} was initialized.
+	 */
+	public static boolean isEnabled()
+	{
+		return ENABLED;
+	}
+
+	/**
+	 * Returns the metrics of all the substitute methods called so far, sorted by the method
+	 * signatures.
+	 *
+	 * @return
+	 * 		Metrics snapshots. The list is empty if the metrics are not enabled.
+	 */
+	public static List<MethodMetricsSnapshot> snapshot()
+	{
+		List<MethodMetricsSnapshot> snapshots = new ArrayList<MethodMetricsSnapshot>();
+		for(Map.Entry<Method, MethodMetrics> entry : _methodMetrics.entrySet()) {
+			Method siMethod = entry.getKey();
+			snapshots.add(
+				entry.getValue().snapshot(
+					PublishingPolicyBase.createSignature(
+						siMethod.getDeclaringClass().getName(),
+						siMethod
+					)
+				)
+			);
+		}
+		Collections.sort(
+			snapshots,
+			new Comparator<MethodMetricsSnapshot>()
+			{
+				public int compare(MethodMetricsSnapshot s1, MethodMetricsSnapshot s2)
+				{
+					return s1.getMethod().compareTo(s2.getMethod());
+				}
+			}
+		);
+		return Collections.unmodifiableList(snapshots);
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups which found an existing publishing policy from {@link Publisher}.
+	 */
+	public static long getPublishingPolicyCacheHits()
+	{
+		return _policyLookups.sum() - _policyCacheMisses.sum();
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups which created a new publishing policy to {@link Publisher}.
+	 */
+	public static long getPublishingPolicyCacheMisses()
+	{
+		return _policyCacheMisses.sum();
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups from the shared caches of {@link Publisher} which found a cached
+	 * 		value. Always {@code 0} if the metrics are disabled.
+	 */
+	public static long getSubstituteCacheHits()
+	{
+		return SubstituteCache.hits();
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups from the shared caches of {@link Publisher} which had to compute
+	 * 		a new value.
+	 */
+	public static long getSubstituteCacheMisses()
+	{
+		return SubstituteCache.misses();
+	}
+
+	/**
+	 * @return
+	 * 		Number of classes evicted from the shared caches of {@link Publisher} because of
+	 * 		the size limit.
+	 */
+	public static long getSubstituteCacheEvictions()
+	{
+		return SubstituteCache.evictions();
+	}
+
+	/**
+	 * @return
+	 * 		Number of classes in the shared caches of {@link Publisher}.
+	 */
+	public static long getSubstituteCacheSize()
+	{
+		return SubstituteCache.totalSize();
+	}
+
+	/**
+	 * Clears all the collected metrics and the cache counters.
+	 */
+	public static void reset()
+	{
+		_methodMetrics.clear();
+		_policyLookups.reset();
+		_policyCacheMisses.reset();
+		SubstituteCache.resetCounters();
+	}
+
+	/**
+	 * Wraps an invocation handler of a substitute to collect the call counts and latencies.
+	 *
+	 * @param handler
+	 * 		An invocation handler of a publishing policy.
+	 *
+	 * @return
+	 * 		An instrumented invocation handler or {@code handler} itself if the metrics are not
+	 * 		enabled.
+	 */
+	static InvocationHandler instrument(InvocationHandler handler)
+	{
+		return ENABLED ? new InstrumentedInvocationHandler(handler) : handler;
+	}
+
+	/**
+	 * Counts a method cache hit or miss of a publishing policy.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param hit
+	 * 		{@code true} if the linked private method was found from the cache.
+	 */
+	static void cacheAccess(Method siMethod, boolean hit)
+	{
+		if(ENABLED)
+			methodMetrics(siMethod).cacheAccess(hit);
+	}
+
+	static void publishingPolicyLookup()
+	{
+		if(ENABLED)
+			_policyLookups.increment();
+	}
+
+	static void publishingPolicyCacheMiss()
+	{
+		if(ENABLED)
+			_policyCacheMisses.increment();
+	}
+
+	static MethodMetrics methodMetrics(Method siMethod)
+	{
+		MethodMetrics metrics = _methodMetrics.get(siMethod);
+		if(metrics == null) {
+			MethodMetrics newMetrics = new MethodMetrics();
+			metrics = _methodMetrics.putIfAbsent(siMethod, newMetrics);
+			if(metrics == null)
+				metrics = newMetrics;
+		}
+		return metrics;
+	}
+
+	/**
+	 * Registers {@link PublisherMetricsMXBean} with the name {@value #OBJECT_NAME}. If
+	 * the name is already registered (e.g. by {@code Publisher} of another class loader)
+	 * nothing is done.
+	 *
+	 * @param server
+	 * 		An MBean server.
+	 */
+	static void registerMBean(MBeanServer server)
+	{
+		try {
+			server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+		}
+		catch(InstanceAlreadyExistsException ex) {
+			// Already registered.
+		}
+		catch(JMException ex) {
+			throw new IllegalStateException("Cannot register " + OBJECT_NAME + ".", ex);
+		}
+	}
+
+
+	private final static class InstrumentedInvocationHandler
+		implements
+			InvocationHandler
+	{
+		private final InvocationHandler _handler;
+
+
+		public InstrumentedInvocationHandler(InvocationHandler handler)
+		{
+			_handler = handler;
+		}
+
+
+		public Object invoke(Object proxy, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			MethodMetrics metrics = methodMetrics(siMethod);
+			long start = System.nanoTime();
+			try {
+				return _handler.invoke(proxy, siMethod, args);
+			}
+			finally {
+				metrics.record(System.nanoTime() - start);
+			}
+		}
+	}
+
+
+	private final static class MXBean
+		implements
+			PublisherMetricsMXBean
+	{
+		public boolean isEnabled()
+		{
+			return PublisherMetrics.isEnabled();
+		}
+
+		public MethodMetricsSnapshot[] getMethodMetrics()
+		{
+			List<MethodMetricsSnapshot> snapshots = snapshot();
+			return snapshots.toArray(new MethodMetricsSnapshot[snapshots.size()]);
+		}
+
+		public long getPublishingPolicyCacheHits()
+		{
+			return PublisherMetrics.getPublishingPolicyCacheHits();
+		}
+
+		public long getPublishingPolicyCacheMisses()
+		{
+			return PublisherMetrics.getPublishingPolicyCacheMisses();
+		}
+
+		public long getSubstituteCacheHits()
+		{
+			return PublisherMetrics.getSubstituteCacheHits();
+		}
+
+		public long getSubstituteCacheMisses()
+		{
+			return PublisherMetrics.getSubstituteCacheMisses();
+		}
+
+		public long getSubstituteCacheEvictions()
+		{
+			return PublisherMetrics.getSubstituteCacheEvictions();
+		}
+
+		public long getSubstituteCacheSize()
+		{
+			return PublisherMetrics.getSubstituteCacheSize();
+		}
+
+		public void reset()
+		{
+			PublisherMetrics.reset();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.hapiware.util.publisher;
+
+
+/**
+ * A management interface of {@link PublisherMetrics}. It is registered to the platform MBean
+ * server with the name {@value PublisherMetrics#OBJECT_NAME} when the metrics are enabled.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @see PublisherMetrics
+ */
+public interface PublisherMetricsMXBean
+{
+	/**
+	 * @return
+	 * 		{@code true} if the metrics are collected.
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * @return
+	 * 		Metrics of all the called substitute methods.
+	 */
+	public MethodMetricsSnapshot[] getMethodMetrics();
+
+	/**
+	 * @return
+	 * 		Number of lookups which found an existing publishing policy.
+	 */
+	public long getPublishingPolicyCacheHits();
+
+	/**
+	 * @return
+	 * 		Number of lookups which created a new publishing policy.
+	 */
+	public long getPublishingPolicyCacheMisses();
+
+	/**
+	 * @return
+	 * 		Number of lookups from the shared caches which found a cached value. Always {@code 0}
+	 * 		if the metrics are disabled.
+	 */
+	public long getSubstituteCacheHits();
+
+	/**
+	 * @return
+	 * 		Number of lookups from the shared caches which computed a new value.
+	 */
+	public long getSubstituteCacheMisses();
+
+	/**
+	 * @return
+	 * 		Number of classes evicted from the shared caches.
+	 */
+	public long getSubstituteCacheEvictions();
+
+	/**
+	 * @return
+	 * 		Number of classes in the shared caches.
+	 */
+	public long getSubstituteCacheSize();
+
+	/**
+	 * Clears all the collected metrics and the cache counters.
+	 */
+	public void reset();
+}
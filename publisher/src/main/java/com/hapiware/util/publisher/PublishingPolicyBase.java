@@ -0,0 +1,240 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * A base class for other publishing policies.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+public class PublishingPolicyBase
+{
+	private final static MethodType PROXY_CONSTRUCTOR_TYPE =
+		MethodType.methodType(Object.class, InvocationHandler.class);
+	private final static SubstituteCache<MethodHandle> _proxyConstructors =
+		new SubstituteCache<MethodHandle>()
+		{
+			@SuppressWarnings("deprecation")
+			protected MethodHandle computeValue(Class<?> substituteInterface)
+			{
+				Class<?> proxyClass =
+					Proxy.getProxyClass(substituteInterface.getClassLoader(), substituteInterface);
+				try {
+					return
+						Lookups.unreflectConstructor(
+							proxyClass.getConstructor(InvocationHandler.class)
+						).asType(PROXY_CONSTRUCTOR_TYPE);
+				}
+				catch(NoSuchMethodException ex) {
+					throw new IllegalStateException("Proxy constructor was not found.", ex);
+				}
+				catch(IllegalAccessException ex) {
+					throw new IllegalStateException("Proxy constructor cannot be accessed.", ex);
+				}
+			}
+		};
+	
+	
+	/**
+	 * Creates a signature representation for the given class and method.
+	 * 
+	 * @param className
+	 * 		A class name which method's signature is to be created.
+	 * 
+	 * @param method
+	 * 		A method which signature is to be created.
+	 * @return
+	 * 		A signature
+	 */
+	protected final static String createSignature(String className, Method method)
+	{
+		String signature = className + "." + method.getName() + "(";
+		Class<?> types[] = method.getParameterTypes();
+		if(types.length > 0) {
+			for(int i = 0; i < types.length - 1; i++)
+				signature += types[i].getName() + ",";
+			signature += types[types.length - 1].getName();
+		}
+		signature += ")";
+		return signature;
+	}
+	
+	/**
+	 * Creates a {@link Proxy} substitute object. The constructor of the proxy class is looked up
+	 * only once per substitute interface, so the only allocations are the proxy and its
+	 * invocation handler which holds the shared dispatcher and the substituted object. The
+	 * handler is instrumented for {@link PublisherMetrics} when the metrics are enabled.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param dispatcher
+	 * 		A shared dispatcher of the publishing policy.
+	 * 
+	 * @param substitutedObject
+	 * 		An object to be substituted or {@code null} for static methods.
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 */
+	final static Object newProxy(
+		Class<?> substituteInterface,
+		SubstituteDispatcher dispatcher,
+		Object substitutedObject
+	)
+	{
+		Object event = PublisherEvents.beginSubstituteCreation();
+		try {
+			return
+				newProxy(
+					substituteInterface,
+					PublisherMetrics.instrument(
+						new DispatchingInvocationHandler(dispatcher, substitutedObject)
+					)
+				);
+		}
+		finally {
+			PublisherEvents.endSubstituteCreation(
+				event,
+				substituteInterface,
+				dispatcher._substitutedClass
+			);
+		}
+	}
+	
+	/**
+	 * Creates a {@link Proxy} substitute object with the given invocation handler.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param handler
+	 * 		An invocation handler.
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 */
+	final static Object newProxy(Class<?> substituteInterface, InvocationHandler handler)
+	{
+		try {
+			return (Object)_proxyConstructors.get(substituteInterface).invokeExact(handler);
+		}
+		catch(RuntimeException ex) {
+			throw ex;
+		}
+		catch(Error ex) {
+			throw ex;
+		}
+		catch(Throwable ex) {
+			throw new UndeclaredThrowableException(ex);
+		}
+	}
+	
+	/**
+	 * Returns the shared dispatcher of the policy for objects of the substituted class. Used by
+	 * {@link RebindableSubstitute} to call the private methods without publishing a new
+	 * substitute object for every substituted object.
+	 * 
+	 * @param substitutedClass
+	 * 		A class of the substituted objects.
+	 * 
+	 * @return
+	 * 		A shared dispatcher or {@code null} if the policy does not create {@link Proxy}
+	 * 		substitutes.
+	 */
+	SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		return null;
+	}
+	
+	/**
+	 * Creates a substitute object with a constructor handle of a generated substitute class.
+	 * 
+	 * @param <PSI>
+	 * 		A public substitute interface.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 * 
+	 * @param constructor
+	 * 		A constructor handle of type {@code (Object)Object}.
+	 * 
+	 * @param substitutedObject
+	 * 		An object to be substituted or {@code null} for static methods.
+	 * 
+	 * @return
+	 * 		A substitute object.
+	 */
+	@SuppressWarnings("unchecked")
+	final static <PSI> PSI newSubstitute(
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		MethodHandle constructor,
+		Object substitutedObject
+	)
+	{
+		Object event = PublisherEvents.beginSubstituteCreation();
+		try {
+			return (PSI)(Object)constructor.invokeExact(substitutedObject);
+		}
+		catch(RuntimeException ex) {
+			throw ex;
+		}
+		catch(Error ex) {
+			throw ex;
+		}
+		catch(Throwable ex) {
+			throw new UndeclaredThrowableException(ex);
+		}
+		finally {
+			PublisherEvents.endSubstituteCreation(event, substituteInterface, substitutedClass);
+		}
+	}
+	
+	
+	private final static class DispatchingInvocationHandler
+		implements
+			InvocationHandler
+	{
+		private final SubstituteDispatcher _dispatcher;
+		private final Object _substitutedObject;
+		
+		
+		public DispatchingInvocationHandler(
+			SubstituteDispatcher dispatcher,
+			Object substitutedObject
+		)
+		{
+			_dispatcher = dispatcher;
+			_substitutedObject = substitutedObject;
+		}
+		
+		
+		public Object invoke(Object proxy, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			Object event = PublisherEvents.beginInvocation();
+			try {
+				return _dispatcher.dispatch(_substitutedObject, siMethod, args);
+			}
+			finally {
+				PublisherEvents.endInvocation(
+					event,
+					_dispatcher._substituteInterface,
+					_dispatcher._substitutedClass,
+					siMethod
+				);
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code RebindableSubstitute} is a companion of a substitute object which can be bound to
+ * a new substituted object again and again. Publishing a substitute in a loop creates
+ * a substitute object on every round, but a rebindable substitute is created only once and
+ * binding it does not allocate anything (see
+ * <a href="Publisher.html#publisher-rebindable-substitutes">Rebindable substitutes</a>):
+ * <pre>
+ * 	RebindableSubstitute&lt;SHashGenerator&gt; rebindable =
+ * 		Publisher.rebindable(SHashGenerator.class);
+ * 	SHashGenerator substitute = rebindable.substitute();
+ * 	for(int i = 0; i &lt; _table.length; i++) {
+ * 		rebindable.bind(new HashGenerator(i));
+ * 		String result = substitute.createDigest("sha-1", _table[i]);
+ * 		// Make assertions.
+ * 	}
+ * </pre>
+ * The substitute calls the private methods through the shared dispatcher of the publishing
+ * policy of the substituted class, so the private methods are resolved only once like with
+ * {@link Publisher#publish(Object)}. The publishing policies which do not create
+ * {@link java.lang.reflect.Proxy} substitutes (i.e. generated substitutes and bytecode
+ * generation) are replaced with {@link MethodHandlePublishingPolicy}, which is shared by all
+ * the rebindable substitutes of the substitute interface.
+ * <p>
+ * A rebindable substitute is owned by the thread which created it. Binding and calling it from
+ * any other thread throws {@link IllegalStateException}. The check is a single reference
+ * comparison. Use one rebindable substitute per thread.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <PSI>
+ * 		A public substitute interface.
+ */
+final public class RebindableSubstitute<PSI>
+{
+	private final static SubstituteCache<PublishingPolicyBase> _fallbackPolicies =
+		new SubstituteCache<PublishingPolicyBase>()
+		{
+			protected PublishingPolicyBase computeValue(Class<?> substituteInterface)
+			{
+				return new MethodHandlePublishingPolicy<Object>(substituteInterface);
+			}
+		};
+	
+	private final Class<PSI> _substituteInterface;
+	private final PublishingPolicy<PSI> _publishingPolicy;
+	private final Thread _owner;
+	private final PSI _substitute;
+	private SubstituteDispatcher _dispatcher;
+	private Object _substitutedObject;
+
+
+	/**
+	 * Creates a rebindable substitute owned by the current thread.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param publishingPolicy
+	 * 		A publishing policy of the substitute interface.
+	 */
+	@SuppressWarnings("unchecked")
+	RebindableSubstitute(Class<PSI> substituteInterface, PublishingPolicy<PSI> publishingPolicy)
+	{
+		_substituteInterface = substituteInterface;
+		_publishingPolicy = publishingPolicy;
+		_owner = Thread.currentThread();
+		_substitute =
+			(PSI)PublishingPolicyBase.newProxy(
+				substituteInterface,
+				PublisherMetrics.instrument(new RebindingInvocationHandler())
+			);
+	}
+
+
+	/**
+	 * Returns the substitute object. The same object is returned every time and it calls
+	 * the private methods of the currently bound substituted object.
+	 *
+	 * @return
+	 * 		A substitute object.
+	 */
+	public PSI substitute()
+	{
+		return _substitute;
+	}
+
+	/**
+	 * Binds the substitute to a new substituted object.
+	 *
+	 * @param substitutedObject
+	 * 		An object to be substituted (i.e. the object which does the real work).
+	 *
+	 * @return
+	 * 		The substitute object (see {@link #substitute()}).
+	 *
+	 * @throws IllegalStateException
+	 * 		If the current thread is not the owner.
+	 *
+	 * @throws NullPointerException
+	 * 		If {@code substitutedObject} is {@code null}.
+	 */
+	public PSI bind(Object substitutedObject)
+	{
+		checkOwner();
+		Class<?> substitutedClass = substitutedObject.getClass();
+		if(_dispatcher == null || _dispatcher._substitutedClass != substitutedClass)
+			_dispatcher = dispatcher(substitutedClass);
+		_substitutedObject = substitutedObject;
+		return _substitute;
+	}
+
+	/**
+	 * Releases the bound substituted object. Calling the substitute throws
+	 * {@link IllegalStateException} until it is bound again.
+	 *
+	 * @throws IllegalStateException
+	 * 		If the current thread is not the owner.
+	 */
+	public void unbind()
+	{
+		checkOwner();
+		_substitutedObject = null;
+	}
+
+	/**
+	 * @return
+	 * 		The thread which can bind and call the substitute.
+	 */
+	public Thread getOwner()
+	{
+		return _owner;
+	}
+
+	private SubstituteDispatcher dispatcher(Class<?> substitutedClass)
+	{
+		SubstituteDispatcher dispatcher = null;
+		if(_publishingPolicy instanceof PublishingPolicyBase)
+			dispatcher = ((PublishingPolicyBase)_publishingPolicy).dispatcher(substitutedClass);
+		if(dispatcher == null)
+			dispatcher = _fallbackPolicies.get(_substituteInterface).dispatcher(substitutedClass);
+		return dispatcher;
+	}
+
+	private void checkOwner()
+	{
+		if(Thread.currentThread() != _owner)
+			throw
+				new IllegalStateException(
+					"A rebindable substitute of " + _substituteInterface.getName()
+						+ " is owned by " + _owner + " but was used by "
+						+ Thread.currentThread() + "."
+				);
+	}
+
+
+	private final class RebindingInvocationHandler
+		implements
+			InvocationHandler
+	{
+		public Object invoke(Object proxy, Method siMethod, Object[] args)
+			throws
+				Throwable
+		{
+			checkOwner();
+			Object substitutedObject = _substitutedObject;
+			if(substitutedObject == null)
+				throw
+					new IllegalStateException(
+						"A rebindable substitute of " + _substituteInterface.getName()
+							+ " is not bound."
+					);
+
+			SubstituteDispatcher dispatcher = _dispatcher;
+			Object event = PublisherEvents.beginInvocation();
+			try {
+				return dispatcher.dispatch(substitutedObject, siMethod, args);
+			}
+			finally {
+				PublisherEvents.endInvocation(
+					event,
+					_substituteInterface,
+					dispatcher._substitutedClass,
+					siMethod
+				);
+			}
+		}
+	}
+}
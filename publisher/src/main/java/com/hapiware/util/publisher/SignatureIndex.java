@@ -0,0 +1,257 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * {@code SignatureIndex} is an index of the methods of a substituted class. There is only one
+ * index per substituted class and it is shared by all the publishing policies and all
+ * the substitute interfaces. The indexes are stored with a {@link SubstituteCache} and thus they
+ * do not prevent unloading the substituted classes.
+ * <p>
+ * {@link Class#getDeclaredMethods()} is called only once when the index is built. After that
+ * a substitute method is resolved by its name and parameter types (see {@link #method(Method)})
+ * instead of {@link Class#getDeclaredMethod(String, Class...)} which copies all the declared
+ * methods on every call. A lookup still copies the parameter types of the substitute method, so
+ * the dispatchers remember the resolved methods themselves. The accessible methods are cached
+ * by their name and parameter types, not by the substitute interface methods. Thus a substituted
+ * class loaded by a parent class loader does not keep the substitute interfaces (e.g. of a test)
+ * reachable.
+ * <p>
+ * The index is flattened over the superclasses (excluding {@link Object}), so also the private
+ * methods declared by the superclasses are found. A method declared by a subclass hides
+ * the superclass method having the same signature. The index of a subclass is built on
+ * the index of its superclass and thus every class of a hierarchy is scanned only once.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class SignatureIndex
+{
+	private final static SubstituteCache<SignatureIndex> _indexes =
+		new SubstituteCache<SignatureIndex>()
+		{
+			protected SignatureIndex computeValue(Class<?> substitutedClass)
+			{
+				return new SignatureIndex(substitutedClass);
+			}
+		};
+
+	private final Class<?> _substitutedClass;
+	private final Map<String, Method> _methods;
+	private final ConcurrentMap<String, Overloads> _accessibleMethods =
+		new ConcurrentHashMap<String, Overloads>();
+
+
+	private SignatureIndex(Class<?> substitutedClass)
+	{
+		_substitutedClass = substitutedClass;
+		Method[] methods = substitutedClass.getDeclaredMethods();
+		Map<String, Method> declared = new HashMap<String, Method>(methods.length * 2);
+		for(Method method : methods) {
+			String signature = signature(method.getName(), method.getParameterTypes());
+			Method indexed = declared.get(signature);
+			// Same as getDeclaredMethod(): a more specific return type wins (i.e. not a bridge).
+			if(
+				indexed == null
+					|| indexed.getReturnType().isAssignableFrom(method.getReturnType())
+			)
+				declared.put(signature, method);
+		}
+		
+		// The superclass index is already flattened, so the hierarchy is walked only once
+		// no matter how many subclasses share the superclass.
+		Class<?> superclass = substitutedClass.getSuperclass();
+		if(superclass == null || superclass == Object.class)
+			_methods = declared;
+		else {
+			Map<String, Method> inherited = of(superclass)._methods;
+			Map<String, Method> index =
+				new HashMap<String, Method>((inherited.size() + declared.size()) * 2);
+			index.putAll(inherited);
+			index.putAll(declared);
+			_methods = index;
+		}
+	}
+
+
+	/**
+	 * Returns the index of the substituted class.
+	 *
+	 * @param substitutedClass
+	 * 		A class to be substituted.
+	 *
+	 * @return
+	 * 		A shared index.
+	 */
+	static SignatureIndex of(Class<?> substitutedClass)
+	{
+		return _indexes.get(substitutedClass);
+	}
+
+	/**
+	 * Returns the method having the same name and parameter types as the substitute method.
+	 * The method is made accessible.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		An accessible method of the substituted class.
+	 *
+	 * @throws NoSuchMethodException
+	 * 		If the substituted class or its superclasses do not declare the method or it cannot be
+	 * 		made accessible.
+	 */
+	Method method(Method siMethod)
+		throws
+			NoSuchMethodException
+	{
+		String name = siMethod.getName();
+		Class<?>[] parameterTypes = siMethod.getParameterTypes();
+		Overloads overloads = _accessibleMethods.get(name);
+		Method objMethod = overloads != null ? overloads.method(parameterTypes) : null;
+		if(objMethod == null) {
+			Object event = PublisherEvents.beginLinkage();
+			try {
+				objMethod = method(name, parameterTypes);
+				try {
+					objMethod.setAccessible(true);
+				}
+				catch(RuntimeException ex) {
+					// A superclass may be in a module which is not open (Java 9 or later).
+					NoSuchMethodException nsme = new NoSuchMethodException(objMethod.toString());
+					nsme.initCause(ex);
+					throw nsme;
+				}
+				addAccessible(objMethod);
+			}
+			finally {
+				PublisherEvents.endLinkage(
+					event,
+					siMethod.getDeclaringClass(),
+					_substitutedClass,
+					siMethod
+				);
+			}
+		}
+		return objMethod;
+	}
+
+	/**
+	 * Returns the method having the given name and parameter types. The method is not made
+	 * accessible.
+	 *
+	 * @param name
+	 * 		A method name.
+	 *
+	 * @param parameterTypes
+	 * 		Parameter types.
+	 *
+	 * @return
+	 * 		A method of the substituted class or one of its superclasses.
+	 *
+	 * @throws NoSuchMethodException
+	 * 		If the substituted class or its superclasses do not declare the method.
+	 */
+	Method method(String name, Class<?>[] parameterTypes)
+		throws
+			NoSuchMethodException
+	{
+		String signature = signature(name, parameterTypes);
+		Method objMethod = _methods.get(signature);
+		// Type names are not unique between class loaders.
+		if(objMethod == null || !Arrays.equals(objMethod.getParameterTypes(), parameterTypes))
+			throw new NoSuchMethodException(_substitutedClass.getName() + "." + signature);
+		return objMethod;
+	}
+
+	/**
+	 * Checks if the substituted class has a method with the same name and parameter types as
+	 * the substitute method.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @return
+	 * 		{@code true} if {@link #method(Method)} would find a method.
+	 */
+	boolean contains(Method siMethod)
+	{
+		String name = siMethod.getName();
+		Class<?>[] parameterTypes = siMethod.getParameterTypes();
+		Overloads overloads = _accessibleMethods.get(name);
+		if(overloads != null && overloads.method(parameterTypes) != null)
+			return true;
+		Method objMethod = _methods.get(signature(name, parameterTypes));
+		return objMethod != null && Arrays.equals(objMethod.getParameterTypes(), parameterTypes);
+	}
+
+	private synchronized void addAccessible(Method objMethod)
+	{
+		String name = objMethod.getName();
+		Overloads overloads = _accessibleMethods.get(name);
+		if(overloads == null)
+			overloads = new Overloads(objMethod);
+		else if(overloads.method(objMethod.getParameterTypes()) == null)
+			overloads = overloads.with(objMethod);
+		_accessibleMethods.put(name, overloads);
+	}
+
+	private static String signature(String name, Class<?>[] parameterTypes)
+	{
+		StringBuilder signature = new StringBuilder(name).append('(');
+		for(int i = 0; i < parameterTypes.length; i++) {
+			if(i > 0)
+				signature.append(", ");
+			signature.append(parameterTypes[i].getName());
+		}
+		return signature.append(')').toString();
+	}
+
+
+	/**
+	 * The accessible methods of a single name. Never modified after it is published.
+	 */
+	private final static class Overloads
+	{
+		private final Method[] _methods;
+		private final Class<?>[][] _parameterTypes;
+
+
+		Overloads(Method method)
+		{
+			this(new Method[] { method }, new Class<?>[][] { method.getParameterTypes() });
+		}
+
+		private Overloads(Method[] methods, Class<?>[][] parameterTypes)
+		{
+			_methods = methods;
+			_parameterTypes = parameterTypes;
+		}
+
+
+		Method method(Class<?>[] parameterTypes)
+		{
+			for(int i = 0; i < _methods.length; i++)
+				if(Arrays.equals(_parameterTypes[i], parameterTypes))
+					return _methods[i];
+			return null;
+		}
+
+		Overloads with(Method method)
+		{
+			int size = _methods.length;
+			Method[] methods = Arrays.copyOf(_methods, size + 1);
+			Class<?>[][] parameterTypes = Arrays.copyOf(_parameterTypes, size + 1);
+			methods[size] = method;
+			parameterTypes[size] = method.getParameterTypes();
+			return new Overloads(methods, parameterTypes);
+		}
+	}
+}
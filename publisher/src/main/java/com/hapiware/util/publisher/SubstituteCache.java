@@ -0,0 +1,292 @@
+package com.hapiware.util.publisher;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * {@code SubstituteCache} is a size bounded cache keyed by classes. It is used like
+ * {@link ClassValue} (which it is built on) but the entries can be evicted and cleared:
+ * <pre>
+ * 	private final static SubstituteCache&lt;SignatureIndex&gt; _indexes =
+ * 		new SubstituteCache&lt;SignatureIndex&gt;()
+ * 		{
+ * 			protected SignatureIndex computeValue(Class&lt;?&gt; substitutedClass)
+ * 			{
+ * 				return new SignatureIndex(substitutedClass);
+ * 			}
+ * 		};
+ * </pre>
+ * The values are stored with {@link ClassValue}, so they are referenced only by the key class
+ * and do not prevent unloading it. The cache itself refers to the keys and values only weakly.
+ * A value must not refer to classes of other class loaders which the key class cannot see
+ * (see {@link SubstituteInterfaceCache}).
+ * <p>
+ * Every cache holds at most {@value #DEFAULT_MAXIMUM_SIZE} classes by default. The limit can be
+ * changed with the system property {@value #MAXIMUM_SIZE_PROPERTY}. When the limit is reached
+ * an entry is evicted in approximate LRU order with the CLOCK algorithm: a hit marks
+ * the entry referenced without locking and the eviction skips, and unmarks, the referenced
+ * entries once. Entries of unloaded classes are dropped first and they are not
+ * counted as evictions.
+ * <p>
+ * The misses and evictions of all the caches are counted together (see
+ * {@link PublisherMetrics#getSubstituteCacheMisses()}). They happen on the slow path only.
+ * The hits are counted only if {@link PublisherMetrics} is enabled, so a lookup does not update
+ * a shared counter by default. All the caches can be cleared with
+ * {@link #clearAll()} (see {@link Publisher#clearCaches()}).
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <V>
+ * 		A type of the cached values.
+ */
+abstract class SubstituteCache<V>
+{
+	/**
+	 * A system property for the maximum number of classes in a single cache.
+	 */
+	final static String MAXIMUM_SIZE_PROPERTY = "com.hapiware.util.publisher.cache.maximumSize";
+
+	/**
+	 * The maximum number of classes if {@value #MAXIMUM_SIZE_PROPERTY} is not set.
+	 */
+	final static int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	private final static int MAXIMUM_SIZE =
+		Integer.getInteger(MAXIMUM_SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE);
+
+	private final static Set<SubstituteCache<?>> _caches =
+		Collections.newSetFromMap(new WeakHashMap<SubstituteCache<?>, Boolean>());
+	private final static LongAdder _lookups = new LongAdder();
+	private final static LongAdder _misses = new LongAdder();
+	private final static LongAdder _evictions = new LongAdder();
+
+	private final int _maximumSize;
+	private final ClassValue<Entry<V>> _entries =
+		new ClassValue<Entry<V>>()
+		{
+			protected Entry<V> computeValue(Class<?> type)
+			{
+				_misses.increment();
+				Entry<V> entry = new Entry<V>(SubstituteCache.this.computeValue(type));
+				add(type, entry);
+				return entry;
+			}
+		};
+	private final List<Node<V>> _nodes = new ArrayList<Node<V>>();
+	private int _hand;
+
+
+	/**
+	 * Creates a cache holding at most the number of classes given with
+	 * {@value #MAXIMUM_SIZE_PROPERTY} (or {@value #DEFAULT_MAXIMUM_SIZE}).
+	 */
+	SubstituteCache()
+	{
+		this(MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maximumSize
+	 * 		The maximum number of classes.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If {@code maximumSize} is not positive.
+	 */
+	SubstituteCache(int maximumSize)
+	{
+		if(maximumSize < 1)
+			throw
+				new IllegalArgumentException("'maximumSize' must be positive. Was: " + maximumSize);
+		_maximumSize = maximumSize;
+		synchronized(_caches) {
+			_caches.add(this);
+		}
+	}
+
+
+	/**
+	 * Computes a value for a class which is not in the cache. May be called by several threads
+	 * at the same time for the same class and then only one of the values is cached.
+	 *
+	 * @param type
+	 * 		A class.
+	 *
+	 * @return
+	 * 		A new value.
+	 */
+	protected abstract V computeValue(Class<?> type);
+
+	/**
+	 * Returns the value of the class. The value is computed with {@link #computeValue(Class)} if
+	 * the class is not in the cache.
+	 *
+	 * @param type
+	 * 		A class.
+	 *
+	 * @return
+	 * 		A cached value.
+	 */
+	V get(Class<?> type)
+	{
+		if(PublisherMetrics.ENABLED)
+			_lookups.increment();
+		Entry<V> entry = _entries.get(type);
+		if(!entry.referenced)
+			entry.referenced = true;
+		return entry.value;
+	}
+
+	/**
+	 * Removes all the classes from the cache. The removed classes are not counted as evictions.
+	 */
+	synchronized void clear()
+	{
+		for(Node<V> node : _nodes) {
+			Class<?> type = node.type.get();
+			if(type != null)
+				_entries.remove(type);
+		}
+		_nodes.clear();
+		_hand = 0;
+	}
+
+	/**
+	 * @return
+	 * 		Number of classes in the cache. The classes unloaded after the last addition may be
+	 * 		included.
+	 */
+	synchronized int size()
+	{
+		return _nodes.size();
+	}
+
+	private synchronized void add(Class<?> type, Entry<V> entry)
+	{
+		while(_nodes.size() >= _maximumSize) {
+			if(_hand >= _nodes.size())
+				_hand = 0;
+			Node<V> node = _nodes.get(_hand);
+			Class<?> evicted = node.type.get();
+			Entry<V> evictedEntry = node.entry.get();
+			if(evicted == null || evictedEntry == null)
+				_nodes.remove(_hand);
+			else if(evictedEntry.referenced) {
+				evictedEntry.referenced = false;
+				_hand++;
+			}
+			else {
+				_nodes.remove(_hand);
+				_entries.remove(evicted);
+				_evictions.increment();
+			}
+		}
+		_nodes.add(new Node<V>(type, entry));
+	}
+
+	/**
+	 * Removes all the classes from all the caches.
+	 */
+	static void clearAll()
+	{
+		for(SubstituteCache<?> cache : caches())
+			cache.clear();
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups from all the caches which found a cached value. Always {@code 0} if
+	 * 		{@link PublisherMetrics} is not enabled.
+	 */
+	static long hits()
+	{
+		return PublisherMetrics.ENABLED ? _lookups.sum() - _misses.sum() : 0;
+	}
+
+	/**
+	 * @return
+	 * 		Number of lookups from all the caches which computed a new value.
+	 */
+	static long misses()
+	{
+		return _misses.sum();
+	}
+
+	/**
+	 * @return
+	 * 		Number of classes evicted from all the caches because of the size limit.
+	 */
+	static long evictions()
+	{
+		return _evictions.sum();
+	}
+
+	/**
+	 * @return
+	 * 		Number of classes in all the caches.
+	 */
+	static long totalSize()
+	{
+		long size = 0;
+		for(SubstituteCache<?> cache : caches())
+			size += cache.size();
+		return size;
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters.
+	 */
+	static void resetCounters()
+	{
+		_lookups.reset();
+		_misses.reset();
+		_evictions.reset();
+	}
+
+	private static List<SubstituteCache<?>> caches()
+	{
+		synchronized(_caches) {
+			return new ArrayList<SubstituteCache<?>>(_caches);
+		}
+	}
+
+
+	/**
+	 * A cached value stored with {@link ClassValue}.
+	 */
+	private final static class Entry<V>
+	{
+		final V value;
+		volatile boolean referenced;
+
+
+		Entry(V value)
+		{
+			this.value = value;
+		}
+	}
+
+
+	/**
+	 * A weak reference to a cached class in the eviction order.
+	 */
+	private final static class Node<V>
+	{
+		final WeakReference<Class<?>> type;
+		final WeakReference<Entry<V>> entry;
+
+
+		Node(Class<?> type, Entry<V> entry)
+		{
+			this.type = new WeakReference<Class<?>>(type);
+			this.entry = new WeakReference<Entry<V>>(entry);
+		}
+	}
+}
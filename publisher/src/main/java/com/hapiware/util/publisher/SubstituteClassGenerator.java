@@ -0,0 +1,479 @@
+package com.hapiware.util.publisher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * {@code SubstituteClassGenerator} creates class files for substitute classes used by
+ * {@link BytecodeGeneratingPublishingPolicy}.
+ * <p>
+ * A generated class implements the substitute interface and it has a {@code final} instance
+ * field for the substituted object and a {@code static final} {@link MethodHandle} field for
+ * each substitute method. The handles are read from the class data of the hidden class in
+ * the static initializer. Every substitute method is implemented like this:
+ * <pre>
+ * 	public R method(P... args)
+ * 	{
+ * 		return (R)_hN.invokeExact(_target, args...);
+ * 	}
+ * </pre>
+ * Because the handles are constants JIT can inline the whole call chain down to the private
+ * method. The generated code does not have any branches so stack map frames are not needed.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+final class SubstituteClassGenerator
+{
+	private final static String TARGET_FIELD = "_target";
+	private final static String HANDLE_FIELD_PREFIX = "_h";
+	private final static String OBJECT = "java/lang/Object";
+	private final static String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+	private final static String METHOD_HANDLES = "java/lang/invoke/MethodHandles";
+
+	private final static int CLASS_FILE_VERSION = 52;
+	private final static int ACC_PUBLIC = 0x0001;
+	private final static int ACC_PRIVATE = 0x0002;
+	private final static int ACC_STATIC = 0x0008;
+	private final static int ACC_FINAL = 0x0010;
+	private final static int ACC_SUPER = 0x0020;
+	private final static int ACC_SYNTHETIC = 0x1000;
+
+	private final static int CONSTANT_UTF8 = 1;
+	private final static int CONSTANT_CLASS = 7;
+	private final static int CONSTANT_STRING = 8;
+	private final static int CONSTANT_FIELDREF = 9;
+	private final static int CONSTANT_METHODREF = 10;
+	private final static int CONSTANT_NAME_AND_TYPE = 12;
+
+	private final static int ICONST_0 = 0x03;
+	private final static int BIPUSH = 0x10;
+	private final static int SIPUSH = 0x11;
+	private final static int LDC_W = 0x13;
+	private final static int ILOAD = 0x15;
+	private final static int LLOAD = 0x16;
+	private final static int FLOAD = 0x17;
+	private final static int DLOAD = 0x18;
+	private final static int ALOAD = 0x19;
+	private final static int ALOAD_0 = 0x2a;
+	private final static int ALOAD_1 = 0x2b;
+	private final static int IRETURN = 0xac;
+	private final static int LRETURN = 0xad;
+	private final static int FRETURN = 0xae;
+	private final static int DRETURN = 0xaf;
+	private final static int ARETURN = 0xb0;
+	private final static int RETURN = 0xb1;
+	private final static int GETSTATIC = 0xb2;
+	private final static int PUTSTATIC = 0xb3;
+	private final static int GETFIELD = 0xb4;
+	private final static int PUTFIELD = 0xb5;
+	private final static int INVOKEVIRTUAL = 0xb6;
+	private final static int INVOKESPECIAL = 0xb7;
+	private final static int INVOKESTATIC = 0xb8;
+	private final static int CHECKCAST = 0xc0;
+
+	private final ByteArrayOutputStream _constantPoolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream _constantPool = new DataOutputStream(_constantPoolBytes);
+	private final Map<String, Integer> _constants = new HashMap<String, Integer>();
+	private int _constantCount = 1;
+
+
+	private SubstituteClassGenerator()
+	{
+		// Use generate() instead.
+	}
+
+	/**
+	 * Generates a class file for a substitute class. The generated class expects to have
+	 * a {@link List} of {@link MethodHandle}s as its class data where the handle for
+	 * {@code siMethods[i]} is in index {@code i} and has a type of {@code (Object, P...)R}.
+	 * The generated class has a {@code public} constructor taking the substituted object as
+	 * its only argument.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface to be implemented.
+	 *
+	 * @param siMethods
+	 * 		Substitute interface methods to be implemented.
+	 *
+	 * @return
+	 * 		Class file bytes.
+	 */
+	static byte[] generate(Class<?> substituteInterface, Method[] siMethods)
+	{
+		try {
+			return new SubstituteClassGenerator().write(substituteInterface, siMethods);
+		}
+		catch(IOException ex) {
+			// Cannot happen with ByteArrayOutputStream.
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private byte[] write(Class<?> substituteInterface, Method[] siMethods)
+		throws
+			IOException
+	{
+		String interfaceName = internalName(substituteInterface);
+		String className = interfaceName + "$$Substitute";
+
+		int thisClass = classConstant(className);
+		int superClass = classConstant(OBJECT);
+		int interfaceClass = classConstant(interfaceName);
+		int code = utf8Constant("Code");
+
+		ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+		DataOutputStream fields = new DataOutputStream(fieldBytes);
+		fields.writeShort(ACC_PRIVATE | ACC_FINAL);
+		fields.writeShort(utf8Constant(TARGET_FIELD));
+		fields.writeShort(utf8Constant(descriptor(Object.class)));
+		fields.writeShort(0);
+		for(int i = 0; i < siMethods.length; i++) {
+			fields.writeShort(ACC_PRIVATE | ACC_STATIC | ACC_FINAL);
+			fields.writeShort(utf8Constant(HANDLE_FIELD_PREFIX + i));
+			fields.writeShort(utf8Constant("L" + METHOD_HANDLE + ";"));
+			fields.writeShort(0);
+		}
+
+		ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+		DataOutputStream methods = new DataOutputStream(methodBytes);
+		writeConstructor(methods, className, code);
+		writeStaticInitializer(methods, className, siMethods.length, code);
+		for(int i = 0; i < siMethods.length; i++)
+			writeSubstituteMethod(methods, className, siMethods[i], i, code);
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(classBytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(CLASS_FILE_VERSION);
+		out.writeShort(_constantCount);
+		_constantPool.flush();
+		out.write(_constantPoolBytes.toByteArray());
+		out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(1);
+		out.writeShort(interfaceClass);
+		out.writeShort(siMethods.length + 1);
+		fields.flush();
+		out.write(fieldBytes.toByteArray());
+		out.writeShort(siMethods.length + 2);
+		methods.flush();
+		out.write(methodBytes.toByteArray());
+		out.writeShort(0);
+		out.flush();
+		return classBytes.toByteArray();
+	}
+
+	private void writeConstructor(DataOutputStream methods, String className, int code)
+		throws
+			IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream instructions = new DataOutputStream(bytes);
+		instructions.writeByte(ALOAD_0);
+		instructions.writeByte(INVOKESPECIAL);
+		instructions.writeShort(methodConstant(OBJECT, "<init>", "()V"));
+		instructions.writeByte(ALOAD_0);
+		instructions.writeByte(ALOAD_1);
+		instructions.writeByte(PUTFIELD);
+		instructions.writeShort(fieldConstant(className, TARGET_FIELD, descriptor(Object.class)));
+		instructions.writeByte(RETURN);
+		instructions.flush();
+		writeMethod(
+			methods,
+			ACC_PUBLIC,
+			"<init>",
+			"(" + descriptor(Object.class) + ")V",
+			code,
+			2,
+			2,
+			bytes.toByteArray()
+		);
+	}
+
+	private void writeStaticInitializer(
+		DataOutputStream methods,
+		String className,
+		int numberOfHandles,
+		int code
+	)
+		throws
+			IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream instructions = new DataOutputStream(bytes);
+		for(int i = 0; i < numberOfHandles; i++) {
+			instructions.writeByte(INVOKESTATIC);
+			instructions.writeShort(
+				methodConstant(
+					METHOD_HANDLES,
+					"lookup",
+					"()Ljava/lang/invoke/MethodHandles$Lookup;"
+				)
+			);
+			instructions.writeByte(LDC_W);
+			instructions.writeShort(stringConstant("_"));
+			instructions.writeByte(LDC_W);
+			instructions.writeShort(classConstant(METHOD_HANDLE));
+			pushInt(instructions, i);
+			instructions.writeByte(INVOKESTATIC);
+			instructions.writeShort(
+				methodConstant(
+					METHOD_HANDLES,
+					"classDataAt",
+					"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;"
+						+ "Ljava/lang/Class;I)Ljava/lang/Object;"
+				)
+			);
+			instructions.writeByte(CHECKCAST);
+			instructions.writeShort(classConstant(METHOD_HANDLE));
+			instructions.writeByte(PUTSTATIC);
+			instructions.writeShort(
+				fieldConstant(className, HANDLE_FIELD_PREFIX + i, "L" + METHOD_HANDLE + ";")
+			);
+		}
+		instructions.writeByte(RETURN);
+		instructions.flush();
+		writeMethod(methods, ACC_STATIC, "<clinit>", "()V", code, 4, 0, bytes.toByteArray());
+	}
+
+	private void writeSubstituteMethod(
+		DataOutputStream methods,
+		String className,
+		Method siMethod,
+		int index,
+		int code
+	)
+		throws
+			IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream instructions = new DataOutputStream(bytes);
+		instructions.writeByte(GETSTATIC);
+		instructions.writeShort(
+			fieldConstant(className, HANDLE_FIELD_PREFIX + index, "L" + METHOD_HANDLE + ";")
+		);
+		instructions.writeByte(ALOAD_0);
+		instructions.writeByte(GETFIELD);
+		instructions.writeShort(fieldConstant(className, TARGET_FIELD, descriptor(Object.class)));
+		int slot = 1;
+		for(Class<?> type : siMethod.getParameterTypes()) {
+			instructions.writeByte(loadInstruction(type));
+			instructions.writeByte(slot);
+			slot += slotSize(type);
+		}
+		instructions.writeByte(INVOKEVIRTUAL);
+		instructions.writeShort(
+			methodConstant(
+				METHOD_HANDLE,
+				"invokeExact",
+				MethodHandleLinker.linkedType(siMethod).toMethodDescriptorString()
+			)
+		);
+		instructions.writeByte(returnInstruction(siMethod.getReturnType()));
+		instructions.flush();
+		writeMethod(
+			methods,
+			ACC_PUBLIC | ACC_FINAL,
+			siMethod.getName(),
+			MethodHandleLinker.linkedType(siMethod).dropParameterTypes(0, 1)
+				.toMethodDescriptorString(),
+			code,
+			slot + 1,
+			slot,
+			bytes.toByteArray()
+		);
+	}
+
+	private void writeMethod(
+		DataOutputStream methods,
+		int access,
+		String name,
+		String descriptor,
+		int code,
+		int maxStack,
+		int maxLocals,
+		byte[] instructions
+	)
+		throws
+			IOException
+	{
+		methods.writeShort(access);
+		methods.writeShort(utf8Constant(name));
+		methods.writeShort(utf8Constant(descriptor));
+		methods.writeShort(1);
+		methods.writeShort(code);
+		methods.writeInt(12 + instructions.length);
+		methods.writeShort(maxStack);
+		methods.writeShort(maxLocals);
+		methods.writeInt(instructions.length);
+		methods.write(instructions);
+		methods.writeShort(0);
+		methods.writeShort(0);
+	}
+
+	private static void pushInt(DataOutputStream instructions, int value)
+		throws
+			IOException
+	{
+		if(value <= 5) {
+			instructions.writeByte(ICONST_0 + value);
+		}
+		else if(value <= Byte.MAX_VALUE) {
+			instructions.writeByte(BIPUSH);
+			instructions.writeByte(value);
+		}
+		else {
+			instructions.writeByte(SIPUSH);
+			instructions.writeShort(value);
+		}
+	}
+
+	private static int loadInstruction(Class<?> type)
+	{
+		if(type == long.class)
+			return LLOAD;
+		if(type == float.class)
+			return FLOAD;
+		if(type == double.class)
+			return DLOAD;
+		if(type.isPrimitive())
+			return ILOAD;
+		return ALOAD;
+	}
+
+	private static int returnInstruction(Class<?> type)
+	{
+		if(type == void.class)
+			return RETURN;
+		if(type == long.class)
+			return LRETURN;
+		if(type == float.class)
+			return FRETURN;
+		if(type == double.class)
+			return DRETURN;
+		if(type.isPrimitive())
+			return IRETURN;
+		return ARETURN;
+	}
+
+	private static int slotSize(Class<?> type)
+	{
+		return type == long.class || type == double.class ? 2 : 1;
+	}
+
+	private static String internalName(Class<?> type)
+	{
+		return type.getName().replace('.', '/');
+	}
+
+	private static String descriptor(Class<?> type)
+	{
+		return MethodType.methodType(type).toMethodDescriptorString().substring(2);
+	}
+
+	private int utf8Constant(String value)
+		throws
+			IOException
+	{
+		String key = "U" + value;
+		Integer index = _constants.get(key);
+		if(index != null)
+			return index;
+		_constantPool.writeByte(CONSTANT_UTF8);
+		_constantPool.writeUTF(value);
+		return addConstant(key, 1);
+	}
+
+	private int classConstant(String internalName)
+		throws
+			IOException
+	{
+		return refConstant(CONSTANT_CLASS, "C" + internalName, utf8Constant(internalName));
+	}
+
+	private int stringConstant(String value)
+		throws
+			IOException
+	{
+		return refConstant(CONSTANT_STRING, "S" + value, utf8Constant(value));
+	}
+
+	private int fieldConstant(String owner, String name, String descriptor)
+		throws
+			IOException
+	{
+		return
+			memberConstant(CONSTANT_FIELDREF, "F" + owner + "." + name + ":" + descriptor,
+				owner, name, descriptor);
+	}
+
+	private int methodConstant(String owner, String name, String descriptor)
+		throws
+			IOException
+	{
+		return
+			memberConstant(CONSTANT_METHODREF, "M" + owner + "." + name + descriptor,
+				owner, name, descriptor);
+	}
+
+	private int memberConstant(
+		int tag,
+		String key,
+		String owner,
+		String name,
+		String descriptor
+	)
+		throws
+			IOException
+	{
+		Integer index = _constants.get(key);
+		if(index != null)
+			return index;
+		int ownerIndex = classConstant(owner);
+		String nameAndTypeKey = "N" + name + ":" + descriptor;
+		Integer nameAndType = _constants.get(nameAndTypeKey);
+		if(nameAndType == null) {
+			int nameIndex = utf8Constant(name);
+			int descriptorIndex = utf8Constant(descriptor);
+			_constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+			_constantPool.writeShort(nameIndex);
+			_constantPool.writeShort(descriptorIndex);
+			nameAndType = addConstant(nameAndTypeKey, 1);
+		}
+		_constantPool.writeByte(tag);
+		_constantPool.writeShort(ownerIndex);
+		_constantPool.writeShort(nameAndType);
+		return addConstant(key, 1);
+	}
+
+	private int refConstant(int tag, String key, int utf8Index)
+		throws
+			IOException
+	{
+		Integer index = _constants.get(key);
+		if(index != null)
+			return index;
+		_constantPool.writeByte(tag);
+		_constantPool.writeShort(utf8Index);
+		return addConstant(key, 1);
+	}
+
+	private int addConstant(String key, int size)
+	{
+		int index = _constantCount;
+		_constants.put(key, index);
+		_constantCount += size;
+		return index;
+	}
+}
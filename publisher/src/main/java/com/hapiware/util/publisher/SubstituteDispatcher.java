@@ -0,0 +1,56 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code SubstituteDispatcher} is the dispatch logic of a {@link java.lang.reflect.Proxy} based
+ * publishing policy. A dispatcher is created once per substituted class (or per policy) and it
+ * is shared by all the substitute objects of the class. The invocation handler of a substitute
+ * object holds only the dispatcher and the substituted object (see
+ * {@link PublishingPolicyBase#newProxy(Class, SubstituteDispatcher, Object)}).
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+abstract class SubstituteDispatcher
+{
+	final Class<?> _substituteInterface;
+	final Class<?> _substitutedClass;
+	
+	
+	/**
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 */
+	SubstituteDispatcher(Class<?> substituteInterface, Class<?> substitutedClass)
+	{
+		_substituteInterface = substituteInterface;
+		_substitutedClass = substitutedClass;
+	}
+	
+	/**
+	 * Calls the private method of the substituted object.
+	 *
+	 * @param substitutedObject
+	 * 		A substituted object or {@code null} if the substitute was published with a class.
+	 *
+	 * @param siMethod
+	 * 		A substitute interface method.
+	 *
+	 * @param args
+	 * 		Arguments given to the substitute method or {@code null} if there are none.
+	 *
+	 * @return
+	 * 		A return value of the private method.
+	 *
+	 * @throws Throwable
+	 * 		An exception thrown by the private method or an error of the publishing policy.
+	 */
+	abstract Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+		throws
+			Throwable;
+}
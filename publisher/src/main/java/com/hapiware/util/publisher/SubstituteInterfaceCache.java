@@ -0,0 +1,84 @@
+package com.hapiware.util.publisher;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * {@code SubstituteInterfaceCache} is a cache keyed by a substitute interface and a substituted
+ * class. It is used for values which refer to the substitute interface (e.g. dispatchers holding
+ * substitute interface {@link java.lang.reflect.Method}s or classes generated into the class
+ * loader of the substitute interface):
+ * <pre>
+ * 	private final SubstituteInterfaceCache&lt;Dispatcher&gt; _dispatchers =
+ * 		new SubstituteInterfaceCache&lt;Dispatcher&gt;()
+ * 		{
+ * 			protected Dispatcher computeValue(Class&lt;?&gt; substitutedClass)
+ * 			{
+ * 				return new Dispatcher(_substituteInterface, substitutedClass);
+ * 			}
+ * 		};
+ * </pre>
+ * The values are stored with the substitute interface in a {@link SubstituteCache} and only
+ * the substituted classes are referred from there. If the values were stored with
+ * the substituted class, a substituted class loaded by a parent class loader (e.g. the system
+ * class loader) would keep the class loader of the substitute interface (e.g. of a test)
+ * reachable. Now the values are released with the substitute interface, when the substitute
+ * interface is evicted or when the caches are cleared (see {@link Publisher#clearCaches()}).
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @param <V>
+ * 		A type of the cached values.
+ */
+abstract class SubstituteInterfaceCache<V>
+{
+	private final SubstituteCache<ConcurrentMap<Class<?>, V>> _values =
+		new SubstituteCache<ConcurrentMap<Class<?>, V>>()
+		{
+			protected ConcurrentMap<Class<?>, V> computeValue(Class<?> substituteInterface)
+			{
+				return new ConcurrentHashMap<Class<?>, V>();
+			}
+		};
+
+
+	/**
+	 * Computes a value for a substituted class which is not in the cache. May be called by
+	 * several threads at the same time for the same class and then only one of the values is
+	 * cached.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @return
+	 * 		A new value.
+	 */
+	protected abstract V computeValue(Class<?> substitutedClass);
+
+	/**
+	 * Returns the value of the substituted class. The value is computed with
+	 * {@link #computeValue(Class)} if the class is not in the cache.
+	 *
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 *
+	 * @param substitutedClass
+	 * 		A substituted class.
+	 *
+	 * @return
+	 * 		A cached value.
+	 */
+	V get(Class<?> substituteInterface, Class<?> substitutedClass)
+	{
+		ConcurrentMap<Class<?>, V> values = _values.get(substituteInterface);
+		V value = values.get(substitutedClass);
+		if(value == null) {
+			V newValue = computeValue(substitutedClass);
+			value = values.putIfAbsent(substitutedClass, newValue);
+			if(value == null)
+				value = newValue;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,50 @@
+package com.hapiware.util.publisher;
+
+import java.util.List;
+
+
+/**
+ * Thrown by {@link Publisher#create(Class, Class)} to show that one or more substitute interface
+ * methods cannot be linked to the substituted class. All the mismatches are listed in the message
+ * and the individual errors (e.g. {@link SubstituteMethodNameConflictError}s) are available from
+ * {@link #getSuppressed()}. See {@link Publisher} documentation for more information.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @see Publisher
+ */
+public class SubstituteLinkageError
+	extends
+		Error
+{
+	private static final long serialVersionUID = 6170541329840316214L;
+
+	/**
+	 * Constructs a {@code SubstituteLinkageError} with the individual mismatches.
+	 * 
+	 * @param substitutedClass
+	 * 		A class which was substituted.
+	 * 
+	 * @param mismatches
+	 * 		Errors for the substitute interface methods which cannot be linked.
+	 */
+	public SubstituteLinkageError(Class<?> substitutedClass, List<? extends Error> mismatches)
+	{
+		super(createMessage(substitutedClass, mismatches));
+		for(Error mismatch : mismatches)
+			addSuppressed(mismatch);
+	}
+	
+	private static String createMessage(
+		Class<?> substitutedClass,
+		List<? extends Error> mismatches
+	)
+	{
+		String message =
+			"\nSubstitute interface has " + mismatches.size() + " method(s) which cannot be linked "
+				+ "to the substituted class " + substitutedClass.getName() + ":";
+		for(Error mismatch : mismatches)
+			message += mismatch.getMessage();
+		return message;
+	}
+}
@@ -0,0 +1,129 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+
+/**
+ * {@code SubstituteSupport} has helper methods for the substitute classes generated by
+ * {@code publisher-processor} annotation processor. These methods are not meant to be called
+ * from anywhere else.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ * @see com.hapiware.util.publisher.annotation.Substitutes
+ */
+final public class SubstituteSupport
+{
+	private SubstituteSupport()
+	{
+		// Prevents a construction of SubstituteSupport.
+	}
+	
+	/**
+	 * Resolves a substitute method to a method handle of type {@code (Object, P...)R} where
+	 * {@code P...} and {@code R} are the parameter types and the return type of the substitute
+	 * method and the first argument is the substituted object (or {@code null} for static
+	 * methods).
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClassName
+	 * 		A binary name of the substituted class.
+	 * 
+	 * @param name
+	 * 		A name of the substitute method.
+	 * 
+	 * @param parameterTypes
+	 * 		Parameter types of the substitute method.
+	 * 
+	 * @return
+	 * 		A method handle.
+	 */
+	public static MethodHandle link(
+		Class<?> substituteInterface,
+		String substitutedClassName,
+		String name,
+		Class<?>... parameterTypes
+	)
+	{
+		try {
+			return
+				MethodHandleLinker.link(
+					substituteInterface,
+					Class.forName(
+						substitutedClassName,
+						false,
+						substituteInterface.getClassLoader()
+					),
+					substituteInterface.getMethod(name, parameterTypes),
+					false
+				);
+		}
+		catch(ClassNotFoundException ex) {
+			throw new NoClassDefFoundError(substitutedClassName);
+		}
+		catch(NoSuchMethodException ex) {
+			throw new NoSuchMethodError(substituteInterface.getName() + "." + name);
+		}
+	}
+	
+	/**
+	 * Creates a {@link StaticMethodConflictError} for the given substitute method.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param name
+	 * 		A name of the substitute method.
+	 * 
+	 * @param parameterTypes
+	 * 		Parameter types of the substitute method.
+	 * 
+	 * @return
+	 * 		An error to be thrown.
+	 */
+	public static StaticMethodConflictError staticMethodConflict(
+		Class<?> substituteInterface,
+		String name,
+		Class<?>... parameterTypes
+	)
+	{
+		try {
+			Method siMethod = substituteInterface.getMethod(name, parameterTypes);
+			return
+				new StaticMethodConflictError(
+					PublishingPolicyBase.createSignature(substituteInterface.toString(), siMethod),
+					null
+				);
+		}
+		catch(NoSuchMethodException ex) {
+			throw new NoSuchMethodError(substituteInterface.getName() + "." + name);
+		}
+	}
+	
+	/**
+	 * Rethrows the given throwable as is, without wrapping checked exceptions. The return value
+	 * is only for the compiler, i.e. the generated code is {@code throw rethrow(t);}.
+	 * 
+	 * @param throwable
+	 * 		A throwable to be rethrown.
+	 * 
+	 * @return
+	 * 		Never returns.
+	 */
+	public static RuntimeException rethrow(Throwable throwable)
+	{
+		SubstituteSupport.<RuntimeException>throwUnchecked(throwable);
+		return null;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> void throwUnchecked(Throwable throwable)
+		throws
+			T
+	{
+		throw (T)throwable;
+	}
+}
@@ -0,0 +1,27 @@
+package com.hapiware.util.publisher.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * {@code @BytecodeGeneration} is used to introduce a bytecode generating publishing policy.
+ * Instead of {@link java.lang.reflect.Proxy} objects the substitute objects are instances of
+ * generated hidden classes which call the private methods directly through constant
+ * {@link java.lang.invoke.MethodHandle}s. If hidden classes cannot be defined the method handle
+ * caching policy is used instead (see {@link MethodHandleCaching}). {@link Id} annotations are
+ * completely ignored. {@code @BytecodeGeneration} overrides all the other caching annotations
+ * and is overridden by {@link NoCaching}.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BytecodeGeneration
+{
+}
@@ -8,7 +8,7 @@ import java.lang.annotation.Target;
 
 /**
  * {@code @ConcurrentIdentityHashCaching} is used to introduce a concurrent identity hash caching
- * policy. <u>This is not a recommended caching policy.</u>
+ * policy. The cache is the same as with {@link IdentityHashCaching}.
  * 
  * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
  *
@@ -0,0 +1,48 @@
+package com.hapiware.util.publisher.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * {@code @FieldAccessor} marks a substitute interface method to be a getter or a setter of
+ * a (possibly private) field of the substituted class instead of a call to a private method.
+ * A getter has no parameters and returns the field value. A setter has one parameter and
+ * returns {@code void}. For example:
+ * <pre>
+ * 	interface SHashGenerator
+ * 	{
+ * 		{@code @FieldAccessor}("_algorithm") public String getAlgorithm();
+ * 		{@code @FieldAccessor}("_algorithm") public void setAlgorithm(String algorithm);
+ * 		{@code @FieldAccessor} public int getRounds();
+ * 	}
+ * </pre>
+ * 
+ * If {@link #value()} is not given the field name is derived from the method name by removing
+ * {@code get}, {@code is} or {@code set} prefix and changing the first letter to lower case.
+ * If the substituted class does not have such a field the name is tried with an underscore
+ * prefix. So, {@code getRounds()} above accesses either {@code rounds} or {@code _rounds}.
+ * <p>
+ * Fields are accessed with {@link java.lang.invoke.VarHandle}s on Java 9 or later and with
+ * accessible {@link java.lang.reflect.Field}s on older JVMs. They are resolved once per
+ * substituted class like methods are.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FieldAccessor
+{
+	/**
+	 * A name of the field. If empty the name is derived from the method name.
+	 * 
+	 * @return
+	 * 		A field name.
+	 */
+	String value() default "";
+}
@@ -8,8 +8,8 @@ import java.lang.annotation.Target;
 
 
 /**
- * {@code @IdentityHashCaching} is used to introduce a identity hash caching policy. <u>This
- * is not a recommended caching policy.</u>
+ * {@code @IdentityHashCaching} is used to introduce a identity hash caching policy. The cache
+ * is keyed by the identities of the substitute interface methods.
  * 
  * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
  *
@@ -0,0 +1,25 @@
+package com.hapiware.util.publisher.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * {@code @MethodHandleCaching} is used to introduce a method handle caching policy. Every
+ * substitute method is resolved only once to a {@link java.lang.invoke.MethodHandle} and the
+ * cached handle is used for all the later calls. {@link Id} annotations are completely ignored.
+ * {@code @MethodHandleCaching} overrides {@link IdentityHashCaching} and
+ * {@link ConcurrentIdentityHashCaching} and is overridden by {@link NoCaching}.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MethodHandleCaching
+{
+}
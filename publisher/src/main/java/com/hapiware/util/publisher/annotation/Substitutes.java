@@ -0,0 +1,33 @@
+package com.hapiware.util.publisher.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * {@code @Substitutes} marks a substitute interface for the {@code publisher-processor}
+ * annotation processor and tells which class is substituted. The annotation processor checks
+ * the substitute interface against the substituted class at compile time and generates
+ * a substitute class for it. If the generated class is found at runtime it is used instead of
+ * the other publishing policies and creating a substitute object is just a constructor call.
+ * If the generated class is not found {@code @Substitutes} is ignored.
+ * {@code @Substitutes} is overridden by {@link NoCaching}.
+ * <p>
+ * The substitute interface must not be {@code private} or generic.
+ * 
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Substitutes
+{
+	/**
+	 * The substituted class (i.e. the class having the private methods).
+	 */
+	Class<?> value();
+}
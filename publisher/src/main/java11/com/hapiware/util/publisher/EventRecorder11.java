@@ -0,0 +1,218 @@
+package com.hapiware.util.publisher;
+
+import java.lang.reflect.Method;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+
+/**
+ * A Java 11 {@link EventRecorder} which records the events of {@link PublisherEvents} with
+ * Java Flight Recorder. The events are enabled and configured like the events of the JDK, for
+ * example:
+ * <pre>
+ * 	jcmd &lt;pid&gt; JFR.start name=publisher com.hapiware.util.publisher.Invocation#enabled=true
+ * </pre>
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+class EventRecorder11
+	extends
+		EventRecorder
+{
+	// Substitute creation and invocation are on the hot path. The event objects are not
+	// created at all when the events are disabled (i.e. nearly always).
+	private final static EventType SUBSTITUTE_CREATION =
+		EventType.getEventType(SubstituteCreationEvent.class);
+	private final static EventType INVOCATION = EventType.getEventType(InvocationEvent.class);
+
+
+	int release()
+	{
+		return 11;
+	}
+
+	Object beginPolicyResolution()
+	{
+		PolicyResolutionEvent event = new PolicyResolutionEvent();
+		event.begin();
+		return event;
+	}
+
+	void endPolicyResolution(
+		Object event,
+		Class<?> substituteInterface,
+		PublishingPolicy<?> publishingPolicy
+	)
+	{
+		PolicyResolutionEvent policyResolution = (PolicyResolutionEvent)event;
+		policyResolution.end();
+		if(policyResolution.shouldCommit()) {
+			policyResolution.substituteInterface = substituteInterface;
+			policyResolution.publishingPolicy =
+				publishingPolicy != null ? publishingPolicy.getClass() : null;
+			policyResolution.commit();
+		}
+	}
+
+	Object beginSubstituteCreation()
+	{
+		if(!SUBSTITUTE_CREATION.isEnabled())
+			return null;
+		SubstituteCreationEvent event = new SubstituteCreationEvent();
+		event.begin();
+		return event;
+	}
+
+	void endSubstituteCreation(Object event, Class<?> substituteInterface, Class<?> substitutedClass)
+	{
+		if(event == null)
+			return;
+		SubstituteCreationEvent substituteCreation = (SubstituteCreationEvent)event;
+		substituteCreation.end();
+		if(substituteCreation.shouldCommit()) {
+			substituteCreation.substituteInterface = substituteInterface;
+			substituteCreation.substitutedClass = substitutedClass;
+			substituteCreation.commit();
+		}
+	}
+
+	Object beginLinkage()
+	{
+		LinkageEvent event = new LinkageEvent();
+		event.begin();
+		return event;
+	}
+
+	void endLinkage(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		LinkageEvent linkage = (LinkageEvent)event;
+		linkage.end();
+		if(linkage.shouldCommit()) {
+			linkage.substituteInterface = substituteInterface;
+			linkage.substitutedClass = substitutedClass;
+			linkage.method = signature(substituteInterface, siMethod);
+			linkage.commit();
+		}
+	}
+
+	Object beginInvocation()
+	{
+		if(!INVOCATION.isEnabled())
+			return null;
+		InvocationEvent event = new InvocationEvent();
+		event.begin();
+		return event;
+	}
+
+	void endInvocation(
+		Object event,
+		Class<?> substituteInterface,
+		Class<?> substitutedClass,
+		Method siMethod
+	)
+	{
+		if(event == null)
+			return;
+		InvocationEvent invocation = (InvocationEvent)event;
+		invocation.end();
+		if(invocation.shouldCommit()) {
+			invocation.substituteInterface = substituteInterface;
+			invocation.substitutedClass = substitutedClass;
+			invocation.method = signature(substituteInterface, siMethod);
+			invocation.commit();
+		}
+	}
+
+	private static String signature(Class<?> substituteInterface, Method siMethod)
+	{
+		return PublishingPolicyBase.createSignature(substituteInterface.getName(), siMethod);
+	}
+
+
+	@Name(PublisherEvents.POLICY_RESOLUTION)
+	@Label("Publishing Policy Resolution")
+	@Description("A publishing policy was created for a substitute interface")
+	@Category("Publisher")
+	private final static class PolicyResolutionEvent
+		extends
+			Event
+	{
+		@Label("Substitute Interface")
+		Class<?> substituteInterface;
+
+		@Label("Publishing Policy")
+		Class<?> publishingPolicy;
+	}
+
+
+	@Name(PublisherEvents.SUBSTITUTE_CREATION)
+	@Label("Substitute Creation")
+	@Description("A substitute object was created")
+	@Category("Publisher")
+	@Threshold("10 us")
+	private final static class SubstituteCreationEvent
+		extends
+			Event
+	{
+		@Label("Substitute Interface")
+		Class<?> substituteInterface;
+
+		@Label("Substituted Class")
+		Class<?> substitutedClass;
+	}
+
+
+	@Name(PublisherEvents.LINKAGE)
+	@Label("Substitute Method Linkage")
+	@Description("A substitute method was resolved to a private member of the substituted class")
+	@Category("Publisher")
+	private final static class LinkageEvent
+		extends
+			Event
+	{
+		@Label("Substitute Interface")
+		Class<?> substituteInterface;
+
+		@Label("Substituted Class")
+		Class<?> substitutedClass;
+
+		@Label("Method")
+		String method;
+	}
+
+
+	@Name(PublisherEvents.INVOCATION)
+	@Label("Substitute Method Invocation")
+	@Description("A substitute method of a proxy based substitute was called")
+	@Category("Publisher")
+	@Enabled(false)
+	@Threshold("1 ms")
+	@StackTrace(false)
+	private final static class InvocationEvent
+		extends
+			Event
+	{
+		@Label("Substitute Interface")
+		Class<?> substituteInterface;
+
+		@Label("Substituted Class")
+		Class<?> substitutedClass;
+
+		@Label("Method")
+		String method;
+	}
+}
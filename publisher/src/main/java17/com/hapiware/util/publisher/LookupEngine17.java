@@ -0,0 +1,29 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+
+
+/**
+ * A Java 17 {@link LookupEngine} which, in addition to {@link LookupEngine9}, defines hidden
+ * classes with class data for {@link BytecodeGeneratingPublishingPolicy}.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+class LookupEngine17
+	extends
+		LookupEngine9
+{
+	int release()
+	{
+		return 17;
+	}
+
+	Lookup defineHiddenClass(Class<?> host, byte[] bytes, Object classData)
+		throws
+			IllegalAccessException
+	{
+		return privateLookupIn(host).defineHiddenClassWithClassData(bytes, classData, true);
+	}
+}
@@ -0,0 +1,111 @@
+package com.hapiware.util.publisher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * A Java 9 {@link LookupEngine}. Private members are looked up with
+ * {@link MethodHandles#privateLookupIn(Class, Lookup)} so they are never made accessible, and
+ * fields are accessed through {@link VarHandle}s. If the private lookup is denied (e.g. by
+ * a module boundary) the baseline engine is used.
+ *
+ * @author <a href="http://www.hapiware.com" target="_blank">hapi</a>
+ *
+ */
+class LookupEngine9
+	extends
+		LookupEngine
+{
+	int release()
+	{
+		return 9;
+	}
+
+	MethodHandle unreflect(Method method)
+		throws
+			IllegalAccessException
+	{
+		try {
+			return privateLookupIn(method.getDeclaringClass()).unreflect(method);
+		}
+		catch(IllegalAccessException ex) {
+			return super.unreflect(method);
+		}
+	}
+
+	MethodHandle unreflectConstructor(Constructor<?> constructor)
+		throws
+			IllegalAccessException
+	{
+		try {
+			return privateLookupIn(constructor.getDeclaringClass()).unreflectConstructor(constructor);
+		}
+		catch(IllegalAccessException ex) {
+			return super.unreflectConstructor(constructor);
+		}
+	}
+
+	MethodHandle unreflectGetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		try {
+			return varHandle(field).toMethodHandle(VarHandle.AccessMode.GET);
+		}
+		catch(IllegalAccessException ex) {
+			return super.unreflectGetter(field);
+		}
+	}
+
+	/**
+	 * {@link VarHandle}s cannot write {@code final} fields so they are always made accessible
+	 * and unreflected.
+	 */
+	MethodHandle unreflectSetter(Field field)
+		throws
+			IllegalAccessException
+	{
+		if(!Modifier.isFinal(field.getModifiers())) {
+			try {
+				return varHandle(field).toMethodHandle(VarHandle.AccessMode.SET);
+			}
+			catch(IllegalAccessException ex) {
+				// Falls back to setAccessible() below.
+			}
+		}
+		return super.unreflectSetter(field);
+	}
+
+	Lookup privateLookupIn(Class<?> targetClass)
+		throws
+			IllegalAccessException
+	{
+		return MethodHandles.privateLookupIn(targetClass, MethodHandles.lookup());
+	}
+
+	private VarHandle varHandle(Field field)
+		throws
+			IllegalAccessException
+	{
+		Class<?> declaringClass = field.getDeclaringClass();
+		Lookup lookup = privateLookupIn(declaringClass);
+		try {
+			String name = field.getName();
+			if(Modifier.isStatic(field.getModifiers()))
+				return lookup.findStaticVarHandle(declaringClass, name, field.getType());
+			else
+				return lookup.findVarHandle(declaringClass, name, field.getType());
+		}
+		catch(NoSuchFieldException ex) {
+			// Cannot happen because the field was found with reflection.
+			throw new IllegalStateException(ex);
+		}
+	}
+}
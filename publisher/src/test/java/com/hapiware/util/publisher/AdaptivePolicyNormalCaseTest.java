@@ -5,7 +5,7 @@ import static junit.framework.Assert.assertEquals;
 import org.testng.annotations.Test;
 
 
-public class NonCachingPolicyNormalCaseTest
+public class AdaptivePolicyNormalCaseTest
 {
 	private interface SPublisher
 	{
@@ -31,7 +31,7 @@ public class NonCachingPolicyNormalCaseTest
 		PublishingPolicy<SPrivateMethods> pp =
 			substitutePublisher.findPublishingPolicy(SPrivateMethods.class);
 		assertEquals(
-			"com.hapiware.util.publisher.NonCachingPublishingPolicy",
+			"com.hapiware.util.publisher.AdaptivePublishingPolicy",
 			pp.getClass().getName()
 		);
 	}
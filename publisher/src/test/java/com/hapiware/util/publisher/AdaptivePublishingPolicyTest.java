@@ -0,0 +1,240 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.AdaptivePublishingPolicy.Tier;
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+
+
+public class AdaptivePublishingPolicyTest
+{
+	private interface SPrivateMethods
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+	}
+
+	private interface SFailing
+	{
+		public int parse(String value);
+	}
+
+	private interface SPrivateMethodsWithTypo
+	{
+		public int addd(int a, int b);
+	}
+
+	@MethodHandleCaching
+	private interface SHandles
+	{
+		public int add(int a, int b);
+	}
+
+	private static class Failing
+	{
+		@SuppressWarnings("unused")
+		private int parse(String value)
+		{
+			return Integer.parseInt(value);
+		}
+	}
+
+
+	@Test
+	public void testPromotion()
+		throws
+			Exception
+	{
+		AdaptivePublishingPolicy<SPrivateMethods> policy =
+			new AdaptivePublishingPolicy<SPrivateMethods>(SPrivateMethods.class, 3);
+		Method intAdd = SPrivateMethods.class.getMethod("add", int.class, int.class);
+		Method stringAdd = SPrivateMethods.class.getMethod("add", String.class, String.class);
+		Map<Method, Tier> tiers = policy.tiers(PrivateMethods.class);
+		assertEquals(6, tiers.size());
+		for(Tier tier : tiers.values())
+			assertEquals(Tier.REFLECTION, tier);
+
+		SPrivateMethods spm = policy.publish(new PrivateMethods());
+		for(int i = 0; i < 3; i++)
+			assertEquals(i + 1, spm.add(i, 1));
+		assertEquals("Hello World", spm.add("Hello", " World"));
+		assertEquals(Tier.REFLECTION, policy.tiers(PrivateMethods.class).get(intAdd));
+
+		assertEquals(4, spm.add(3, 1));
+		assertEquals(Tier.METHOD_HANDLE, policy.tiers(PrivateMethods.class).get(intAdd));
+		assertEquals(Tier.REFLECTION, policy.tiers(PrivateMethods.class).get(stringAdd));
+
+		// The calls are counted per substituted class, not per substitute object.
+		SPrivateMethods other = policy.publish(new PrivateMethods());
+		assertEquals(11, other.add(10, 1));
+		assertEquals(Tier.METHOD_HANDLE, policy.tiers(PrivateMethods.class).get(intAdd));
+	}
+
+	@Test
+	public void testZeroThreshold()
+	{
+		AdaptivePublishingPolicy<SPrivateMethods> policy =
+			new AdaptivePublishingPolicy<SPrivateMethods>(SPrivateMethods.class, 0);
+		SPrivateMethods spm = policy.publish(new PrivateMethods());
+		assertEquals(3, spm.add(1, 2));
+		assertEquals("Hello World", spm.add("Hello", " World"));
+		assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+		assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+		spm.doSomething();
+		assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[] { 5, 6, 7, 8, 9 }).length);
+		for(Tier tier : policy.tiers(PrivateMethods.class).values())
+			assertEquals(Tier.METHOD_HANDLE, tier);
+	}
+
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void testNegativeThreshold()
+	{
+		new AdaptivePublishingPolicy<SPrivateMethods>(SPrivateMethods.class, -1);
+	}
+
+	@Test
+	public void testStaticsOnly()
+		throws
+			Exception
+	{
+		AdaptivePublishingPolicy<SPrivateMethods> policy =
+			new AdaptivePublishingPolicy<SPrivateMethods>(SPrivateMethods.class, 1);
+		Method concat = SPrivateMethods.class.getMethod("concat", byte[].class, byte[].class);
+		SPrivateMethods spm = policy.publish(PrivateMethods.class);
+		for(int i = 0; i < 2; i++) {
+			spm.doSomething();
+			assertEquals(2, spm.concat(new byte[] { 1 }, new byte[] { 2 }).length);
+		}
+		assertEquals(Tier.METHOD_HANDLE, policy.staticTiers(PrivateMethods.class).get(concat));
+		assertEquals(Tier.REFLECTION, policy.tiers(PrivateMethods.class).get(concat));
+	}
+
+	@Test
+	public void testStaticsOnlyFailure()
+	{
+		for(int threshold : new int[] { 0, 1000 }) {
+			SPrivateMethods spm =
+				new AdaptivePublishingPolicy<SPrivateMethods>(
+					SPrivateMethods.class,
+					threshold
+				).publish(PrivateMethods.class);
+			try {
+				spm.add(1, 3);
+				fail();
+			}
+			catch(StaticMethodConflictError e) {
+				// Expected in both tiers.
+			}
+		}
+	}
+
+	@Test
+	public void testMethodNameConflict()
+	{
+		for(int threshold : new int[] { 0, 1000 }) {
+			SPrivateMethodsWithTypo spm =
+				new AdaptivePublishingPolicy<SPrivateMethodsWithTypo>(
+					SPrivateMethodsWithTypo.class,
+					threshold
+				).publish(new PrivateMethods());
+			try {
+				spm.addd(1, 3);
+				fail();
+			}
+			catch(SubstituteMethodNameConflictError e) {
+				// Expected in both tiers.
+			}
+		}
+	}
+
+	@Test
+	public void testExceptionsAreWrapped()
+	{
+		AdaptivePublishingPolicy<SFailing> policy =
+			new AdaptivePublishingPolicy<SFailing>(SFailing.class, 2);
+		SFailing failing = policy.publish(new Failing());
+		for(int i = 0; i < 5; i++) {
+			try {
+				failing.parse("x");
+				fail();
+			}
+			catch(UndeclaredThrowableException e) {
+				// Same in both tiers.
+				assertTrue(e.getCause() instanceof InvocationTargetException);
+				assertTrue(e.getCause().getCause() instanceof NumberFormatException);
+			}
+		}
+		assertEquals(
+			Tier.METHOD_HANDLE,
+			policy.tiers(Failing.class).get(SFailing.class.getMethods()[0])
+		);
+	}
+
+	@Test
+	public void testConcurrentPromotion()
+		throws
+			Exception
+	{
+		final AdaptivePublishingPolicy<SPrivateMethods> policy =
+			new AdaptivePublishingPolicy<SPrivateMethods>(SPrivateMethods.class, 100);
+		int numberOfThreads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for(int i = 0; i < numberOfThreads; i++)
+				results.add(
+					executor.submit(
+						new Callable<Integer>()
+						{
+							public Integer call()
+							{
+								SPrivateMethods spm = policy.publish(new PrivateMethods());
+								int total = 0;
+								for(int j = 0; j < 1000; j++)
+									total += spm.add(j, 1) - j;
+								return total;
+							}
+						}
+					)
+				);
+			for(Future<Integer> result : results)
+				assertEquals(1000, (int)result.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		Method intAdd = SPrivateMethods.class.getMethod("add", int.class, int.class);
+		assertEquals(Tier.METHOD_HANDLE, policy.tiers(PrivateMethods.class).get(intAdd));
+	}
+
+	@Test
+	public void testPublisherTiers()
+		throws
+			Exception
+	{
+		Method concat = SPrivateMethods.class.getMethod("concat", byte[].class, byte[].class);
+		Map<Method, Tier> tiers = Publisher.tiers(SPrivateMethods.class, PrivateMethods.class);
+		assertSame(Tier.REFLECTION, tiers.get(concat));
+		assertEquals(0, Publisher.tiers(SHandles.class, PrivateMethods.class).size());
+	}
+}
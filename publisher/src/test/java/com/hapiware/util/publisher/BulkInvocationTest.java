@@ -0,0 +1,213 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import org.testng.annotations.Test;
+
+
+public class BulkInvocationTest
+{
+	private interface SPrivateMethods
+	{
+		public int add(int a, int b);
+		public double add(double a, double b);
+		public String add(String a, String b);
+		public String superAlgorithm(String value, int num);
+		public byte[] concat(byte[] left, byte[] right);
+		public void doSomething();
+		public int add(long a, long b);
+	}
+	
+	private interface SLongs
+	{
+		public long multiply(long a, long b);
+		public void fail() throws IOException;
+	}
+	
+	@SuppressWarnings("unused")
+	private static class Longs
+	{
+		private long multiply(long a, long b)
+		{
+			return a * b;
+		}
+		
+		private void fail()
+			throws
+				IOException
+		{
+			throw new IOException("Failed.");
+		}
+	}
+	
+	
+	@Test
+	public void testInts()
+	{
+		int[][] rows = new int[100000][];
+		for(int i = 0; i < rows.length; i++)
+			rows[i] = new int[] { i, 2 * i };
+		int[] results = new int[rows.length];
+		Publisher.invokeAll(method("add", int.class, int.class), new PrivateMethods(), rows, results);
+		for(int i = 0; i < rows.length; i++)
+			assertEquals(3 * i, results[i]);
+	}
+	
+	@Test
+	public void testLongs()
+	{
+		long[][] rows = { { 2L, 3L }, { 1L << 40, 4L } };
+		long[] results = new long[2];
+		Publisher.invokeAll(longsMethod("multiply"), new Longs(), rows, results);
+		assertEquals(6L, results[0]);
+		assertEquals(1L << 42, results[1]);
+	}
+	
+	@Test
+	public void testDoubles()
+	{
+		double[][] rows = { { 3.14, 2.18 }, { 1.0, -1.0 } };
+		double[] results = new double[3];
+		Publisher.invokeAll(
+			method("add", double.class, double.class),
+			new PrivateMethods(),
+			rows,
+			results
+		);
+		assertEquals(5.32, results[0], 0.0001);
+		assertEquals(0.0, results[1], 0.0001);
+	}
+	
+	@Test
+	public void testObjects()
+	{
+		Object[][] rows = { { "Hello ", "world" }, { "a", 3 } };
+		Object[] results = new Object[2];
+		Publisher.invokeAll(
+			method("superAlgorithm", String.class, int.class),
+			new PrivateMethods(),
+			new Object[][] { rows[1] },
+			results
+		);
+		assertEquals("aaa", results[0]);
+		Publisher.invokeAll(
+			method("add", String.class, String.class),
+			new PrivateMethods(),
+			new Object[][] { rows[0] },
+			results
+		);
+		assertEquals("Hello world", results[0]);
+	}
+	
+	@Test
+	public void testStatics()
+	{
+		Object[][] rows = { { new byte[] { 1 }, new byte[] { 2, 3 } } };
+		Object[] results = new Object[1];
+		Publisher.invokeAll(
+			method("concat", byte[].class, byte[].class),
+			PrivateMethods.class,
+			rows,
+			results
+		);
+		assertEquals(3, ((byte[])results[0]).length);
+		
+		Object[][] noArguments = { {}, {} };
+		results = new Object[] { "a", "b" };
+		Publisher.invokeAll(method("doSomething"), PrivateMethods.class, noArguments, results);
+		assertNull(results[1]);
+		Publisher.invokeAll(method("doSomething"), PrivateMethods.class, noArguments, null);
+	}
+	
+	@Test
+	public void testCheckedException()
+	{
+		try {
+			Publisher.invokeAll(longsMethod("fail"), new Longs(), new Object[][] { {} }, null);
+		}
+		catch(UndeclaredThrowableException ex) {
+			assertSame(IOException.class, ex.getCause().getClass());
+			return;
+		}
+		throw new AssertionError("UndeclaredThrowableException was not thrown.");
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMissingMethod()
+	{
+		Publisher.invokeAll(
+			method("add", long.class, long.class),
+			new PrivateMethods(),
+			new Object[][] { { 1L, 2L } },
+			null
+		);
+	}
+	
+	@Test(expectedExceptions = {StaticMethodConflictError.class})
+	public void testInstanceMethodAsStatic()
+	{
+		Publisher.invokeAll(
+			method("add", int.class, int.class),
+			PrivateMethods.class,
+			new int[][] { { 1, 2 } },
+			new int[1]
+		);
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void testWrongPrimitiveType()
+	{
+		Publisher.invokeAll(
+			method("add", double.class, double.class),
+			new PrivateMethods(),
+			new int[][] { { 1, 2 } },
+			new int[1]
+		);
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void testShortResults()
+	{
+		Publisher.invokeAll(
+			method("add", int.class, int.class),
+			new PrivateMethods(),
+			new int[][] { { 1, 2 }, { 3, 4 } },
+			new int[1]
+		);
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void testWrongRowLength()
+	{
+		Publisher.invokeAll(
+			method("add", int.class, int.class),
+			new PrivateMethods(),
+			new int[][] { { 1, 2, 3 } },
+			new int[1]
+		);
+	}
+	
+	private static Method method(String name, Class<?>... parameterTypes)
+	{
+		try {
+			return SPrivateMethods.class.getMethod(name, parameterTypes);
+		}
+		catch(NoSuchMethodException ex) {
+			throw new AssertionError(ex);
+		}
+	}
+	
+	private static Method longsMethod(String name)
+	{
+		for(Method method : SLongs.class.getMethods())
+			if(method.getName().equals(name))
+				return method;
+		throw new AssertionError(name);
+	}
+}
@@ -0,0 +1,136 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.BytecodeGeneration;
+
+
+public class BytecodeGenerationPolicyTest
+{
+	private interface SPublisher
+	{
+		public <PSI> PublishingPolicy<PSI> findPublishingPolicy(
+			final Class<PSI> substituteInterface
+		);
+	}
+	
+	@BytecodeGeneration
+	private interface SPrivateMethods
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+	}
+	
+	@BytecodeGeneration
+	private interface SPrivateMethodsWithTypo
+	{
+		public int addd(int a, int b);
+	}
+	
+	@Test
+	public void policyNameIsOk()
+	{
+		Publisher<SPublisher> publisher = Publisher.create(SPublisher.class);
+		SPublisher substitutePublisher = Publisher.publish(SPublisher.class, publisher);
+		PublishingPolicy<SPrivateMethods> pp =
+			substitutePublisher.findPublishingPolicy(SPrivateMethods.class);
+		assertEquals(
+			"com.hapiware.util.publisher.BytecodeGeneratingPublishingPolicy",
+			pp.getClass().getName()
+		);
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		PrivateMethods pm = new PrivateMethods();
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, pm);
+		for(int i = 0; i < 3; i++) {
+			assertEquals(3, spm.add(1, 2));
+			assertEquals("Hello World", spm.add("Hello", " World"));
+			assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+			assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+			spm.doSomething();
+		}
+		
+		byte[] left = { 1, 2, 3, 4 };
+		byte[] right = { 10, 20, 30, 40, 50 };
+		byte[] result = spm.concat(left, right);
+		assertEquals(9, result.length);
+		int total = 0;
+		for(byte b : result)
+			total += b;
+		assertEquals(160, total);
+	}
+	
+	@Test
+	public void substituteIsGenerated()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		
+		// Hidden classes are defined only by the Java 17 lookup engine.
+		assertEquals(Lookups.engineRelease() < 17, Proxy.isProxyClass(spm.getClass()));
+		SPrivateMethods spm2 = Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		assertEquals(spm.getClass(), spm2.getClass());
+	}
+	
+	@Test
+	public void testCreateWithPolicy()
+	{
+		Publisher<SPrivateMethods> publisher =
+			Publisher.create(
+				new BytecodeGeneratingPublishingPolicy<SPrivateMethods>(SPrivateMethods.class)
+			);
+		for(int i = 0; i < 10; i++) {
+			SPrivateMethods spm = publisher.publish(new PrivateMethods());
+			assertEquals(i + 1, spm.add(i, 1));
+		}
+	}
+	
+	@Test
+	public void generatedClassesAreCleared()
+	{
+		Publisher<SPrivateMethods> publisher =
+			Publisher.create(
+				new BytecodeGeneratingPublishingPolicy<SPrivateMethods>(SPrivateMethods.class)
+			);
+		SPrivateMethods spm = publisher.publish(new PrivateMethods());
+		Publisher.clearCaches();
+		SPrivateMethods spm2 = publisher.publish(new PrivateMethods());
+		assertEquals(3, spm2.add(1, 2));
+		
+		// Proxy classes are cached by the JDK itself.
+		assertEquals(Lookups.engineRelease() >= 17, spm.getClass() != spm2.getClass());
+	}
+	
+	@Test
+	public void testStaticsOnly()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.doSomething();
+		assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[] { 5, 6, 7, 8, 9 }).length);
+	}
+	
+	@Test(expectedExceptions = {StaticMethodConflictError.class})
+	public void testStaticsOnlyFailure()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.add(1, 3);
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMethodNameConflict()
+	{
+		SPrivateMethodsWithTypo spm =
+			Publisher.publish(SPrivateMethodsWithTypo.class, new PrivateMethods());
+		spm.addd(1, 3);
+	}
+}
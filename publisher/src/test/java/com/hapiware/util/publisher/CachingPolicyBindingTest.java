@@ -0,0 +1,110 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdentityHashCaching;
+
+
+public class CachingPolicyBindingTest
+{
+	private interface SStatefulPrivateMethods
+	{
+		public int value();
+		public void add(int value);
+	}
+	
+	private interface SIdCaching
+		extends
+			SStatefulPrivateMethods
+	{
+		@Id(0)
+		public int value();
+		@Id(1)
+		public void add(int value);
+	}
+	
+	@IdentityHashCaching
+	private interface SIdentityHashCaching
+		extends
+			SStatefulPrivateMethods
+	{
+	}
+	
+	@ConcurrentIdentityHashCaching
+	private interface SConcurrentIdentityHashCaching
+		extends
+			SStatefulPrivateMethods
+	{
+	}
+	
+	@Test
+	public void idCachingBindsEveryObject()
+	{
+		assertBindsEveryObject(SIdCaching.class);
+	}
+	
+	@Test
+	public void identityHashCachingBindsEveryObject()
+	{
+		assertBindsEveryObject(SIdentityHashCaching.class);
+	}
+	
+	@Test
+	public void concurrentIdentityHashCachingBindsEveryObject()
+	{
+		assertBindsEveryObject(SConcurrentIdentityHashCaching.class);
+	}
+	
+	@Test
+	public void idCachingBindsEveryObjectInLoop()
+	{
+		assertBindsEveryObjectInLoop(SIdCaching.class);
+	}
+	
+	@Test
+	public void identityHashCachingBindsEveryObjectInLoop()
+	{
+		assertBindsEveryObjectInLoop(SIdentityHashCaching.class);
+	}
+	
+	@Test
+	public void concurrentIdentityHashCachingBindsEveryObjectInLoop()
+	{
+		assertBindsEveryObjectInLoop(SConcurrentIdentityHashCaching.class);
+	}
+	
+	private static void assertBindsEveryObject(
+		Class<? extends SStatefulPrivateMethods> substituteInterface
+	)
+	{
+		StatefulPrivateMethods spm1 = new StatefulPrivateMethods(1);
+		StatefulPrivateMethods spm2 = new StatefulPrivateMethods(2);
+		SStatefulPrivateMethods substitute1 = Publisher.publish(substituteInterface, spm1);
+		SStatefulPrivateMethods substitute2 = Publisher.publish(substituteInterface, spm2);
+		assertEquals(1, substitute1.value());
+		assertEquals(2, substitute2.value());
+		substitute2.add(10);
+		assertEquals(1, substitute1.value());
+		assertEquals(12, substitute2.value());
+		assertEquals(12, Publisher.publish(substituteInterface, spm2).value());
+	}
+	
+	private static void assertBindsEveryObjectInLoop(
+		Class<? extends SStatefulPrivateMethods> substituteInterface
+	)
+	{
+		Publisher<? extends SStatefulPrivateMethods> publisher =
+			Publisher.create(substituteInterface);
+		SStatefulPrivateMethods[] substitutes = new SStatefulPrivateMethods[10];
+		for(int i = 0; i < substitutes.length; i++) {
+			substitutes[i] = publisher.publish(new StatefulPrivateMethods(i));
+			substitutes[i].add(i);
+		}
+		for(int i = 0; i < substitutes.length; i++)
+			assertEquals(2 * i, substitutes[i].value());
+	}
+}
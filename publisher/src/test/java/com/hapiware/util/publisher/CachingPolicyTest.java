@@ -0,0 +1,101 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.Id;
+
+
+public class CachingPolicyTest
+{
+	private interface SPublisher
+	{
+		public <PSI> PublishingPolicy<PSI> findPublishingPolicy(
+			final Class<PSI> substituteInterface
+		);
+	}
+	
+	private interface SPrivateMethods
+	{
+		@Id(0)
+		public void doSomething();
+		@Id(1)
+		public String superAlgorithm(String value, int num);
+		@Id(2)
+		public String add(String a, String b);
+		@Id(3)
+		public double add(double a, double b);
+		@Id(4)
+		public int add(int a, int b);
+	}
+	
+	private interface SPrivateMethodsWithoutIds
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+		public int addd(int a, int b);
+	}
+	
+	@Test
+	public void policyNameIsOk()
+	{
+		Publisher<SPublisher> publisher = Publisher.create(SPublisher.class);
+		SPublisher substitutePublisher = Publisher.publish(SPublisher.class, publisher);
+		PublishingPolicy<SPrivateMethods> pp =
+			substitutePublisher.findPublishingPolicy(SPrivateMethods.class);
+		assertEquals(
+			"com.hapiware.util.publisher.CachingPublishingPolicy",
+			pp.getClass().getName()
+		);
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		for(int i = 0; i < 3; i++) {
+			assertEquals(i + 2, spm.add(i, 2));
+			assertEquals("Hello World", spm.add("Hello", " World"));
+			assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+			assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+			spm.doSomething();
+		}
+	}
+	
+	@Test
+	public void idsAreOptional()
+	{
+		Publisher<SPrivateMethodsWithoutIds> publisher =
+			Publisher.create(
+				new CachingPublishingPolicy<SPrivateMethodsWithoutIds>(
+					SPrivateMethodsWithoutIds.class
+				)
+			);
+		for(int i = 0; i < 3; i++) {
+			SPrivateMethodsWithoutIds spm = publisher.publish(new PrivateMethods());
+			assertEquals(i + 2, spm.add(i, 2));
+			assertEquals("Hello World", spm.add("Hello", " World"));
+			assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+			assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+			assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[5]).length);
+			spm.doSomething();
+		}
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMethodNameConflict()
+	{
+		Publisher<SPrivateMethodsWithoutIds> publisher =
+			Publisher.create(
+				new CachingPublishingPolicy<SPrivateMethodsWithoutIds>(
+					SPrivateMethodsWithoutIds.class
+				)
+			);
+		publisher.publish(new PrivateMethods()).addd(1, 3);
+	}
+}
@@ -0,0 +1,214 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.BytecodeGeneration;
+import com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdentityHashCaching;
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+import com.hapiware.util.publisher.annotation.NoCaching;
+
+
+/**
+ * The substitute interfaces are loaded by their own class loaders and {@link PrivateMethods} by
+ * the class loader of the tests, like a test would substitute a class of the application.
+ */
+public class ClassLoaderLeakTest
+{
+	public interface SAdaptive
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+	@NoCaching
+	public interface SNoCaching
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+	public interface SCaching
+	{
+		@Id(0) public int add(int a, int b);
+		@Id(1) public void doSomething();
+	}
+
+	@IdentityHashCaching
+	public interface SIdentityHashCaching
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+	@ConcurrentIdentityHashCaching
+	public interface SConcurrentIdentityHashCaching
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+	@MethodHandleCaching
+	public interface SMethodHandleCaching
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+	@BytecodeGeneration
+	public interface SBytecodeGeneration
+	{
+		public int add(int a, int b);
+		public void doSomething();
+	}
+
+
+	@Test
+	public void substituteInterfaceLoadersAreReleased()
+		throws
+			Exception
+	{
+		Class<?>[] substituteInterfaces =
+			new Class<?>[] {
+				SAdaptive.class,
+				SNoCaching.class,
+				SCaching.class,
+				SIdentityHashCaching.class,
+				SConcurrentIdentityHashCaching.class,
+				SMethodHandleCaching.class,
+				SBytecodeGeneration.class
+			};
+		for(Class<?> substituteInterface : substituteInterfaces)
+			assertReleased(
+				substituteInterface.getName(),
+				publish(substituteInterface.getName())
+			);
+	}
+
+	@Test
+	public void bulkInvocationLoadersAreReleased()
+		throws
+			Exception
+	{
+		assertReleased(SNoCaching.class.getName(), invokeAll(SNoCaching.class.getName()));
+	}
+
+	private static void assertReleased(
+		String substituteInterfaceName,
+		WeakReference<ClassLoader> loader
+	)
+		throws
+			Exception
+	{
+		for(int i = 0; i < 100 && loader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(substituteInterfaceName + " was not released.", loader.get());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static WeakReference<ClassLoader> publish(String substituteInterfaceName)
+		throws
+			Exception
+	{
+		ClassLoader loader = new InterfaceLoader(substituteInterfaceName);
+		Class substituteInterface = loader.loadClass(substituteInterfaceName);
+		Object substitute = Publisher.publish(substituteInterface, new PrivateMethods());
+		Method add = substituteInterface.getMethod("add", int.class, int.class);
+		assertEquals(3, add.invoke(substitute, 1, 2));
+		Object staticSubstitute = Publisher.publish(substituteInterface, PrivateMethods.class);
+		substituteInterface.getMethod("doSomething").invoke(staticSubstitute);
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	private static WeakReference<ClassLoader> invokeAll(String substituteInterfaceName)
+		throws
+			Exception
+	{
+		ClassLoader loader = new InterfaceLoader(substituteInterfaceName);
+		Class<?> substituteInterface = loader.loadClass(substituteInterfaceName);
+		Method add = substituteInterface.getMethod("add", int.class, int.class);
+		int[] results = new int[2];
+		Publisher.invokeAll(add, new PrivateMethods(), new int[][] { { 1, 2 }, { 3, 4 } }, results);
+		assertEquals(7, results[1]);
+		Method doSomething = substituteInterface.getMethod("doSomething");
+		Publisher.invokeAll(doSomething, PrivateMethods.class, new Object[][] { {} }, null);
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+
+	/**
+	 * Defines a single class itself and delegates everything else to the class loader of
+	 * the tests.
+	 */
+	private final static class InterfaceLoader
+		extends
+			ClassLoader
+	{
+		private final String _name;
+
+
+		InterfaceLoader(String name)
+		{
+			super(InterfaceLoader.class.getClassLoader());
+			_name = name;
+		}
+
+
+		protected Class<?> loadClass(String name, boolean resolve)
+			throws
+				ClassNotFoundException
+		{
+			if(!name.equals(_name))
+				return super.loadClass(name, resolve);
+
+			synchronized(getClassLoadingLock(name)) {
+				Class<?> loaded = findLoadedClass(name);
+				if(loaded == null) {
+					byte[] bytes = read(name);
+					loaded = defineClass(name, bytes, 0, bytes.length);
+				}
+				return loaded;
+			}
+		}
+
+		private static byte[] read(String name)
+			throws
+				ClassNotFoundException
+		{
+			InputStream in =
+				InterfaceLoader.class.getClassLoader().getResourceAsStream(
+					name.replace('.', '/') + ".class"
+				);
+			if(in == null)
+				throw new ClassNotFoundException(name);
+			try {
+				try {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					byte[] buffer = new byte[4096];
+					int length;
+					while((length = in.read(buffer)) > 0)
+						bytes.write(buffer, 0, length);
+					return bytes.toByteArray();
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch(IOException ex) {
+				throw new ClassNotFoundException(name, ex);
+			}
+		}
+	}
+}
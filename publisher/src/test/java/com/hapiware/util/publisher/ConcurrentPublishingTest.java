@@ -0,0 +1,301 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.ConcurrentIdentityHashCaching;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdentityHashCaching;
+
+
+/**
+ * Publishes and calls substitutes from many threads at the same time. Every round starts with
+ * a new publishing policy so that all the threads race to fill empty caches.
+ */
+public class ConcurrentPublishingTest
+{
+	private final static int NUMBER_OF_THREADS = 16;
+	private final static int NUMBER_OF_ROUNDS = 5;
+	private final static int NUMBER_OF_ITERATIONS = 500;
+	
+	private interface SStatefulPrivateMethods
+	{
+		@Id(0)
+		public int value();
+		@Id(1)
+		public void add(int value);
+		@Id(2)
+		public String describe(String prefix);
+		@Id(3)
+		public long multiply(long a, long b);
+	}
+	
+	@IdentityHashCaching
+	private interface SIdentityHashCaching
+		extends
+			SStatefulPrivateMethods
+	{
+	}
+	
+	@ConcurrentIdentityHashCaching
+	private interface SConcurrentIdentityHashCaching
+		extends
+			SStatefulPrivateMethods
+	{
+	}
+	
+	private interface PolicyFactory
+	{
+		public PublishingPolicy<? extends SStatefulPrivateMethods> create();
+	}
+	
+	@Test
+	public void nonCaching()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SStatefulPrivateMethods> create()
+				{
+					return
+						new NonCachingPublishingPolicy<SStatefulPrivateMethods>(
+							SStatefulPrivateMethods.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void caching()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SStatefulPrivateMethods> create()
+				{
+					return
+						new CachingPublishingPolicy<SStatefulPrivateMethods>(
+							SStatefulPrivateMethods.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void identityHashCaching()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SIdentityHashCaching> create()
+				{
+					return
+						new IdentityHashedCachingPublishingPolicy<SIdentityHashCaching>(
+							SIdentityHashCaching.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void concurrentIdentityHashCaching()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SConcurrentIdentityHashCaching> create()
+				{
+					return
+						new ConcurrentIdentityHashedCachingPublishingPolicy<
+							SConcurrentIdentityHashCaching
+						>(SConcurrentIdentityHashCaching.class);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void methodHandleCaching()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SStatefulPrivateMethods> create()
+				{
+					return
+						new MethodHandlePublishingPolicy<SStatefulPrivateMethods>(
+							SStatefulPrivateMethods.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void bytecodeGeneration()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SStatefulPrivateMethods> create()
+				{
+					return
+						new BytecodeGeneratingPublishingPolicy<SStatefulPrivateMethods>(
+							SStatefulPrivateMethods.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void prelinked()
+		throws
+			InterruptedException
+	{
+		stress(
+			new PolicyFactory()
+			{
+				public PublishingPolicy<SStatefulPrivateMethods> create()
+				{
+					return
+						new PrelinkedPublishingPolicy<SStatefulPrivateMethods>(
+							SStatefulPrivateMethods.class,
+							StatefulPrivateMethods.class
+						);
+				}
+			}
+		);
+	}
+	
+	@Test
+	public void sharedPublishingPolicies()
+		throws
+			InterruptedException
+	{
+		// Goes through the annotations and the shared policies of Publisher.
+		final Class<?>[] substituteInterfaces = {
+			SStatefulPrivateMethods.class,
+			SIdentityHashCaching.class,
+			SConcurrentIdentityHashCaching.class
+		};
+		for(final Class<?> substituteInterface : substituteInterfaces) {
+			stress(
+				new PolicyFactory()
+				{
+					@SuppressWarnings("unchecked")
+					public PublishingPolicy<SStatefulPrivateMethods> create()
+					{
+						final Class<SStatefulPrivateMethods> si =
+							(Class<SStatefulPrivateMethods>)substituteInterface;
+						return
+							new PublishingPolicy<SStatefulPrivateMethods>()
+							{
+								public SStatefulPrivateMethods publish(Object substitutedObject)
+								{
+									return Publisher.publish(si, substitutedObject);
+								}
+								
+								public SStatefulPrivateMethods publish(Class<?> substitutedClass)
+								{
+									return Publisher.publish(si, substitutedClass);
+								}
+							};
+					}
+				}
+			);
+		}
+	}
+	
+	private static void stress(PolicyFactory policyFactory)
+		throws
+			InterruptedException
+	{
+		for(int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+			final Publisher<? extends SStatefulPrivateMethods> publisher =
+				Publisher.create(policyFactory.create());
+			final CountDownLatch start = new CountDownLatch(1);
+			final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+			Thread[] threads = new Thread[NUMBER_OF_THREADS];
+			for(int t = 0; t < threads.length; t++) {
+				final int threadNumber = t;
+				threads[t] =
+					new Thread()
+					{
+						public void run()
+						{
+							try {
+								start.await();
+								for(int i = 0; i < NUMBER_OF_ITERATIONS; i++)
+									exercise(publisher, threadNumber, i);
+							}
+							catch(Throwable ex) {
+								failures.add(ex);
+							}
+						}
+					};
+				threads[t].start();
+			}
+			start.countDown();
+			for(Thread thread : threads)
+				thread.join();
+			if(!failures.isEmpty()) {
+				Throwable failure = failures.peek();
+				AssertionError error =
+					new AssertionError(failures.size() + " thread(s) failed: " + failure);
+				error.initCause(failure);
+				throw error;
+			}
+		}
+	}
+	
+	private static void exercise(
+		Publisher<? extends SStatefulPrivateMethods> publisher,
+		int threadNumber,
+		int iteration
+	)
+	{
+		int value = threadNumber * NUMBER_OF_ITERATIONS + iteration;
+		SStatefulPrivateMethods substitute = publisher.publish(new StatefulPrivateMethods(value));
+		assertEquals(value, substitute.value());
+		substitute.add(1);
+		assertEquals(value + 1, substitute.value());
+		assertEquals("v" + (value + 1), substitute.describe("v"));
+		assertEquals(6L * value, substitute.multiply(6L, value));
+		if(iteration % 100 == 0) {
+			// Publishing a wrong object is rejected either when published or when called.
+			boolean rejected = false;
+			try {
+				publisher.publish(new Object()).value();
+			}
+			catch(IllegalArgumentException ex) {
+				rejected = true;
+			}
+			catch(SubstituteMethodNameConflictError ex) {
+				rejected = true;
+			}
+			assertTrue(rejected);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import org.testng.annotations.Test;
+
+
+public class EagerLinkingTest
+{
+	private interface SPrivateMethods
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+	}
+	
+	private interface SStatefulPrivateMethods
+	{
+		public int value();
+		public void add(int value);
+	}
+	
+	private interface SPrivateMethodsWithTypos
+	{
+		public int add(int a, int b);
+		public int addd(int a, int b);
+		public String superAlgoritm(String value, int num);
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		Publisher<SPrivateMethods> publisher =
+			Publisher.create(SPrivateMethods.class, PrivateMethods.class);
+		for(int i = 0; i < 3; i++) {
+			SPrivateMethods spm = publisher.publish(new PrivateMethods());
+			assertEquals(i + 1, spm.add(i, 1));
+			assertEquals("Hello World", spm.add("Hello", " World"));
+			assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+			assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+			spm.doSomething();
+			assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[5]).length);
+		}
+	}
+	
+	@Test
+	public void everySubstituteIsBoundToItsOwnObject()
+	{
+		Publisher<SStatefulPrivateMethods> publisher =
+			Publisher.create(SStatefulPrivateMethods.class, StatefulPrivateMethods.class);
+		SStatefulPrivateMethods substitute1 = publisher.publish(new StatefulPrivateMethods(1));
+		SStatefulPrivateMethods substitute2 = publisher.publish(new StatefulPrivateMethods(2));
+		substitute2.add(10);
+		assertEquals(1, substitute1.value());
+		assertEquals(12, substitute2.value());
+	}
+	
+	@Test
+	public void allMismatchesAreReported()
+	{
+		try {
+			Publisher.create(SPrivateMethodsWithTypos.class, PrivateMethods.class);
+			fail();
+		}
+		catch(SubstituteLinkageError e) {
+			assertEquals(2, e.getSuppressed().length);
+			for(Throwable mismatch : e.getSuppressed())
+				assertEquals(SubstituteMethodNameConflictError.class, mismatch.getClass());
+			assertTrue(e.getMessage().contains(".addd(int,int)"));
+			assertTrue(e.getMessage().contains(".superAlgoritm(java.lang.String,int)"));
+		}
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void wrongObjectIsRejected()
+	{
+		Publisher.create(SPrivateMethods.class, PrivateMethods.class).publish("Hello");
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void substituteInterfaceMustBeInterface()
+	{
+		Publisher.create(PrivateMethods.class, PrivateMethods.class);
+	}
+}
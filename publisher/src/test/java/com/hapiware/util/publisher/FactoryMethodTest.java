@@ -0,0 +1,110 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+
+public class FactoryMethodTest
+{
+	private interface SPrivateConstructors
+	{
+		public PrivateConstructors create(int value);
+		public PrivateConstructors create(String name, int value);
+		public PrivateConstructors of(int value);
+	}
+	
+	private interface SDescribe
+	{
+		public String describe();
+	}
+	
+	private interface SMissingConstructor
+	{
+		public PrivateConstructors create(long value);
+	}
+	
+	
+	@Test
+	public void testAsClass()
+	{
+		List<PublishingPolicy<SPrivateConstructors>> policies =
+			PublishingPolicies.all(SPrivateConstructors.class, PrivateConstructors.class);
+		for(PublishingPolicy<SPrivateConstructors> policy : policies) {
+			SPrivateConstructors factory = policy.publish(PrivateConstructors.class);
+			assertEquals("int1", describe(factory.create(1)));
+			assertEquals("name2", describe(factory.create("name", 2)));
+			assertEquals("of3", describe(factory.of(3)));
+			assertNotSame(factory.create(4), factory.create(4));
+		}
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		List<PublishingPolicy<SPrivateConstructors>> policies =
+			PublishingPolicies.all(SPrivateConstructors.class, PrivateConstructors.class);
+		for(PublishingPolicy<SPrivateConstructors> policy : policies) {
+			SPrivateConstructors factory =
+				Publisher.create(policy).publish(
+					Publisher.publish(SPrivateConstructors.class, PrivateConstructors.class).create(0)
+				);
+			assertEquals("int5", describe(factory.create(5)));
+			assertEquals("of6", describe(factory.of(6)));
+		}
+	}
+	
+	@Test
+	public void testManyObjects()
+	{
+		SPrivateConstructors factory =
+			Publisher.publish(SPrivateConstructors.class, PrivateConstructors.class);
+		int total = 0;
+		for(int i = 0; i < 10000; i++)
+			total += describe(factory.create("", i)).length();
+		assertEquals(38890, total);
+	}
+	
+	@Test
+	public void existingMethodIsWrappedLikeOtherMethods()
+	{
+		// of() is a private method, not a factory linked to a constructor.
+		List<PublishingPolicy<SPrivateConstructors>> policies =
+			new ArrayList<PublishingPolicy<SPrivateConstructors>>();
+		policies.add(
+			new NonCachingPublishingPolicy<SPrivateConstructors>(SPrivateConstructors.class)
+		);
+		policies.add(
+			new CachingPublishingPolicy<SPrivateConstructors>(SPrivateConstructors.class)
+		);
+		for(PublishingPolicy<SPrivateConstructors> policy : policies) {
+			try {
+				policy.publish(PrivateConstructors.class).of(-1);
+				fail();
+			}
+			catch(UndeclaredThrowableException e) {
+				assertTrue(e.getCause() instanceof InvocationTargetException);
+				assertTrue(e.getCause().getCause() instanceof IllegalArgumentException);
+			}
+		}
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMissingConstructor()
+	{
+		Publisher.publish(SMissingConstructor.class, PrivateConstructors.class).create(1L);
+	}
+	
+	private static String describe(PrivateConstructors object)
+	{
+		return Publisher.publish(SDescribe.class, object).describe();
+	}
+}
@@ -0,0 +1,117 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.FieldAccessor;
+
+
+public class FieldAccessorTest
+{
+	private interface SPrivateFields
+	{
+		@FieldAccessor
+		public int getCount();
+		
+		@FieldAccessor
+		public void setCount(int count);
+		
+		@FieldAccessor("_id")
+		public long id();
+		
+		@FieldAccessor
+		public double getRatio();
+		
+		@FieldAccessor("ratio")
+		public void ratio(double ratio);
+		
+		public int twice();
+	}
+	
+	private interface SStaticPrivateFields
+	{
+		@FieldAccessor
+		public String getName();
+		
+		@FieldAccessor
+		public void setName(String name);
+	}
+	
+	private interface SMissingField
+	{
+		@FieldAccessor
+		public int getSize();
+	}
+	
+	private interface SWrongShape
+	{
+		@FieldAccessor
+		public void count();
+	}
+	
+	
+	@Test
+	public void testAllPolicies()
+	{
+		List<PublishingPolicy<SPrivateFields>> policies =
+			PublishingPolicies.all(SPrivateFields.class, PrivateFields.class);
+		for(PublishingPolicy<SPrivateFields> policy : policies) {
+			Publisher<SPrivateFields> publisher = Publisher.create(policy);
+			SPrivateFields spf1 = publisher.publish(new PrivateFields(1));
+			SPrivateFields spf2 = publisher.publish(new PrivateFields(2));
+			spf1.setCount(3);
+			spf2.setCount(7);
+			spf2.ratio(0.5);
+			assertEquals(3, spf1.getCount());
+			assertEquals(6, spf1.twice());
+			assertEquals(7, spf2.getCount());
+			assertEquals(1L, spf1.id());
+			assertEquals(2L, spf2.id());
+			assertEquals(0.0, spf1.getRatio(), 0.0);
+			assertEquals(0.5, spf2.getRatio(), 0.0);
+		}
+	}
+	
+	@Test
+	public void testStaticField()
+	{
+		SStaticPrivateFields spf =
+			Publisher.publish(SStaticPrivateFields.class, PrivateFields.class);
+		assertEquals("static", spf.getName());
+		try {
+			spf.setName("changed");
+			assertEquals("changed", spf.getName());
+		}
+		finally {
+			spf.setName("static");
+		}
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMissingField()
+	{
+		Publisher.create(SMissingField.class).publish(new PrivateFields(1)).getSize();
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testWrongShape()
+	{
+		Publisher.create(SWrongShape.class).publish(new PrivateFields(1)).count();
+	}
+	
+	@Test
+	public void testEagerLinking()
+	{
+		try {
+			Publisher.create(SMissingField.class, PrivateFields.class);
+			fail();
+		}
+		catch(SubstituteLinkageError e) {
+			assertEquals(1, e.getSuppressed().length);
+		}
+	}
+}
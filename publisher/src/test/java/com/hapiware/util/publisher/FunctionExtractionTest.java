@@ -0,0 +1,133 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToIntFunction;
+
+import org.testng.annotations.Test;
+
+
+public class FunctionExtractionTest
+{
+	@Test
+	public void testPrimitives()
+	{
+		PrivateMethods pm = new PrivateMethods();
+		IntBinaryOperator addInt =
+			Publisher.extract(IntBinaryOperator.class, pm, "add", int.class, int.class);
+		DoubleBinaryOperator addDouble =
+			Publisher.extract(DoubleBinaryOperator.class, pm, "add", double.class, double.class);
+		
+		// Lambdas are spun only with a private lookup (i.e. Java 9 or later).
+		assertEquals(Lookups.engineRelease() < 9, Proxy.isProxyClass(addInt.getClass()));
+		int total = 0;
+		for(int i = 0; i < 1000; i++)
+			total = addInt.applyAsInt(total, i);
+		assertEquals(499500, total);
+		assertEquals(5.32, addDouble.applyAsDouble(3.14, 2.18), 0.0001);
+	}
+	
+	@Test
+	public void testGenerics()
+	{
+		PrivateMethods pm = new PrivateMethods();
+		@SuppressWarnings("unchecked")
+		ToDoubleBiFunction<Double, Double> addDouble =
+			Publisher.extract(ToDoubleBiFunction.class, pm, "add", double.class, double.class);
+		@SuppressWarnings("unchecked")
+		BinaryOperator<String> addString =
+			Publisher.extract(BinaryOperator.class, pm, "add", String.class, String.class);
+		@SuppressWarnings("unchecked")
+		BinaryOperator<byte[]> concat =
+			Publisher.extract(
+				BinaryOperator.class,
+				PrivateMethods.class,
+				"concat",
+				byte[].class,
+				byte[].class
+			);
+		assertEquals(5.32, addDouble.applyAsDouble(3.14, 2.18), 0.0001);
+		assertEquals("Hello World", addString.apply("Hello", " World"));
+		assertEquals(9, concat.apply(new byte[4], new byte[5]).length);
+	}
+	
+	@Test
+	public void receiverIsBound()
+	{
+		StatefulPrivateMethods spm = new StatefulPrivateMethods(5);
+		IntSupplier value = Publisher.extract(IntSupplier.class, spm, "value");
+		IntConsumer add = Publisher.extract(IntConsumer.class, spm, "add", int.class);
+		add.accept(10);
+		assertEquals(15, value.getAsInt());
+		IntSupplier otherValue =
+			Publisher.extract(IntSupplier.class, new StatefulPrivateMethods(1), "value");
+		assertEquals(1, otherValue.getAsInt());
+	}
+	
+	@Test
+	public void receiverIsTheFirstParameter()
+	{
+		@SuppressWarnings("unchecked")
+		ToIntFunction<StatefulPrivateMethods> value =
+			Publisher.extract(ToIntFunction.class, StatefulPrivateMethods.class, "value");
+		assertEquals(3, value.applyAsInt(new StatefulPrivateMethods(3)));
+		assertEquals(4, value.applyAsInt(new StatefulPrivateMethods(4)));
+	}
+	
+	@Test
+	public void functionsAreCached()
+	{
+		LongBinaryOperator multiply1 =
+			Publisher.extract(
+				LongBinaryOperator.class,
+				StatefulPrivateMethods.class,
+				"multiply",
+				long.class,
+				long.class
+			);
+		LongBinaryOperator multiply2 =
+			Publisher.extract(
+				LongBinaryOperator.class,
+				StatefulPrivateMethods.class,
+				"multiply",
+				long.class,
+				long.class
+			);
+		assertSame(multiply1, multiply2);
+		assertEquals(12, multiply1.applyAsLong(3, 4));
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void missingMethod()
+	{
+		Publisher.extract(
+			IntBinaryOperator.class,
+			new PrivateMethods(),
+			"addd",
+			int.class,
+			int.class
+		);
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void notFunctionalInterface()
+	{
+		Publisher.extract(List.class, new PrivateMethods(), "add", int.class, int.class);
+	}
+	
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void wrongArity()
+	{
+		Publisher.extract(IntSupplier.class, new PrivateMethods(), "add", int.class, int.class);
+	}
+}
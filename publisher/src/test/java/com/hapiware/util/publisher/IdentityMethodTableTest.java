@@ -0,0 +1,63 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+
+public class IdentityMethodTableTest
+{
+	private final static int NUMBER_OF_KEYS = 5000;
+	
+	@Test
+	public void keysAreComparedByReference()
+		throws
+			NoSuchMethodException
+	{
+		IdentityMethodTable table = new IdentityMethodTable();
+		Method key = Object.class.getMethod("hashCode");
+		Method value = Object.class.getMethod("toString");
+		assertNull(table.putIfAbsent(key, value));
+		assertSame(value, table.get(key));
+		
+		// Equal but not the same Method object.
+		Method equalKey = Object.class.getMethod("hashCode");
+		assertEquals(key, equalKey);
+		assertNull(table.get(equalKey));
+	}
+	
+	@Test
+	public void firstValueWins()
+		throws
+			NoSuchMethodException
+	{
+		IdentityMethodTable table = new IdentityMethodTable();
+		Method key = Object.class.getMethod("hashCode");
+		Method value = Object.class.getMethod("toString");
+		assertNull(table.putIfAbsent(key, value));
+		assertSame(value, table.putIfAbsent(key, Object.class.getMethod("toString")));
+		assertSame(value, table.get(key));
+	}
+	
+	@Test
+	public void everyKeyHasItsOwnValue()
+		throws
+			NoSuchMethodException
+	{
+		// Thousands of keys to make sure that the identity hash codes collide in the table.
+		IdentityMethodTable table = new IdentityMethodTable();
+		Method[] keys = new Method[NUMBER_OF_KEYS];
+		Method[] values = new Method[NUMBER_OF_KEYS];
+		for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+			keys[i] = Object.class.getMethod("hashCode");
+			values[i] = Object.class.getMethod("toString");
+			assertNull(table.putIfAbsent(keys[i], values[i]));
+		}
+		for(int i = 0; i < NUMBER_OF_KEYS; i++)
+			assertSame(values[i], table.get(keys[i]));
+	}
+}
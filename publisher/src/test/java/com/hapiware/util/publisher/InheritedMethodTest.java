@@ -0,0 +1,114 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+
+public class InheritedMethodTest
+{
+	private interface SLeaf
+	{
+		public int scale(int value);
+		public String name();
+		public int twice(int value);
+	}
+	
+	private interface SMissing
+	{
+		public int scale(long value);
+	}
+	
+	@SuppressWarnings("unused")
+	private static class Base
+	{
+		private final int _factor;
+		
+		
+		public Base(int factor)
+		{
+			_factor = factor;
+		}
+		
+		private int scale(int value)
+		{
+			return value * _factor;
+		}
+		
+		private String name()
+		{
+			return "base";
+		}
+		
+		private static int twice(int value)
+		{
+			return 2 * value;
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	private static class Middle
+		extends
+			Base
+	{
+		public Middle(int factor)
+		{
+			super(factor);
+		}
+		
+		private String name()
+		{
+			return "middle";
+		}
+	}
+	
+	private static class Leaf
+		extends
+			Middle
+	{
+		public Leaf(int factor)
+		{
+			super(factor);
+		}
+	}
+	
+	
+	@Test
+	public void testAsObject()
+	{
+		List<PublishingPolicy<SLeaf>> policies = PublishingPolicies.all(SLeaf.class, Leaf.class);
+		for(PublishingPolicy<SLeaf> policy : policies) {
+			SLeaf leaf = policy.publish(new Leaf(3));
+			assertEquals(6, leaf.scale(2));
+			assertEquals("middle", leaf.name());
+			assertEquals(8, leaf.twice(4));
+		}
+	}
+	
+	@Test
+	public void testAsClass()
+	{
+		List<PublishingPolicy<SLeaf>> policies = PublishingPolicies.all(SLeaf.class, Leaf.class);
+		for(PublishingPolicy<SLeaf> policy : policies)
+			assertEquals(10, policy.publish(Leaf.class).twice(5));
+	}
+	
+	@Test
+	public void testSuperclassIsNotAffected()
+	{
+		SLeaf base = Publisher.publish(SLeaf.class, new Base(5));
+		assertEquals(10, base.scale(2));
+		assertEquals("base", base.name());
+		SLeaf middle = Publisher.publish(SLeaf.class, new Middle(5));
+		assertEquals("middle", middle.name());
+		assertEquals("middle", Publisher.publish(SLeaf.class, new Leaf(5)).name());
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMissingMethod()
+	{
+		Publisher.publish(SMissing.class, new Leaf(1)).scale(1L);
+	}
+}
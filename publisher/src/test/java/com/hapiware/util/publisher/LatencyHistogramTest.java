@@ -0,0 +1,49 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void bucketsCoverValues()
+	{
+		Random random = new Random(42);
+		for(int i = 0; i < 100000; i++) {
+			long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+			long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(value));
+			assertTrue(value + " > " + highest, value <= highest);
+			assertTrue(value + " is not within 6%", highest - value <= value / 16);
+		}
+		int index = LatencyHistogram.index(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestEquivalentValue(index));
+	}
+	
+	@Test
+	public void smallValuesAreExact()
+	{
+		for(long value = 0; value < 32; value++) {
+			int index = LatencyHistogram.index(value);
+			assertEquals(value, LatencyHistogram.highestEquivalentValue(index));
+		}
+	}
+	
+	@Test
+	public void percentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long value = 1; value <= 1000; value++)
+			histogram.record(value);
+		long[] counts = histogram.counts();
+		assertEquals(1000, histogram.max());
+		assertTrue(Math.abs(LatencyHistogram.valueAt(counts, 50.0) - 500) <= 500 / 16);
+		assertTrue(Math.abs(LatencyHistogram.valueAt(counts, 99.0) - 990) <= 990 / 16);
+		assertEquals(1, LatencyHistogram.valueAt(counts, 0.0));
+		assertEquals(0, LatencyHistogram.valueAt(new LatencyHistogram().counts(), 50.0));
+	}
+}
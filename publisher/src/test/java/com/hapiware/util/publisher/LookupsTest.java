@@ -0,0 +1,72 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+
+public class LookupsTest
+{
+	@Test
+	public void engineIsLimitedWithProperty()
+	{
+		String release = System.getProperty(MultiRelease.ENGINE_PROPERTY);
+		if(release != null)
+			assertEquals(Integer.parseInt(release), Lookups.engineRelease());
+	}
+
+	@Test
+	public void privateMembersAreUnreflected()
+		throws
+			Throwable
+	{
+		Method add = PrivateMethods.class.getDeclaredMethod("add", int.class, int.class);
+		MethodHandle handle = Lookups.unreflect(add);
+		assertEquals(3, (int)handle.invokeExact(new PrivateMethods(), 1, 2));
+
+		Field count = PrivateFields.class.getDeclaredField("_count");
+		PrivateFields pf = new PrivateFields(1);
+		Lookups.unreflectSetter(count).invoke(pf, 7);
+		assertEquals(7, (int)Lookups.unreflectGetter(count).invoke(pf));
+	}
+
+	@Test
+	public void privateLookupIn()
+		throws
+			IllegalAccessException
+	{
+		if(Lookups.engineRelease() < 9) {
+			try {
+				Lookups.privateLookupIn(PrivateMethods.class);
+				throw new AssertionError("Private lookups are supported by the baseline engine.");
+			}
+			catch(IllegalAccessException ex) {
+				return;
+			}
+		}
+		Lookup lookup = Lookups.privateLookupIn(PrivateMethods.class);
+		assertSame(PrivateMethods.class, lookup.lookupClass());
+	}
+
+	@Test
+	public void hiddenClassesNeedJava17()
+		throws
+			IllegalAccessException
+	{
+		if(Lookups.engineRelease() >= 17)
+			return;
+		try {
+			Lookups.defineHiddenClass(PrivateMethods.class, new byte[0], null);
+			throw new AssertionError("Hidden classes are supported before Java 17.");
+		}
+		catch(UnsupportedOperationException ex) {
+			// Expected.
+		}
+	}
+}
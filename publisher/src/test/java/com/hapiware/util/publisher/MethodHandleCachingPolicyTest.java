@@ -0,0 +1,107 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+
+
+public class MethodHandleCachingPolicyTest
+{
+	private interface SPublisher
+	{
+		public <PSI> PublishingPolicy<PSI> findPublishingPolicy(
+			final Class<PSI> substituteInterface
+		);
+	}
+	
+	@MethodHandleCaching
+	private interface SPrivateMethods
+	{
+		public void doSomething();
+		public String superAlgorithm(String value, int num);
+		public String add(String a, String b);
+		public double add(double a, double b);
+		public int add(int a, int b);
+		public byte[] concat(byte[] left, byte[] right);
+	}
+	
+	@MethodHandleCaching
+	private interface SPrivateMethodsWithTypo
+	{
+		public int addd(int a, int b);
+	}
+	
+	@Test
+	public void policyNameIsOk()
+	{
+		Publisher<SPublisher> publisher = Publisher.create(SPublisher.class);
+		SPublisher substitutePublisher = Publisher.publish(SPublisher.class, publisher);
+		PublishingPolicy<SPrivateMethods> pp =
+			substitutePublisher.findPublishingPolicy(SPrivateMethods.class);
+		assertEquals(
+			"com.hapiware.util.publisher.MethodHandlePublishingPolicy",
+			pp.getClass().getName()
+		);
+	}
+	
+	@Test
+	public void testAsObject()
+	{
+		PrivateMethods pm = new PrivateMethods();
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, pm);
+		for(int i = 0; i < 3; i++) {
+			assertEquals(3, spm.add(1, 2));
+			assertEquals("Hello World", spm.add("Hello", " World"));
+			assertEquals(5.32, spm.add(3.14, 2.18), 0.0001);
+			assertEquals("HiHiHiHi", spm.superAlgorithm("Hi", 4));
+			spm.doSomething();
+		}
+		
+		byte[] left = { 1, 2, 3, 4 };
+		byte[] right = { 10, 20, 30, 40, 50 };
+		byte[] result = spm.concat(left, right);
+		assertEquals(9, result.length);
+		int total = 0;
+		for(byte b : result)
+			total += b;
+		assertEquals(160, total);
+	}
+	
+	@Test
+	public void testCreateWithPolicy()
+	{
+		Publisher<SPrivateMethods> publisher =
+			Publisher.create(
+				new MethodHandlePublishingPolicy<SPrivateMethods>(SPrivateMethods.class)
+			);
+		for(int i = 0; i < 10; i++) {
+			SPrivateMethods spm = publisher.publish(new PrivateMethods());
+			assertEquals(i + 1, spm.add(i, 1));
+		}
+	}
+	
+	@Test
+	public void testStaticsOnly()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.doSomething();
+		assertEquals(9, spm.concat(new byte[] { 1, 2, 3, 4 }, new byte[] { 5, 6, 7, 8, 9 }).length);
+	}
+	
+	@Test(expectedExceptions = {StaticMethodConflictError.class})
+	public void testStaticsOnlyFailure()
+	{
+		SPrivateMethods spm = Publisher.publish(SPrivateMethods.class, PrivateMethods.class);
+		spm.add(1, 3);
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void testMethodNameConflict()
+	{
+		SPrivateMethodsWithTypo spm =
+			Publisher.publish(SPrivateMethodsWithTypo.class, new PrivateMethods());
+		spm.addd(1, 3);
+	}
+}
@@ -0,0 +1,69 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.Id;
+
+
+public class MethodSlotTableTest
+{
+	private interface SWithIds
+	{
+		@Id(1)
+		public void doSomething();
+		@Id(0)
+		public int add(int a, int b);
+		@Id(2)
+		public double add(double a, double b);
+	}
+	
+	private interface SWithoutIds
+	{
+		public void doSomething();
+		public int add(int a, int b);
+		public double add(double a, double b);
+	}
+	
+	@Test
+	public void slotsAreIds()
+		throws
+			NoSuchMethodException
+	{
+		MethodSlotTable table = new MethodSlotTable(SWithIds.class.getDeclaredMethods());
+		assertEquals(3, table.size());
+		assertEquals(1, table.slot(SWithIds.class.getMethod("doSomething")));
+		assertEquals(0, table.slot(SWithIds.class.getMethod("add", int.class, int.class)));
+		assertEquals(2, table.slot(SWithIds.class.getMethod("add", double.class, double.class)));
+	}
+	
+	@Test
+	public void slotsAreInDeclarationOrder()
+	{
+		Method[] methods = SWithoutIds.class.getDeclaredMethods();
+		MethodSlotTable table = new MethodSlotTable(methods);
+		assertEquals(methods.length, table.size());
+		for(int i = 0; i < methods.length; i++) {
+			assertEquals(i, table.slot(methods[i]));
+			
+			// Equal but not the same Method object.
+			assertEquals(
+				i,
+				table.slot(SWithoutIds.class.getDeclaredMethods()[i])
+			);
+		}
+	}
+	
+	@Test
+	public void unknownMethodHasNoSlot()
+		throws
+			NoSuchMethodException
+	{
+		MethodSlotTable table = new MethodSlotTable(SWithoutIds.class.getDeclaredMethods());
+		assertEquals(-1, table.slot(Object.class.getMethod("hashCode")));
+		assertEquals(-1, table.slot(SWithIds.class.getMethod("doSomething")));
+	}
+}
@@ -0,0 +1,158 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+
+import org.testng.annotations.Test;
+
+
+public class ParallelPublishingTest
+{
+	private final static int NUMBER_OF_OBJECTS = 100000;
+	
+	private interface SStatefulPrivateMethods
+	{
+		public int value();
+		public String describe(String prefix);
+	}
+	
+	private interface SMissing
+	{
+		public int count();
+	}
+	
+	
+	@Test
+	public void resultsAreInOrder()
+	{
+		List<Integer> results =
+			Publisher.create(SStatefulPrivateMethods.class).publishAll(
+				objects(NUMBER_OF_OBJECTS).spliterator(),
+				new Function<SStatefulPrivateMethods, Integer>()
+				{
+					public Integer apply(SStatefulPrivateMethods substitute)
+					{
+						return substitute.value();
+					}
+				}
+			);
+		assertEquals(NUMBER_OF_OBJECTS, results.size());
+		for(int i = 0; i < NUMBER_OF_OBJECTS; i++)
+			assertEquals(i, results.get(i).intValue());
+	}
+	
+	@Test
+	public void unknownSize()
+	{
+		Spliterator<StatefulPrivateMethods> objects =
+			Spliterators.spliteratorUnknownSize(
+				objects(NUMBER_OF_OBJECTS).iterator(),
+				Spliterator.ORDERED
+			);
+		List<String> results =
+			Publisher.create(SStatefulPrivateMethods.class).publishAll(objects, describe("v"));
+		assertEquals(NUMBER_OF_OBJECTS, results.size());
+		for(int i = 0; i < NUMBER_OF_OBJECTS; i++)
+			assertEquals("v" + i, results.get(i));
+	}
+	
+	@Test
+	public void stream()
+	{
+		List<String> results =
+			Publisher.create(SStatefulPrivateMethods.class, StatefulPrivateMethods.class)
+				.publishAll(objects(1000).stream(), describe("s"));
+		assertEquals("s0", results.get(0));
+		assertEquals("s999", results.get(999));
+	}
+	
+	@Test
+	public void suppliedPool()
+	{
+		final ForkJoinPool pool = new ForkJoinPool(3);
+		final Set<Thread> threads =
+			Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+		try {
+			List<Integer> results =
+				Publisher.create(SStatefulPrivateMethods.class).publishAll(
+					objects(NUMBER_OF_OBJECTS).spliterator(),
+					new Function<SStatefulPrivateMethods, Integer>()
+					{
+						public Integer apply(SStatefulPrivateMethods substitute)
+						{
+							threads.add(Thread.currentThread());
+							return substitute.value();
+						}
+					},
+					pool
+				);
+			assertEquals(NUMBER_OF_OBJECTS - 1, results.get(NUMBER_OF_OBJECTS - 1).intValue());
+		}
+		finally {
+			pool.shutdown();
+		}
+		for(Thread thread : threads)
+			assertFalse(
+				thread instanceof ForkJoinWorkerThread
+					&& ((ForkJoinWorkerThread)thread).getPool() != pool
+			);
+	}
+	
+	@Test
+	public void empty()
+	{
+		List<String> results =
+			Publisher.create(SStatefulPrivateMethods.class).publishAll(
+				new ArrayList<StatefulPrivateMethods>().spliterator(),
+				describe("")
+			);
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void missingMethod()
+	{
+		Publisher.create(SMissing.class).publishAll(
+			objects(1000).spliterator(),
+			new Function<SMissing, Integer>()
+			{
+				public Integer apply(SMissing substitute)
+				{
+					return substitute.count();
+				}
+			}
+		);
+	}
+	
+	private static List<StatefulPrivateMethods> objects(int count)
+	{
+		List<StatefulPrivateMethods> objects = new ArrayList<StatefulPrivateMethods>(count);
+		for(int i = 0; i < count; i++)
+			objects.add(new StatefulPrivateMethods(i));
+		return objects;
+	}
+	
+	private static Function<SStatefulPrivateMethods, String> describe(final String prefix)
+	{
+		return
+			new Function<SStatefulPrivateMethods, String>()
+			{
+				public String apply(SStatefulPrivateMethods substitute)
+				{
+					return substitute.describe(prefix);
+				}
+			};
+	}
+}
@@ -0,0 +1,102 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+
+public class PolymorphicInlineCacheTest
+{
+	@Test
+	public void keysAreComparedByReference()
+		throws
+			NoSuchMethodException
+	{
+		PolymorphicInlineCache<String> cache = new PolymorphicInlineCache<String>();
+		Method key = Object.class.getMethod("hashCode");
+		assertNull(cache.putIfAbsent(key, "hashCode"));
+		assertSame("hashCode", cache.get(key));
+
+		// Equal but not the same Method object.
+		Method equalKey = Object.class.getMethod("hashCode");
+		assertEquals(key, equalKey);
+		assertNull(cache.get(equalKey));
+		assertSame("hashCode", cache.find(equalKey));
+
+		// An equal method is not added.
+		assertSame("hashCode", cache.putIfAbsent(equalKey, "equal"));
+		assertNull(cache.get(equalKey));
+	}
+
+	@Test
+	public void copiesOfMethodsDoNotGrowTheCache()
+	{
+		// Like a new policy calling getDeclaredMethods() for every substitute.
+		PolymorphicInlineCache<Integer> cache = new PolymorphicInlineCache<Integer>();
+		Method[] methods = StringBuilder.class.getDeclaredMethods();
+		for(int i = 0; i < methods.length; i++)
+			assertNull(cache.putIfAbsent(methods[i], i));
+		for(int round = 0; round < 2000; round++) {
+			Method[] copies = StringBuilder.class.getDeclaredMethods();
+			for(int i = 0; i < copies.length; i++) {
+				assertEquals(i, (int)cache.putIfAbsent(copies[i], -1));
+				assertEquals(i, (int)cache.find(copies[i]));
+			}
+		}
+	}
+
+	@Test
+	public void firstValueWins()
+		throws
+			NoSuchMethodException
+	{
+		PolymorphicInlineCache<String> cache = new PolymorphicInlineCache<String>();
+		Method key = Object.class.getMethod("hashCode");
+		assertNull(cache.putIfAbsent(key, "first"));
+		assertSame("first", cache.putIfAbsent(key, "second"));
+		assertSame("first", cache.get(key));
+	}
+
+	@Test
+	public void manyOverloadsAreMapped()
+	{
+		List<Method> overloads = new ArrayList<Method>();
+		for(Method method : StringBuilder.class.getDeclaredMethods())
+			if(method.getName().equals("append"))
+				overloads.add(method);
+		assertTrue(overloads.size() > PolymorphicInlineCache.POLYMORPHIC_LIMIT);
+
+		// The site is scanned linearly up to the limit and hashed after that.
+		PolymorphicInlineCache<Integer> cache = new PolymorphicInlineCache<Integer>();
+		for(int i = 0; i < overloads.size(); i++) {
+			assertNull(cache.putIfAbsent(overloads.get(i), i));
+			for(int j = 0; j <= i; j++)
+				assertEquals(j, (int)cache.get(overloads.get(j)));
+		}
+	}
+
+	@Test
+	public void everyMethodHasItsOwnValue()
+		throws
+			NoSuchMethodException
+	{
+		// Hundreds of names to make sure that the sites are rehashed.
+		List<Method> keys = new ArrayList<Method>();
+		for(Class<?> c : new Class<?>[] { String.class, Math.class, StringBuilder.class })
+			for(Method method : c.getDeclaredMethods())
+				keys.add(method);
+		PolymorphicInlineCache<Integer> cache = new PolymorphicInlineCache<Integer>();
+		for(int i = 0; i < keys.size(); i++)
+			assertNull(cache.putIfAbsent(keys.get(i), i));
+		for(int i = 0; i < keys.size(); i++)
+			assertEquals(i, (int)cache.get(keys.get(i)));
+		assertNull(cache.get(Object.class.getMethod("wait")));
+	}
+}
@@ -0,0 +1,33 @@
+package com.hapiware.util.publisher;
+
+public class PrivateConstructors
+{
+	private final String _name;
+	private final int _value;
+	
+	
+	private PrivateConstructors(int value)
+	{
+		this("int", value);
+	}
+	
+	private PrivateConstructors(String name, int value)
+	{
+		_name = name;
+		_value = value;
+	}
+	
+	@SuppressWarnings("unused")
+	private static PrivateConstructors of(int value)
+	{
+		if(value < 0)
+			throw new IllegalArgumentException("Negative value: " + value);
+		return new PrivateConstructors("of", value);
+	}
+	
+	@SuppressWarnings("unused")
+	private String describe()
+	{
+		return _name + _value;
+	}
+}
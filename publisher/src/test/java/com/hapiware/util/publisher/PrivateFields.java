@@ -0,0 +1,22 @@
+package com.hapiware.util.publisher;
+
+public class PrivateFields
+{
+	private static String _name = "static";
+	
+	private int _count;
+	private final long _id;
+	private double ratio;
+	
+	
+	public PrivateFields(long id)
+	{
+		_id = id;
+	}
+	
+	@SuppressWarnings("unused")
+	private int twice()
+	{
+		return 2 * _count;
+	}
+}
@@ -0,0 +1,145 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+import com.hapiware.util.publisher.annotation.NoCaching;
+
+
+public class PublisherEventsTest
+{
+	@NoCaching
+	private interface SReflective
+	{
+		public int twice(int value);
+	}
+
+	@MethodHandleCaching
+	private interface SHandles
+	{
+		public int twice(int value);
+	}
+
+	private static class Doubler
+	{
+		@SuppressWarnings("unused")
+		private int twice(int value)
+		{
+			return 2 * value;
+		}
+	}
+
+
+	@Test
+	public void recorderFollowsEngine()
+	{
+		String release = System.getProperty(MultiRelease.ENGINE_PROPERTY);
+		int expected = release != null && Integer.parseInt(release) < 11 ? 8 : 11;
+		assertEquals(expected, PublisherEvents.recorderRelease());
+	}
+
+	@Test
+	public void eventsAreRecorded()
+		throws
+			IOException
+	{
+		List<RecordedEvent> events;
+		try(Recording recording = new Recording()) {
+			recording.enable(PublisherEvents.POLICY_RESOLUTION);
+			recording.enable(PublisherEvents.SUBSTITUTE_CREATION).withThreshold(null);
+			recording.enable(PublisherEvents.LINKAGE);
+			recording.enable(PublisherEvents.INVOCATION).withThreshold(null);
+			recording.start();
+			assertEquals(6, Publisher.publish(SReflective.class, new Doubler()).twice(3));
+			assertEquals(8, Publisher.publish(SHandles.class, new Doubler()).twice(4));
+			recording.stop();
+			events = publisherEvents(recording);
+		}
+		if(PublisherEvents.recorderRelease() < 11) {
+			assertEquals(0, events.size());
+			return;
+		}
+
+		for(Class<?> substituteInterface : new Class<?>[] { SReflective.class, SHandles.class }) {
+			String signature =
+				PublishingPolicyBase.createSignature(
+					substituteInterface.getName(),
+					substituteInterface.getMethods()[0]
+				);
+			assertEquals(
+				1,
+				count(events, PublisherEvents.POLICY_RESOLUTION, substituteInterface, null)
+			);
+			assertEquals(
+				1,
+				count(events, PublisherEvents.SUBSTITUTE_CREATION, substituteInterface, null)
+			);
+			assertEquals(
+				1,
+				count(events, PublisherEvents.LINKAGE, substituteInterface, signature)
+			);
+			assertEquals(
+				1,
+				count(events, PublisherEvents.INVOCATION, substituteInterface, signature)
+			);
+		}
+	}
+
+	private static List<RecordedEvent> publisherEvents(Recording recording)
+		throws
+			IOException
+	{
+		Path file = Files.createTempFile("publisher", ".jfr");
+		try {
+			recording.dump(file);
+			List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+			for(RecordedEvent event : RecordingFile.readAllEvents(file))
+				if(event.getEventType().getName().startsWith("com.hapiware.util.publisher."))
+					events.add(event);
+			return events;
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	private static int count(
+		List<RecordedEvent> events,
+		String name,
+		Class<?> substituteInterface,
+		String signature
+	)
+	{
+		int count = 0;
+		for(RecordedEvent event : events) {
+			if(
+				!event.getEventType().getName().equals(name)
+					|| !event.getClass("substituteInterface").getName().equals(
+						substituteInterface.getName()
+					)
+			)
+				continue;
+
+			if(!name.equals(PublisherEvents.POLICY_RESOLUTION))
+				assertEquals(Doubler.class.getName(), event.getClass("substitutedClass").getName());
+			if(signature != null)
+				assertEquals(signature, event.getString("method"));
+			assertTrue(event.getDuration().toNanos() >= 0);
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,99 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+
+public class PublisherMetricsTest
+{
+	private interface SPrivateMethods
+	{
+		public int add(int a, int b);
+	}
+	
+	@AfterMethod
+	public void reset()
+	{
+		PublisherMetrics.reset();
+	}
+	
+	@Test
+	public void disabledByDefault()
+	{
+		assertEquals(
+			Boolean.getBoolean(PublisherMetrics.ENABLED_PROPERTY),
+			PublisherMetrics.isEnabled()
+		);
+		if(!PublisherMetrics.isEnabled()) {
+			InvocationHandler handler =
+				new InvocationHandler()
+				{
+					public Object invoke(Object proxy, Method method, Object[] args)
+					{
+						return null;
+					}
+				};
+			assertSame(handler, PublisherMetrics.instrument(handler));
+			Publisher.publish(SPrivateMethods.class, new PrivateMethods()).add(1, 2);
+			assertEquals(0, PublisherMetrics.snapshot().size());
+		}
+	}
+	
+	@Test
+	public void snapshot()
+		throws
+			NoSuchMethodException
+	{
+		Method add = SPrivateMethods.class.getMethod("add", int.class, int.class);
+		MethodMetrics metrics = PublisherMetrics.methodMetrics(add);
+		for(long nanos = 1; nanos <= 100; nanos++)
+			metrics.record(nanos);
+		metrics.cacheAccess(false);
+		metrics.cacheAccess(true);
+		metrics.cacheAccess(true);
+		
+		List<MethodMetricsSnapshot> snapshots = PublisherMetrics.snapshot();
+		assertEquals(1, snapshots.size());
+		MethodMetricsSnapshot snapshot = snapshots.get(0);
+		assertEquals(SPrivateMethods.class.getName() + ".add(int,int)", snapshot.getMethod());
+		assertEquals(100, snapshot.getCalls());
+		assertEquals(5050, snapshot.getTotalNanos());
+		assertEquals(50, snapshot.getMeanNanos());
+		assertEquals(100, snapshot.getMaxNanos());
+		assertEquals(2, snapshot.getCacheHits());
+		assertEquals(1, snapshot.getCacheMisses());
+	}
+	
+	@Test
+	public void mxBean()
+		throws
+			Exception
+	{
+		Method add = SPrivateMethods.class.getMethod("add", int.class, int.class);
+		PublisherMetrics.methodMetrics(add).record(10);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		PublisherMetrics.registerMBean(server);
+		PublisherMetrics.registerMBean(server);
+		ObjectName name = new ObjectName(PublisherMetrics.OBJECT_NAME);
+		CompositeData[] methodMetrics = (CompositeData[])server.getAttribute(name, "MethodMetrics");
+		assertEquals(1, methodMetrics.length);
+		assertEquals(1L, methodMetrics[0].get("calls"));
+		assertEquals(10L, methodMetrics[0].get("p50Nanos"));
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, ((CompositeData[])server.getAttribute(name, "MethodMetrics")).length);
+		assertTrue(PublisherMetrics.snapshot().isEmpty());
+	}
+}
@@ -0,0 +1,47 @@
+package com.hapiware.util.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Creates one instance of every publishing policy for the tests which run the same checks with
+ * all of them.
+ */
+final class PublishingPolicies
+{
+	private PublishingPolicies()
+	{
+		// Prevents a construction of PublishingPolicies.
+	}
+	
+	/**
+	 * Creates the publishing policies. {@link AdaptivePublishingPolicy} promotes every method
+	 * after the first call, so both of its tiers are used.
+	 * 
+	 * @param substituteInterface
+	 * 		A substitute interface class.
+	 * 
+	 * @param substitutedClass
+	 * 		A substituted class for {@link PrelinkedPublishingPolicy}.
+	 * 
+	 * @return
+	 * 		All the publishing policies.
+	 */
+	static <PSI> List<PublishingPolicy<PSI>> all(
+		Class<PSI> substituteInterface,
+		Class<?> substitutedClass
+	)
+	{
+		List<PublishingPolicy<PSI>> policies = new ArrayList<PublishingPolicy<PSI>>();
+		policies.add(new NonCachingPublishingPolicy<PSI>(substituteInterface));
+		policies.add(new CachingPublishingPolicy<PSI>(substituteInterface));
+		policies.add(new IdentityHashedCachingPublishingPolicy<PSI>(substituteInterface));
+		policies.add(new ConcurrentIdentityHashedCachingPublishingPolicy<PSI>(substituteInterface));
+		policies.add(new MethodHandlePublishingPolicy<PSI>(substituteInterface));
+		policies.add(new BytecodeGeneratingPublishingPolicy<PSI>(substituteInterface));
+		policies.add(new PrelinkedPublishingPolicy<PSI>(substituteInterface, substitutedClass));
+		policies.add(new AdaptivePublishingPolicy<PSI>(substituteInterface, 1));
+		return policies;
+	}
+}
@@ -0,0 +1,53 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+
+import org.testng.annotations.Test;
+
+
+public class PublishingPolicyBaseTest
+{
+	private interface SPrivate
+	{
+		public Object target();
+	}
+	
+	private final static SubstituteDispatcher TARGET =
+		new SubstituteDispatcher(SPrivate.class, String.class)
+		{
+			Object dispatch(Object substitutedObject, Method siMethod, Object[] args)
+			{
+				return substitutedObject;
+			}
+		};
+	
+	
+	@Test
+	public void privateInterface()
+	{
+		SPrivate first = (SPrivate)PublishingPolicyBase.newProxy(SPrivate.class, TARGET, "first");
+		SPrivate second = (SPrivate)PublishingPolicyBase.newProxy(SPrivate.class, TARGET, "second");
+		assertTrue(Proxy.isProxyClass(first.getClass()));
+		assertSame(first.getClass(), second.getClass());
+		assertEquals("first", first.target());
+		assertEquals("second", second.target());
+	}
+	
+	@Test
+	public void publicInterface()
+		throws
+			Exception
+	{
+		@SuppressWarnings("unchecked")
+		Callable<Object> callable =
+			(Callable<Object>)PublishingPolicyBase.newProxy(Callable.class, TARGET, "call");
+		assertTrue(Proxy.isProxyClass(callable.getClass()));
+		assertEquals("call", callable.call());
+	}
+}
@@ -0,0 +1,96 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.IdAnnotationError;
+import com.hapiware.util.publisher.annotation.MethodHandleCaching;
+
+
+public class PublishingPolicyRegistryTest
+{
+	private interface SPublisher
+	{
+		public <PSI> PublishingPolicy<PSI> findPublishingPolicy(
+			final Class<PSI> substituteInterface
+		);
+		public <PSI> PublishingPolicy<PSI> publishingPolicy(
+			final Class<PSI> substituteInterface
+		);
+	}
+	
+	@MethodHandleCaching
+	private interface SPrivateMethods
+	{
+		public int add(int a, int b);
+	}
+	
+	private interface SPrivateMethodsWithBrokenIds
+	{
+		@Id(1)
+		public int add(int a, int b);
+	}
+	
+	@Test
+	public void policyIsShared()
+	{
+		SPublisher substitutePublisher = Publisher.publish(SPublisher.class, Publisher.class);
+		PublishingPolicy<SPrivateMethods> pp =
+			substitutePublisher.publishingPolicy(SPrivateMethods.class);
+		assertSame(pp, substitutePublisher.publishingPolicy(SPrivateMethods.class));
+		assertNotSame(pp, substitutePublisher.findPublishingPolicy(SPrivateMethods.class));
+		assertEquals(
+			"com.hapiware.util.publisher.MethodHandlePublishingPolicy",
+			pp.getClass().getName()
+		);
+	}
+	
+	@Test
+	public void sharedPolicyPublishesEveryObject()
+	{
+		SPrivateMethods substitute1 =
+			Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		SPrivateMethods substitute2 =
+			Publisher.publish(SPrivateMethods.class, new PrivateMethods());
+		assertNotSame(substitute1, substitute2);
+		assertEquals(7, substitute1.add(3, 4));
+		assertEquals(7, substitute2.add(3, 4));
+	}
+	
+	@Test
+	public void brokenIdsAreCheckedEveryTime()
+	{
+		for(int i = 0; i < 2; i++) {
+			try {
+				Publisher.publish(SPrivateMethodsWithBrokenIds.class, new PrivateMethods());
+				fail();
+			}
+			catch(IdAnnotationError e) {
+				assertEquals("@Id values must start from zero (0).", e.getMessage());
+			}
+		}
+	}
+	
+	@Test
+	public void nonInterfaceIsRejectedEveryTime()
+	{
+		for(int i = 0; i < 2; i++) {
+			try {
+				Publisher.create(PrivateMethods.class);
+				fail();
+			}
+			catch(IllegalArgumentException e) {
+				assertEquals(
+					"'substituteInterface' class must be an interface. Was: "
+						+ "com.hapiware.util.publisher.PrivateMethods.",
+					e.getMessage()
+				);
+			}
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.hapiware.util.publisher.annotation.BytecodeGeneration;
+import com.hapiware.util.publisher.annotation.Id;
+import com.hapiware.util.publisher.annotation.NoCaching;
+
+
+public class RebindableSubstituteTest
+{
+	private interface SStatefulPrivateMethods
+	{
+		public int value();
+		public void add(int value);
+		public String describe(String prefix);
+	}
+
+	private interface SValue
+	{
+		public int value();
+	}
+
+	@NoCaching
+	private interface SNoCaching
+	{
+		public int value();
+	}
+
+	private interface SCaching
+	{
+		@Id(0) public int value();
+	}
+
+	@BytecodeGeneration
+	private interface SBytecode
+	{
+		public int value();
+	}
+
+	private static class Value
+	{
+		@SuppressWarnings("unused")
+		private int value()
+		{
+			return -1;
+		}
+	}
+
+
+	@Test
+	public void substituteIsRebound()
+	{
+		RebindableSubstitute<SStatefulPrivateMethods> rebindable =
+			Publisher.rebindable(SStatefulPrivateMethods.class);
+		SStatefulPrivateMethods substitute = rebindable.substitute();
+		for(int i = 0; i < 10; i++) {
+			StatefulPrivateMethods spm = new StatefulPrivateMethods(i);
+			assertSame(substitute, rebindable.bind(spm));
+			substitute.add(1);
+			assertEquals(i + 1, substitute.value());
+			assertEquals("v" + (i + 1), substitute.describe("v"));
+		}
+		assertSame(Thread.currentThread(), rebindable.getOwner());
+	}
+
+	@Test
+	public void substitutedClassCanChange()
+	{
+		RebindableSubstitute<SValue> rebindable = Publisher.rebindable(SValue.class);
+		assertEquals(3, rebindable.bind(new StatefulPrivateMethods(3)).value());
+		assertEquals(-1, rebindable.bind(new Value()).value());
+		assertEquals(5, rebindable.bind(new StatefulPrivateMethods(5)).value());
+	}
+
+	@Test
+	public void everyPolicyCanBeRebound()
+	{
+		assertEquals(-1, Publisher.rebindable(SNoCaching.class).bind(new Value()).value());
+		assertEquals(-1, Publisher.rebindable(SCaching.class).bind(new Value()).value());
+		assertEquals(
+			7,
+			Publisher.rebindable(SBytecode.class).bind(new StatefulPrivateMethods(7)).value()
+		);
+	}
+
+	@Test(expectedExceptions = {IllegalStateException.class})
+	public void unboundSubstituteCannotBeCalled()
+	{
+		RebindableSubstitute<SValue> rebindable = Publisher.rebindable(SValue.class);
+		rebindable.bind(new Value());
+		rebindable.unbind();
+		rebindable.substitute().value();
+	}
+
+	@Test
+	public void otherThreadsAreDetected()
+		throws
+			Exception
+	{
+		final RebindableSubstitute<SValue> rebindable = Publisher.rebindable(SValue.class);
+		final SValue substitute = rebindable.bind(new Value());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertIllegalState(
+				executor.submit(
+					new Callable<Integer>()
+					{
+						public Integer call()
+						{
+							return substitute.value();
+						}
+					}
+				)
+			);
+			assertIllegalState(
+				executor.submit(
+					new Callable<SValue>()
+					{
+						public SValue call()
+						{
+							return rebindable.bind(new Value());
+						}
+					}
+				)
+			);
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		// The owner can still use it.
+		assertEquals(-1, substitute.value());
+	}
+
+	@Test(expectedExceptions = {SubstituteMethodNameConflictError.class})
+	public void missingMethodIsReported()
+	{
+		Publisher.rebindable(SStatefulPrivateMethods.class).bind(new Value()).describe("x");
+	}
+
+	private static void assertIllegalState(Future<?> result)
+		throws
+			InterruptedException
+	{
+		try {
+			result.get();
+			fail();
+		}
+		catch(ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
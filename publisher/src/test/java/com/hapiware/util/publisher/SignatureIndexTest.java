@@ -0,0 +1,115 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+
+public class SignatureIndexTest
+{
+	private interface SPrivateMethods
+	{
+		public int add(int a, int b);
+		public double add(double a, double b);
+	}
+	
+	private interface SOtherPrivateMethods
+	{
+		public int add(int a, int b);
+	}
+	
+	private static class Base
+	{
+		@SuppressWarnings("unused")
+		Object value()
+		{
+			return null;
+		}
+	}
+	
+	private static class Covariant
+		extends
+			Base
+	{
+		@Override
+		String value()
+		{
+			return "covariant";
+		}
+	}
+	
+	private static class Sub
+		extends
+			Covariant
+	{
+		@SuppressWarnings("unused")
+		private int count()
+		{
+			return 0;
+		}
+	}
+	
+	
+	@Test
+	public void indexIsShared()
+		throws
+			NoSuchMethodException
+	{
+		SignatureIndex index = SignatureIndex.of(PrivateMethods.class);
+		assertSame(index, SignatureIndex.of(PrivateMethods.class));
+		Method add = index.method(SPrivateMethods.class.getMethod("add", int.class, int.class));
+		assertTrue(add.isAccessible());
+		assertEquals(int.class, add.getReturnType());
+		assertSame(add, index.method(SPrivateMethods.class.getMethod("add", int.class, int.class)));
+		assertSame(
+			add,
+			index.method(SOtherPrivateMethods.class.getMethod("add", int.class, int.class))
+		);
+		Method addDouble =
+			index.method(SPrivateMethods.class.getMethod("add", double.class, double.class));
+		assertEquals(double.class, addDouble.getReturnType());
+	}
+	
+	@Test(expectedExceptions = {NoSuchMethodException.class})
+	public void missingMethod()
+		throws
+			NoSuchMethodException
+	{
+		SignatureIndex.of(PrivateMethods.class).method("add", new Class<?>[] { long.class });
+	}
+	
+	@Test
+	public void bridgeMethodsAreSkipped()
+		throws
+			NoSuchMethodException
+	{
+		Method value = SignatureIndex.of(Covariant.class).method("value", new Class<?>[0]);
+		assertEquals(String.class, value.getReturnType());
+		assertFalse(value.isBridge());
+	}
+	
+	@Test
+	public void hierarchyIsFlattened()
+		throws
+			NoSuchMethodException
+	{
+		SignatureIndex index = SignatureIndex.of(Sub.class);
+		assertSame(Sub.class, index.method("count", new Class<?>[0]).getDeclaringClass());
+		Method value = index.method("value", new Class<?>[0]);
+		assertSame(Covariant.class, value.getDeclaringClass());
+		assertEquals(String.class, value.getReturnType());
+	}
+	
+	@Test(expectedExceptions = {NoSuchMethodException.class})
+	public void objectIsNotIndexed()
+		throws
+			NoSuchMethodException
+	{
+		SignatureIndex.of(Sub.class).method("hashCode", new Class<?>[0]);
+	}
+}
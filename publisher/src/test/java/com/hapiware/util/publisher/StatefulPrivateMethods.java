@@ -0,0 +1,35 @@
+package com.hapiware.util.publisher;
+
+public class StatefulPrivateMethods
+{
+	private int _value;
+	
+	public StatefulPrivateMethods(int value)
+	{
+		_value = value;
+	}
+	
+	@SuppressWarnings("unused")
+	private int value()
+	{
+		return _value;
+	}
+	
+	@SuppressWarnings("unused")
+	private void add(int value)
+	{
+		_value += value;
+	}
+	
+	@SuppressWarnings("unused")
+	private String describe(String prefix)
+	{
+		return prefix + _value;
+	}
+	
+	@SuppressWarnings("unused")
+	private static long multiply(long a, long b)
+	{
+		return a * b;
+	}
+}
@@ -0,0 +1,113 @@
+package com.hapiware.util.publisher;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+
+public class SubstituteCacheTest
+{
+	private interface SPrivateMethods
+	{
+		public int add(int a, int b);
+	}
+
+
+	@Test
+	public void valuesAreCached()
+	{
+		SubstituteCache<Object> cache = new ObjectCache(4);
+		Object value = cache.get(String.class);
+		assertSame(value, cache.get(String.class));
+		assertNotSame(value, cache.get(Integer.class));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted()
+	{
+		SubstituteCache<Object> cache = new ObjectCache(2);
+		long evictions = SubstituteCache.evictions();
+		Object string = cache.get(String.class);
+		Object integer = cache.get(Integer.class);
+		assertSame(string, cache.get(String.class));
+
+		// Both are referenced, so the first one in the clock order is evicted.
+		Object longValue = cache.get(Long.class);
+		assertEquals(2, cache.size());
+		assertEquals(evictions + 1, SubstituteCache.evictions());
+		assertSame(longValue, cache.get(Long.class));
+
+		// Integer was not referenced after the clock passed it.
+		cache.get(Double.class);
+		assertEquals(evictions + 2, SubstituteCache.evictions());
+		assertNotSame(integer, cache.get(Integer.class));
+	}
+
+	@Test
+	public void clearRemovesEverything()
+	{
+		SubstituteCache<Object> cache = new ObjectCache(4);
+		Object value = cache.get(String.class);
+		cache.get(Integer.class);
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNotSame(value, cache.get(String.class));
+	}
+
+	@Test
+	public void hitsAndMissesAreCounted()
+	{
+		SubstituteCache<Object> cache = new ObjectCache(4);
+		long hits = SubstituteCache.hits();
+		long misses = SubstituteCache.misses();
+		cache.get(String.class);
+		cache.get(String.class);
+		cache.get(String.class);
+		// Other tests may use the shared caches at the same time.
+		if(PublisherMetrics.isEnabled())
+			assertTrue(SubstituteCache.hits() >= hits + 2);
+		else
+			assertEquals(0, SubstituteCache.hits());
+		assertTrue(SubstituteCache.misses() >= misses + 1);
+	}
+
+	@Test(expectedExceptions = {IllegalArgumentException.class})
+	public void maximumSizeMustBePositive()
+	{
+		new ObjectCache(0);
+	}
+
+	@Test
+	public void publisherWorksAfterClearingCaches()
+	{
+		assertEquals(3, Publisher.publish(SPrivateMethods.class, new PrivateMethods()).add(1, 2));
+		assertTrue(PublisherMetrics.getSubstituteCacheSize() > 0);
+		Publisher<SPrivateMethods> publisher = Publisher.create(SPrivateMethods.class);
+		SPrivateMethods spm = publisher.publish(new PrivateMethods());
+		Publisher.clearCaches();
+		assertEquals(5, spm.add(2, 3));
+		assertEquals(7, publisher.publish(new PrivateMethods()).add(3, 4));
+		assertEquals(9, Publisher.publish(SPrivateMethods.class, new PrivateMethods()).add(4, 5));
+	}
+
+
+	private final static class ObjectCache
+		extends
+			SubstituteCache<Object>
+	{
+		ObjectCache(int maximumSize)
+		{
+			super(maximumSize);
+		}
+
+
+		protected Object computeValue(Class<?> type)
+		{
+			return new Object();
+		}
+	}
+}